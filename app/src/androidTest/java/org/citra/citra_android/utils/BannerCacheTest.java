@@ -0,0 +1,53 @@
+package org.citra.citra_android.utils;
+
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.citra.citra_android.model.Game;
+import org.citra.citra_android.ui.platform.Platform;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+public class BannerCacheTest
+{
+  private final Game mGame = new Game(1, Platform.GAMECUBE, "Title", "", 0,
+          "/sdcard/roms/game.3ds", "GAME01", "", "file:///sdcard/none.png", 1234,
+          "0123456789abcdef");
+
+  @Test
+  public void gameKeepsItsBannerFile()
+  {
+    assertSame(mGame.getBannerFile(), mGame.getBannerFile());
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void peekingABannerDoesNotAllocate()
+  {
+    BannerCache cache = BannerCache.getInstance(InstrumentationRegistry.getTargetContext());
+
+    // As the first bind of the game's card would.
+    cache.peekBanner(mGame.getBannerFile());
+
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    try
+    {
+      for (int i = 0; i < 1000; i++)
+      {
+        cache.peekBanner(mGame.getBannerFile());
+      }
+    }
+    finally
+    {
+      Debug.stopAllocCounting();
+    }
+
+    assertEquals(0, Debug.getThreadAllocCount());
+  }
+}
@@ -0,0 +1,89 @@
+package org.citra.citra_android.utils;
+
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+public class BitmapPoolTest
+{
+  private final BitmapPool mPool = new BitmapPool(BannerCache.WIDTH, BannerCache.HEIGHT,
+          Bitmap.Config.RGB_565, 2);
+
+  @Test
+  public void createsBitmapsOfThePoolsSize()
+  {
+    Bitmap bitmap = mPool.acquire();
+
+    assertEquals(BannerCache.WIDTH, bitmap.getWidth());
+    assertEquals(BannerCache.HEIGHT, bitmap.getHeight());
+    assertEquals(Bitmap.Config.RGB_565, bitmap.getConfig());
+  }
+
+  @Test
+  public void reusesReleasedBitmaps()
+  {
+    Bitmap bitmap = mPool.acquire();
+    mPool.release(bitmap);
+
+    assertSame(bitmap, mPool.acquire());
+    assertNotSame(bitmap, mPool.acquire());
+  }
+
+  @Test
+  public void dropsBitmapsBeyondItsSize()
+  {
+    Bitmap first = mPool.acquire();
+    Bitmap second = mPool.acquire();
+    Bitmap third = mPool.acquire();
+    mPool.release(first);
+    mPool.release(second);
+    mPool.release(third);
+
+    // Only two were kept, the most recently released first.
+    assertSame(second, mPool.acquire());
+    assertSame(first, mPool.acquire());
+    assertNotSame(third, mPool.acquire());
+  }
+
+  @Test
+  public void doesNotReuseRecycledBitmaps()
+  {
+    Bitmap bitmap = mPool.acquire();
+    bitmap.recycle();
+    mPool.release(bitmap);
+
+    assertNotSame(bitmap, mPool.acquire());
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void reusingABitmapDoesNotAllocate()
+  {
+    // Warm the pool up, as a scrolled list would be.
+    mPool.release(mPool.acquire());
+
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    try
+    {
+      for (int i = 0; i < 1000; i++)
+      {
+        mPool.release(mPool.acquire());
+      }
+    }
+    finally
+    {
+      Debug.stopAllocCounting();
+    }
+
+    assertEquals(0, Debug.getThreadAllocCount());
+  }
+}
@@ -3,12 +3,14 @@ package org.citra.citra_android;
 import android.app.Application;
 
 import org.citra.citra_android.model.GameDatabase;
+import org.citra.citra_android.model.LibraryRepository;
 import org.citra.citra_android.services.DirectoryInitializationService;
 import org.citra.citra_android.utils.PermissionsHandler;
 
 public class DolphinApplication extends Application
 {
   public static GameDatabase databaseHelper;
+  public static LibraryRepository libraryRepository;
 
   @Override
   public void onCreate()
@@ -16,8 +18,11 @@ public class DolphinApplication extends Application
     super.onCreate();
 
     if (PermissionsHandler.hasWriteAccess(getApplicationContext()))
+    {
       DirectoryInitializationService.startService(getApplicationContext());
+    }
 
     databaseHelper = new GameDatabase(this);
+    libraryRepository = new LibraryRepository(this, databaseHelper);
   }
 }
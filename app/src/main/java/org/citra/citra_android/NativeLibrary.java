@@ -10,9 +10,11 @@ import android.app.AlertDialog;
 import android.view.Surface;
 
 import org.citra.citra_android.activities.EmulationActivity;
+import org.citra.citra_android.model.GameMetadata;
 import org.citra.citra_android.utils.Log;
 
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 
 /**
  * Class which contains methods that interact
@@ -119,6 +121,26 @@ public final class NativeLibrary
    */
   public static native void onTouchMoved(float x_axis, float y_axis);
 
+  /**
+   * Hands the native side the ring through which the touch overlay passes its input, to be
+   * drained once per emulated frame. See {@link org.citra.citra_android.overlay.InputRing} for
+   * the layout of its records. Only exported by cores that read the ring; InputRing falls back to
+   * the per-event calls above otherwise.
+   *
+   * @param buffer   A direct buffer holding capacity records.
+   * @param capacity The number of records the ring holds.
+   */
+  public static native void SetInputRing(ByteBuffer buffer, int capacity);
+
+  /**
+   * Publishes the records written to the input ring.
+   *
+   * @param written How many records were written to the ring since it was set, wrapping around
+   *                like an int. If the native side fell more than a ring's length behind, the
+   *                oldest records were overwritten and are to be skipped.
+   */
+  public static native void CommitInput(int written);
+
   public static native String GetUserSetting(String gameID, String Section, String Key);
 
   public static native void SetUserSetting(String gameID, String Section, String Key, String Value);
@@ -147,6 +169,40 @@ public final class NativeLibrary
    */
   public static native void SetConfig(String configFile, String Section, String Key, String Value);
 
+  /**
+   * Applies the frame limit while emulation is running, without reloading the config.
+   * <p>
+   * This and the other Set* calls below are only exported by cores that can change settings while
+   * running. EmulationFragment stops calling them once one is missing, and the saved settings
+   * then take effect the next time a game starts.
+   *
+   * @param enabled Whether the frame rate is limited at all.
+   * @param limit   The limit, as a percentage of the console's speed.
+   */
+  public static native void SetFrameLimit(boolean enabled, int limit);
+
+  /**
+   * Applies the audio volume while emulation is running, without reloading the config.
+   *
+   * @param volume The volume, from 0 (muted) to 1.
+   */
+  public static native void SetVolume(float volume);
+
+  /**
+   * Applies the internal resolution while emulation is running, without reloading the config.
+   *
+   * @param factor The multiple of the console's resolution, or 0 to match the window.
+   */
+  public static native void SetResolutionFactor(int factor);
+
+  /**
+   * Applies the screen layout while emulation is running, without reloading the config.
+   *
+   * @param layoutOption The layout, as stored in the layout_option setting.
+   * @param swapScreens  Whether the top and bottom screens trade places.
+   */
+  public static native void SetLayoutOption(int layoutOption, boolean swapScreens);
+
   /**
    * Gets the embedded banner within the given ISO/ROM.
    *
@@ -155,6 +211,17 @@ public final class NativeLibrary
    */
   public static native int[] GetBanner(String filename);
 
+  /**
+   * Writes the embedded banner within the given ISO/ROM directly into a buffer, without creating
+   * any Java objects. Only exported by cores that include it; BannerCache falls back to
+   * {@link #GetBanner(String)} otherwise.
+   *
+   * @param filename the file path to the ISO/ROM.
+   * @param buffer   a direct buffer with room for the 48x48 RGB565 banner, in native byte order.
+   * @return true if the game has a banner and it was written into the buffer.
+   */
+  public static native boolean GetBannerInto(String filename, ByteBuffer buffer);
+
   /**
    * Gets the embedded title of the given ISO/ROM.
    *
@@ -175,6 +242,17 @@ public final class NativeLibrary
 
   public static native int GetPlatform(String filename);
 
+  /**
+   * Reads the metadata of several ISOs/ROMs, opening and parsing each file only once.
+   * Only exported by cores that include the batched metadata reader; use
+   * {@link org.citra.citra_android.model.GameMetadataReader#NATIVE}, which falls back to the
+   * per-field calls otherwise.
+   *
+   * @param filenames The file paths to the ISOs/ROMs.
+   * @return an array parallel to filenames; an element is null if that file couldn't be read.
+   */
+  public static native GameMetadata[] GetGameMetadata(String[] filenames);
+
   /**
    * Gets the Dolphin version string.
    *
@@ -1,9 +1,8 @@
 package org.citra.citra_android.adapters;
 
-import android.database.Cursor;
-import android.database.DataSetObserver;
 import android.graphics.Rect;
 import android.support.v4.app.FragmentActivity;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,32 +10,37 @@ import android.view.ViewGroup;
 
 import org.citra.citra_android.R;
 import org.citra.citra_android.activities.EmulationActivity;
-import org.citra.citra_android.model.GameDatabase;
-import org.citra.citra_android.utils.Log;
+import org.citra.citra_android.dialogs.GameDetailsDialog;
+import org.citra.citra_android.model.Game;
+import org.citra.citra_android.utils.BannerCache;
 import org.citra.citra_android.utils.PicassoUtils;
 import org.citra.citra_android.viewholders.GameViewHolder;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
- * This adapter gets its information from a database Cursor. This fact, paired with the usage of
- * ContentProviders and Loaders, allows for efficient display of a limited view into a (possibly)
- * large dataset.
+ * This adapter binds a platform's games straight from a library snapshot. Snapshots are
+ * immutable and already sorted, so binding a card is a list lookup; nothing is read from the
+ * database on the main thread.
  */
 public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> implements
-        View.OnClickListener
+        View.OnClickListener, View.OnLongClickListener
 {
-  private Cursor mCursor;
-  private GameDataSetObserver mObserver;
+  // How far beyond a bound card, in the direction of scrolling, banners are prefetched.
+  private static final int BANNER_PREFETCH_DISTANCE = 12;
+
+  private List<Game> mGames = Collections.emptyList();
 
-  private boolean mDatasetValid;
+  private int mLastBoundPosition;
 
   /**
-   * Initializes the adapter's observer, which watches for changes to the dataset. The adapter will
-   * display no data until a Cursor is supplied by a CursorLoader.
+   * The adapter will display no data until a list is supplied through
+   * {@link #setGames(GameListDiff.Result)}.
    */
   public GameAdapter()
   {
-    mDatasetValid = false;
-    mObserver = new GameDataSetObserver();
+    setHasStableIds(true);
   }
 
   /**
@@ -54,6 +58,7 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
             .inflate(R.layout.card_game, parent, false);
 
     gameCard.setOnClickListener(this);
+    gameCard.setOnLongClickListener(this);
 
     // Use that view to create a ViewHolder.
     return new GameViewHolder(gameCard);
@@ -70,34 +75,38 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
   @Override
   public void onBindViewHolder(GameViewHolder holder, int position)
   {
-    if (mDatasetValid)
-    {
-      if (mCursor.moveToPosition(position))
-      {
-        String screenPath = mCursor.getString(GameDatabase.GAME_COLUMN_SCREENSHOT_PATH);
-        PicassoUtils.loadGameBanner(holder.imageScreenshot, screenPath,
-                mCursor.getString(GameDatabase.GAME_COLUMN_PATH));
-
-        holder.textGameTitle.setText(mCursor.getString(GameDatabase.GAME_COLUMN_TITLE));
-        holder.textCompany.setText(mCursor.getString(GameDatabase.GAME_COLUMN_COMPANY));
-
-        // TODO These shouldn't be necessary once the move to a DB-based model is complete.
-        holder.gameId = mCursor.getString(GameDatabase.GAME_COLUMN_GAME_ID);
-        holder.path = mCursor.getString(GameDatabase.GAME_COLUMN_PATH);
-        holder.title = mCursor.getString(GameDatabase.GAME_COLUMN_TITLE);
-        holder.description = mCursor.getString(GameDatabase.GAME_COLUMN_DESCRIPTION);
-        holder.country = mCursor.getInt(GameDatabase.GAME_COLUMN_COUNTRY);
-        holder.company = mCursor.getString(GameDatabase.GAME_COLUMN_COMPANY);
-        holder.screenshotPath = mCursor.getString(GameDatabase.GAME_COLUMN_SCREENSHOT_PATH);
-      }
-      else
-      {
-        Log.error("[GameAdapter] Can't bind view; Cursor is not valid.");
-      }
-    }
-    else
+    prefetchBanner(holder, position);
+
+    Game game = mGames.get(position);
+    PicassoUtils.loadGameBanner(holder.imageScreenshot, game.getScreenshotPath(),
+            game.getBannerFile());
+
+    holder.textGameTitle.setText(game.getTitle());
+    holder.textCompany.setText(game.getCompany());
+
+    // TODO These shouldn't be necessary once the move to a DB-based model is complete.
+    holder.gameId = game.getGameId();
+    holder.path = game.getPath();
+    holder.title = game.getTitle();
+    holder.company = game.getCompany();
+    holder.screenshotPath = game.getScreenshotPath();
+  }
+
+  /**
+   * Starts loading the banner of the card that will be bound a little further along, so that it
+   * is usually in memory by the time it scrolls into view.
+   */
+  private void prefetchBanner(GameViewHolder holder, int position)
+  {
+    int direction = position >= mLastBoundPosition ? 1 : -1;
+    mLastBoundPosition = position;
+
+    int prefetchPosition = position + direction * BANNER_PREFETCH_DISTANCE;
+    if (prefetchPosition >= 0 && prefetchPosition < mGames.size())
     {
-      Log.error("[GameAdapter] Can't bind view; dataset is not valid.");
+      Game game = mGames.get(prefetchPosition);
+      BannerCache.getInstance(holder.itemView.getContext())
+              .prefetch(game.getBannerFile());
     }
   }
 
@@ -109,38 +118,24 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
   @Override
   public int getItemCount()
   {
-    if (mDatasetValid && mCursor != null)
-    {
-      return mCursor.getCount();
-    }
-    Log.error("[GameAdapter] Dataset is not valid.");
-    return 0;
+    return mGames.size();
   }
 
   /**
-   * Return the contents of the _id column for a given row.
+   * Return the row ID of the game at a given position.
    *
    * @param position The row for which Android wants an ID.
-   * @return A valid ID from the database, or 0 if not available.
+   * @return A valid ID from the database.
    */
   @Override
   public long getItemId(int position)
   {
-    if (mDatasetValid && mCursor != null)
-    {
-      if (mCursor.moveToPosition(position))
-      {
-        return mCursor.getLong(GameDatabase.COLUMN_DB_ID);
-      }
-    }
-
-    Log.error("[GameAdapter] Dataset is not valid.");
-    return 0;
+    return mGames.get(position).getId();
   }
 
   /**
    * Tell Android whether or not each item in the dataset has a stable identifier.
-   * Which it does, because it's a database, so always tell Android 'true'.
+   * Which it does, because every game has a row ID, so always tell Android 'true'.
    *
    * @param hasStableIds ignored.
    */
@@ -151,43 +146,32 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
   }
 
   /**
-   * When a load is finished, call this to replace the existing data with the newly-loaded
-   * data.
-   *
-   * @param cursor The newly-loaded Cursor.
+   * @return The games currently shown.
    */
-  public void swapCursor(Cursor cursor)
+  public List<Game> getGames()
   {
-    // Sanity check.
-    if (cursor == mCursor)
-    {
-      return;
-    }
+    return mGames;
+  }
 
-    // Before getting rid of the old cursor, disassociate it from the Observer.
-    final Cursor oldCursor = mCursor;
-    if (oldCursor != null && mObserver != null)
-    {
-      oldCursor.unregisterDataSetObserver(mObserver);
-    }
+  /**
+   * When a new list of games is ready, call this to replace the shown one. Only the cards that
+   * changed are rebound, unless there was no diff to apply.
+   *
+   * @param result The new games, diffed against {@link #getGames()}.
+   */
+  public void setGames(GameListDiff.Result result)
+  {
+    DiffUtil.DiffResult diff = result.getDiffFrom(mGames);
+    mGames = result.getGames();
 
-    mCursor = cursor;
-    if (mCursor != null)
+    if (diff != null)
     {
-      // Attempt to associate the new Cursor with the Observer.
-      if (mObserver != null)
-      {
-        mCursor.registerDataSetObserver(mObserver);
-      }
-
-      mDatasetValid = true;
+      diff.dispatchUpdatesTo(this);
     }
     else
     {
-      mDatasetValid = false;
+      notifyDataSetChanged();
     }
-
-    notifyDataSetChanged();
   }
 
   /**
@@ -208,6 +192,23 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
             holder.imageScreenshot);
   }
 
+  /**
+   * Shows the details of the game that was long-pressed. Only the columns shown on the card are
+   * loaded with the grid; the dialog reads the rest of the game's details when it opens.
+   *
+   * @param view The card representing the game the user wants to see details of.
+   */
+  @Override
+  public boolean onLongClick(View view)
+  {
+    GameViewHolder holder = (GameViewHolder) view.getTag();
+    FragmentActivity activity = (FragmentActivity) view.getContext();
+
+    GameDetailsDialog.newInstance(holder.path)
+            .show(activity.getSupportFragmentManager(), "game_details");
+    return true;
+  }
+
   public static class SpacesItemDecoration extends RecyclerView.ItemDecoration
   {
     private int space;
@@ -227,25 +228,4 @@ public final class GameAdapter extends RecyclerView.Adapter<GameViewHolder> impl
       outRect.top = space;
     }
   }
-
-  private final class GameDataSetObserver extends DataSetObserver
-  {
-    @Override
-    public void onChanged()
-    {
-      super.onChanged();
-
-      mDatasetValid = true;
-      notifyDataSetChanged();
-    }
-
-    @Override
-    public void onInvalidated()
-    {
-      super.onInvalidated();
-
-      mDatasetValid = false;
-      notifyDataSetChanged();
-    }
-  }
 }
@@ -0,0 +1,118 @@
+package org.citra.citra_android.adapters;
+
+import android.support.v7.util.DiffUtil;
+
+import org.citra.citra_android.model.Game;
+import org.citra.citra_android.model.LibrarySnapshot;
+import org.citra.citra_android.ui.platform.Platform;
+
+import java.util.List;
+
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Works out how a list of games changed between two library snapshots, so that lists can be
+ * updated with granular insert, remove, move and change notifications instead of rebinding every
+ * row. Games are matched by their row ID, and a matched game counts as changed if it isn't
+ * equal to the one shown. Used by both the grid's {@link GameAdapter} and the TV rows'
+ * {@link GameObjectAdapter}.
+ */
+public final class GameListDiff
+{
+  /**
+   * A new game list, along with how it differs from the list it replaces.
+   */
+  public static final class Result
+  {
+    private final List<Game> mOldGames;
+    private final List<Game> mGames;
+    private final DiffUtil.DiffResult mDiff;
+
+    private Result(List<Game> oldGames, List<Game> games, DiffUtil.DiffResult diff)
+    {
+      mOldGames = oldGames;
+      mGames = games;
+      mDiff = diff;
+    }
+
+    public List<Game> getGames()
+    {
+      return mGames;
+    }
+
+    /**
+     * @param shownGames The games a list currently shows.
+     * @return The changes from those games, or null if this result wasn't diffed against them,
+     * such as when the list was showing another one first.
+     */
+    public DiffUtil.DiffResult getDiffFrom(List<Game> shownGames)
+    {
+      return shownGames != null && shownGames == mOldGames ? mDiff : null;
+    }
+  }
+
+  private GameListDiff()
+  {
+  }
+
+  /**
+   * Diffs a new game list against the list currently shown. Runs DiffUtil, so call this on a
+   * background thread.
+   *
+   * @param oldGames The games currently shown, or null if nothing is shown yet.
+   */
+  public static Result calculate(List<Game> oldGames, List<Game> newGames)
+  {
+    if (oldGames == null)
+    {
+      return new Result(null, newGames, null);
+    }
+
+    DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback()
+    {
+      @Override
+      public int getOldListSize()
+      {
+        return oldGames.size();
+      }
+
+      @Override
+      public int getNewListSize()
+      {
+        return newGames.size();
+      }
+
+      @Override
+      public boolean areItemsTheSame(int oldPosition, int newPosition)
+      {
+        return oldGames.get(oldPosition).getId() == newGames.get(newPosition).getId();
+      }
+
+      @Override
+      public boolean areContentsTheSame(int oldPosition, int newPosition)
+      {
+        return oldGames.get(oldPosition).equals(newGames.get(newPosition));
+      }
+    });
+
+    return new Result(oldGames, newGames, diff);
+  }
+
+  /**
+   * Turns snapshots into one platform's game lists, each diffed against the one before it.
+   * Snapshots that leave the platform's games unchanged are skipped, and diffing happens on a
+   * computation thread.
+   */
+  public static Observable<Result> diffPlatformGames(Observable<LibrarySnapshot> snapshots,
+          Platform platform)
+  {
+    return snapshots
+            .map(snapshot -> snapshot.getGames(platform))
+            .distinctUntilChanged()
+            .observeOn(Schedulers.computation())
+            .scan((Result) null, (previous, games) ->
+                    calculate(previous != null ? previous.getGames() : null, games))
+            .skip(1);
+  }
+}
@@ -0,0 +1,95 @@
+package org.citra.citra_android.adapters;
+
+import android.support.v17.leanback.widget.ObjectAdapter;
+import android.support.v17.leanback.widget.Presenter;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import org.citra.citra_android.model.Game;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A leanback row adapter over a platform's games from a library snapshot that, when given a new
+ * list, notifies its row of only the games that were inserted, removed, moved or changed, rather
+ * than of the whole row changing.
+ */
+public final class GameObjectAdapter extends ObjectAdapter
+{
+  private List<Game> mGames = Collections.emptyList();
+
+  public GameObjectAdapter(Presenter presenter)
+  {
+    super(presenter);
+    setHasStableIds(true);
+  }
+
+  /**
+   * @return The games currently shown.
+   */
+  public List<Game> getGames()
+  {
+    return mGames;
+  }
+
+  /**
+   * Replaces the current list with a new one.
+   */
+  public void setGames(GameListDiff.Result result)
+  {
+    DiffUtil.DiffResult diff = result.getDiffFrom(mGames);
+    mGames = result.getGames();
+
+    if (diff == null)
+    {
+      notifyChanged();
+      return;
+    }
+
+    diff.dispatchUpdatesTo(new ListUpdateCallback()
+    {
+      @Override
+      public void onInserted(int position, int count)
+      {
+        notifyItemRangeInserted(position, count);
+      }
+
+      @Override
+      public void onRemoved(int position, int count)
+      {
+        notifyItemRangeRemoved(position, count);
+      }
+
+      @Override
+      public void onMoved(int fromPosition, int toPosition)
+      {
+        notifyItemMoved(fromPosition, toPosition);
+      }
+
+      @Override
+      public void onChanged(int position, int count, Object payload)
+      {
+        notifyItemRangeChanged(position, count);
+      }
+    });
+  }
+
+  @Override
+  public int size()
+  {
+    return mGames.size();
+  }
+
+  @Override
+  public Object get(int position)
+  {
+    return mGames.get(position);
+  }
+
+  @Override
+  public long getId(int position)
+  {
+    return mGames.get(position).getId();
+  }
+}
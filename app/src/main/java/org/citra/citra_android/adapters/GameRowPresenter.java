@@ -45,7 +45,7 @@ public final class GameRowPresenter extends Presenter
     String screenPath = game.getScreenshotPath();
 
     holder.imageScreenshot.setImageDrawable(null);
-    PicassoUtils.loadGameBanner(holder.imageScreenshot, screenPath, game.getPath());
+    PicassoUtils.loadGameBanner(holder.imageScreenshot, screenPath, game.getBannerFile());
 
     holder.cardParent.setTitleText(game.getTitle());
     holder.cardParent.setContentText(game.getCompany());
@@ -54,8 +54,6 @@ public final class GameRowPresenter extends Presenter
     holder.gameId = game.getGameId();
     holder.path = game.getPath();
     holder.title = game.getTitle();
-    holder.description = game.getDescription();
-    holder.country = game.getCountry();
     holder.company = game.getCompany();
     holder.screenshotPath = game.getScreenshotPath();
 
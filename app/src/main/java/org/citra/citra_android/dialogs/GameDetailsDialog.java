@@ -11,33 +11,33 @@ import android.widget.TextView;
 
 import com.squareup.picasso.Picasso;
 
+import org.citra.citra_android.DolphinApplication;
 import org.citra.citra_android.R;
 import org.citra.citra_android.activities.EmulationActivity;
+import org.citra.citra_android.model.Game;
 
 import de.hdodenhof.circleimageview.CircleImageView;
-
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.schedulers.Schedulers;
+
+/**
+ * Shows the full details of a game. Game lists only load the columns they display, so the dialog
+ * reads the rest of the game's row, such as its description, when it opens.
+ */
 public final class GameDetailsDialog extends DialogFragment
 {
-  private static final String ARG_GAME_TITLE = "game_title";
-  private static final String ARG_GAME_DESCRIPTION = "game_description";
-  private static final String ARG_GAME_COUNTRY = "game_country";
-  private static final String ARG_GAME_DATE = "game_date";
   private static final String ARG_GAME_PATH = "game_path";
-  private static final String ARG_GAME_SCREENSHOT_PATH = "game_screenshot_path";
 
-  // TODO Add all of this to the Loader in GameActivity.java
-  public static GameDetailsDialog newInstance(String title, String description, int country,
-          String company, String path, String screenshotPath)
+  private Game mGame;
+  private Subscription mSubscription;
+
+  public static GameDetailsDialog newInstance(String path)
   {
     GameDetailsDialog fragment = new GameDetailsDialog();
 
     Bundle arguments = new Bundle();
-    arguments.putString(ARG_GAME_TITLE, title);
-    arguments.putString(ARG_GAME_DESCRIPTION, description);
-    arguments.putInt(ARG_GAME_COUNTRY, country);
-    arguments.putString(ARG_GAME_DATE, company);
     arguments.putString(ARG_GAME_PATH, path);
-    arguments.putString(ARG_GAME_SCREENSHOT_PATH, screenshotPath);
     fragment.setArguments(arguments);
 
     return fragment;
@@ -61,37 +61,63 @@ public final class GameDetailsDialog extends DialogFragment
 
     FloatingActionButton buttonLaunch = contents.findViewById(R.id.button_launch);
 
-    int countryIndex = getArguments().getInt(ARG_GAME_COUNTRY);
-    String country = getResources().getStringArray(R.array.countryNames)[countryIndex];
-
-    textTitle.setText(getArguments().getString(ARG_GAME_TITLE));
-    textDescription.setText(getArguments().getString(ARG_GAME_DESCRIPTION));
-    textCountry.setText(country);
-    textDate.setText(getArguments().getString(ARG_GAME_DATE));
-
     buttonLaunch.setOnClickListener(view ->
     {
+      // The game's details haven't been read yet.
+      if (mGame == null)
+      {
+        return;
+      }
+
       // Start the emulation activity and send the path of the clicked ROM to it.
       EmulationActivity.launch(getActivity(),
-              getArguments().getString(ARG_GAME_PATH),
-              getArguments().getString(ARG_GAME_TITLE),
-              getArguments().getString(ARG_GAME_SCREENSHOT_PATH),
+              mGame.getPath(),
+              mGame.getTitle(),
+              mGame.getScreenshotPath(),
               -1,
               imageGameScreen);
     });
 
-    // Fill in the view contents.
-    Picasso.with(imageGameScreen.getContext())
-            .load(getArguments().getString(ARG_GAME_SCREENSHOT_PATH))
-            .fit()
-            .centerCrop()
-            .noFade()
-            .noPlaceholder()
-            .into(imageGameScreen);
-
     circleBanner.setImageResource(R.drawable.no_banner);
 
+    String path = getArguments().getString(ARG_GAME_PATH);
+    mSubscription = DolphinApplication.databaseHelper.getGame(path)
+            .subscribeOn(Schedulers.io())
+            .observeOn(AndroidSchedulers.mainThread())
+            .subscribe(game ->
+            {
+              mGame = game;
+
+              String country =
+                      getResources().getStringArray(R.array.countryNames)[game.getCountry()];
+
+              textTitle.setText(game.getTitle());
+              textDescription.setText(game.getDescription());
+              textCountry.setText(country);
+              textDate.setText(game.getCompany());
+
+              // Fill in the view contents.
+              Picasso.with(imageGameScreen.getContext())
+                      .load(game.getScreenshotPath())
+                      .fit()
+                      .centerCrop()
+                      .noFade()
+                      .noPlaceholder()
+                      .into(imageGameScreen);
+            });
+
     builder.setView(contents);
     return builder.create();
   }
+
+  @Override
+  public void onDestroy()
+  {
+    super.onDestroy();
+
+    if (mSubscription != null)
+    {
+      mSubscription.unsubscribe();
+    }
+  }
 }
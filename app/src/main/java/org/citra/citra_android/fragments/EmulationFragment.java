@@ -21,11 +21,25 @@ import android.widget.Toast;
 import org.citra.citra_android.NativeLibrary;
 import org.citra.citra_android.R;
 import org.citra.citra_android.activities.EmulationActivity;
+import org.citra.citra_android.model.settings.LayeredSettings;
+import org.citra.citra_android.model.settings.SettingChange;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingsSchema;
 import org.citra.citra_android.overlay.InputOverlay;
 import org.citra.citra_android.services.DirectoryInitializationService;
 import org.citra.citra_android.services.DirectoryInitializationService.DirectoryInitializationState;
 import org.citra.citra_android.utils.DirectoryStateReceiver;
 import org.citra.citra_android.utils.Log;
+import org.citra.citra_android.utils.SettingsCache;
+import org.citra.citra_android.utils.SettingsChangeBus;
+import org.citra.citra_android.utils.SettingsFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.schedulers.Schedulers;
 
 public final class EmulationFragment extends Fragment implements SurfaceHolder.Callback
 {
@@ -47,6 +61,30 @@ public final class EmulationFragment extends Fragment implements SurfaceHolder.C
 
   private Runnable perfStatsUpdater;
 
+  private Subscription mSettingsSubscription;
+
+  // The ID whose per-game settings apply to the running game, looked up when first needed. Only
+  // touched on the thread that resolves setting changes.
+  private String mGameId;
+
+  // Set once the core turns out not to have the natives that apply settings while running.
+  private static volatile boolean sLiveSettingsMissing;
+
+  /**
+   * The values in effect for a batch of setting changes that concern the running game.
+   */
+  private static final class ResolvedChanges
+  {
+    final LayeredSettings settings;
+    final List<SettingKey> keys;
+
+    ResolvedChanges(LayeredSettings settings, List<SettingKey> keys)
+    {
+      this.settings = settings;
+      this.keys = keys;
+    }
+  }
+
   public static EmulationFragment newInstance(String gamePath)
   {
 
@@ -89,6 +127,22 @@ public final class EmulationFragment extends Fragment implements SurfaceHolder.C
 
     String gamePath = getArguments().getString(KEY_GAMEPATH);
     mEmulationState = new EmulationState(gamePath);
+
+    // Looking up the game ID parses the ROM, and the settings may have to be read from disk, so
+    // only applying them happens on the main thread.
+    mSettingsSubscription = SettingsChangeBus.getInstance().getChanges()
+            .observeOn(Schedulers.io())
+            .map(this::resolveSettingChanges)
+            .filter(resolved -> resolved != null)
+            .observeOn(AndroidSchedulers.mainThread())
+            .subscribe(this::applySettingChanges);
+  }
+
+  @Override
+  public void onDestroy()
+  {
+    mSettingsSubscription.unsubscribe();
+    super.onDestroy();
   }
 
   /**
@@ -302,6 +356,104 @@ public final class EmulationFragment extends Fragment implements SurfaceHolder.C
     mEmulationState.clearSurface();
   }
 
+  /**
+   * Finds the changes that concern the running game, and the values now in effect for them. The
+   * values come from the cached settings layers rather than from the changes themselves, so a
+   * global change that this game overrides still resolves to the game's own value.
+   *
+   * @return The resolved changes, or null if there is nothing to apply.
+   */
+  private ResolvedChanges resolveSettingChanges(List<SettingChange> changes)
+  {
+    if (sLiveSettingsMissing || mEmulationState.isStopped())
+    {
+      return null;
+    }
+
+    if (mGameId == null)
+    {
+      mGameId = NativeLibrary.GetGameId(getArguments().getString(KEY_GAMEPATH));
+    }
+
+    String gameFileName = SettingsFile.getGameSettingsFileName(mGameId);
+    List<SettingKey> keys = new ArrayList<>();
+
+    for (SettingChange change : changes)
+    {
+      // Changes to the settings of other games don't concern this one.
+      if (change.getFileName().equals(SettingsFile.FILE_NAME_CONFIG) ||
+              change.getFileName().equals(gameFileName))
+      {
+        keys.add(change.getKey());
+      }
+    }
+
+    if (keys.isEmpty())
+    {
+      return null;
+    }
+
+    return new ResolvedChanges(SettingsCache.getInstance().getSettings(mGameId), keys);
+  }
+
+  /**
+   * Applies the settings that the core can change while running, so edits made during emulation
+   * take effect without restarting it.
+   */
+  private void applySettingChanges(ResolvedChanges resolved)
+  {
+    if (mEmulationState.isStopped())
+    {
+      return;
+    }
+
+    LayeredSettings settings = resolved.settings;
+    boolean frameLimitChanged = false;
+    boolean layoutChanged = false;
+
+    try
+    {
+      for (SettingKey key : resolved.keys)
+      {
+        if (key == SettingsSchema.FRAME_LIMIT || key == SettingsSchema.FRAME_LIMIT_ENABLED)
+        {
+          frameLimitChanged = true;
+        }
+        else if (key == SettingsSchema.LAYOUT_OPTION || key == SettingsSchema.SWAP_SCREEN)
+        {
+          layoutChanged = true;
+        }
+        else if (key == SettingsSchema.VOLUME)
+        {
+          NativeLibrary.SetVolume(settings.getFloat(key));
+        }
+        else if (key == SettingsSchema.RESOLUTION_FACTOR)
+        {
+          NativeLibrary.SetResolutionFactor(settings.getInt(key));
+        }
+      }
+
+      if (frameLimitChanged)
+      {
+        NativeLibrary.SetFrameLimit(settings.getInt(SettingsSchema.FRAME_LIMIT_ENABLED) != 0,
+                settings.getInt(SettingsSchema.FRAME_LIMIT));
+      }
+
+      if (layoutChanged)
+      {
+        NativeLibrary.SetLayoutOption(settings.getInt(SettingsSchema.LAYOUT_OPTION),
+                settings.getInt(SettingsSchema.SWAP_SCREEN) != 0);
+      }
+    }
+    catch (UnsatisfiedLinkError e)
+    {
+      // An older core still reads the saved settings the next time a game starts.
+      Log.warning("[EmulationFragment] Core can't apply settings while running: " +
+              e.getMessage());
+      sLiveSettingsMissing = true;
+    }
+  }
+
   public void stopEmulation()
   {
     mEmulationState.stop();
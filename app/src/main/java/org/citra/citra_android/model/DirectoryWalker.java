@@ -0,0 +1,345 @@
+package org.citra.citra_android.model;
+
+import android.annotation.TargetApi;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.citra.citra_android.utils.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursively walks library folders, remembering the last-modified time of every directory it
+ * lists in the directories table. A directory whose time is unchanged since the previous walk
+ * has had no entries added, removed or renamed, so its files are not listed again; only its known
+ * subdirectories are revisited. Rewriting a file in place doesn't touch its directory's time
+ * though, so the games already in the games table under such a directory are still stat'ed one
+ * by one and passed to the visitor, which tells from their size and time whether they changed.
+ */
+public final class DirectoryWalker
+{
+  /**
+   * Receives the files found in directories that changed since the previous walk, and the known
+   * games in directories that didn't.
+   */
+  public interface FileVisitor
+  {
+    void onFile(File file, long size, long lastModified);
+  }
+
+  // Guards against symlink loops on platforms where they can't be detected.
+  private static final int MAX_DEPTH = 16;
+
+  private final SQLiteDatabase mDatabase;
+
+  private final Map<String, Long> mKnownTimes = new HashMap<>();
+  private final Map<String, String> mKnownParents = new HashMap<>();
+  private final Map<String, List<String>> mKnownChildren = new HashMap<>();
+  private final Map<String, List<String>> mKnownGames = new HashMap<>();
+
+  private final Map<String, ContentValues> mVisited = new HashMap<>();
+
+  public DirectoryWalker(SQLiteDatabase database)
+  {
+    mDatabase = database;
+    readIndex();
+  }
+
+  /**
+   * @param root    A library folder.
+   * @param visitor Called for each non-hidden file in every directory that changed, and for
+   *                each known game that still exists in every directory that didn't.
+   * @return false if the root doesn't exist or couldn't be listed.
+   */
+  public boolean walk(File root, FileVisitor visitor)
+  {
+    if (!root.isDirectory())
+    {
+      return false;
+    }
+
+    walk(root.getPath(), null, root.lastModified(), visitor, 0);
+    return true;
+  }
+
+  /**
+   * Carries the stored index entries under a root that can't be walked right now, such as a
+   * folder on unmounted storage, over to the next {@link #saveIndex()}.
+   */
+  public void retain(File root)
+  {
+    String rootPath = root.getPath();
+
+    for (Map.Entry<String, Long> entry : mKnownTimes.entrySet())
+    {
+      String path = entry.getKey();
+      if (path.equals(rootPath) || path.startsWith(rootPath + "/"))
+      {
+        ContentValues directory = new ContentValues();
+        directory.put(GameDatabase.KEY_DIRECTORY_PATH, path);
+        directory.put(GameDatabase.KEY_DIRECTORY_PARENT, mKnownParents.get(path));
+        directory.put(GameDatabase.KEY_DIRECTORY_LAST_MODIFIED, entry.getValue());
+        mVisited.put(path, directory);
+      }
+    }
+  }
+
+  /**
+   * Makes the next walk list a directory visited by this walker again, even if it doesn't change
+   * in the meantime. Used for directories holding files that couldn't be read.
+   */
+  public void forget(File directory)
+  {
+    if (mVisited.containsKey(directory.getPath()))
+    {
+      forget(directory.getPath());
+    }
+  }
+
+  /**
+   * Replaces the stored index with the directories seen by this walker. Directories under roots
+   * that were neither walked nor retained are dropped, so only call this once every library folder
+   * has been handled.
+   */
+  public void saveIndex()
+  {
+    mDatabase.beginTransaction();
+    try
+    {
+      mDatabase.delete(GameDatabase.TABLE_NAME_DIRECTORIES, null, null);
+
+      for (ContentValues directory : mVisited.values())
+      {
+        mDatabase.insert(GameDatabase.TABLE_NAME_DIRECTORIES, null, directory);
+      }
+
+      mDatabase.setTransactionSuccessful();
+    }
+    finally
+    {
+      mDatabase.endTransaction();
+    }
+  }
+
+  private void walk(String path, String parent, long lastModified, FileVisitor visitor,
+          int depth)
+  {
+    if (depth > MAX_DEPTH || mVisited.containsKey(path))
+    {
+      return;
+    }
+
+    ContentValues directory = new ContentValues();
+    directory.put(GameDatabase.KEY_DIRECTORY_PATH, path);
+    directory.put(GameDatabase.KEY_DIRECTORY_PARENT, parent);
+    directory.put(GameDatabase.KEY_DIRECTORY_LAST_MODIFIED, lastModified);
+    mVisited.put(path, directory);
+
+    Long knownTime = mKnownTimes.get(path);
+    if (knownTime != null && knownTime == lastModified)
+    {
+      visitKnownGames(path, visitor);
+
+      List<String> children = mKnownChildren.get(path);
+      if (children != null)
+      {
+        for (String child : children)
+        {
+          File childDirectory = new File(child);
+          if (childDirectory.isDirectory())
+          {
+            walk(child, path, childDirectory.lastModified(), visitor, depth + 1);
+          }
+        }
+      }
+      return;
+    }
+
+    Log.verbose("[DirectoryWalker] Listing changed directory: " + path);
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+    {
+      listWithDirectoryStream(path, visitor, depth);
+    }
+    else
+    {
+      listWithFile(path, visitor, depth);
+    }
+  }
+
+  /**
+   * Stats the known games of an unchanged directory without listing it, so that games rewritten
+   * in place are still found.
+   */
+  private void visitKnownGames(String path, FileVisitor visitor)
+  {
+    List<String> games = mKnownGames.get(path);
+    if (games == null)
+    {
+      return;
+    }
+
+    for (String game : games)
+    {
+      File file = new File(game);
+      long lastModified = file.lastModified();
+
+      // Games that are gone are left to the pruner.
+      if (lastModified != 0 && file.isFile())
+      {
+        visitor.onFile(file, file.length(), lastModified);
+      }
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  private void listWithDirectoryStream(String path, FileVisitor visitor, int depth)
+  {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(new File(path).toPath()))
+    {
+      for (Path child : stream)
+      {
+        if (child.getFileName().toString().startsWith("."))
+        {
+          continue;
+        }
+
+        // One stat per entry, without following symlinks so that loops can't occur.
+        BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+
+        if (attributes.isDirectory())
+        {
+          walk(child.toString(), path, attributes.lastModifiedTime().toMillis(), visitor,
+                  depth + 1);
+        }
+        else if (attributes.isRegularFile())
+        {
+          visitor.onFile(child.toFile(), attributes.size(),
+                  attributes.lastModifiedTime().toMillis());
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      Log.error("[DirectoryWalker] Couldn't list directory " + path + ": " + e.getMessage());
+      forget(path);
+    }
+  }
+
+  private void listWithFile(String path, FileVisitor visitor, int depth)
+  {
+    // Only the names are materialized, rather than a File for every entry.
+    String[] names = new File(path).list();
+
+    if (names == null)
+    {
+      Log.error("[DirectoryWalker] Couldn't list directory: " + path);
+      forget(path);
+      return;
+    }
+
+    for (String name : names)
+    {
+      if (name.startsWith("."))
+      {
+        continue;
+      }
+
+      File child = new File(path, name);
+      if (child.isDirectory())
+      {
+        walk(child.getPath(), path, child.lastModified(), visitor, depth + 1);
+      }
+      else
+      {
+        visitor.onFile(child, child.length(), child.lastModified());
+      }
+    }
+  }
+
+  /**
+   * Makes sure a directory that couldn't be listed is listed again by the next walk.
+   */
+  private void forget(String path)
+  {
+    mVisited.get(path).putNull(GameDatabase.KEY_DIRECTORY_LAST_MODIFIED);
+  }
+
+  private void readIndex()
+  {
+    Cursor cursor = mDatabase.query(GameDatabase.TABLE_NAME_DIRECTORIES,
+            null,    // Get all columns.
+            null,    // Get all rows.
+            null,
+            null,    // No grouping.
+            null,
+            null);    // Order of directories is irrelevant.
+
+    while (cursor.moveToNext())
+    {
+      String path = cursor.getString(GameDatabase.DIRECTORY_COLUMN_PATH);
+      String parent = cursor.getString(GameDatabase.DIRECTORY_COLUMN_PARENT);
+
+      if (!cursor.isNull(GameDatabase.DIRECTORY_COLUMN_LAST_MODIFIED))
+      {
+        mKnownTimes.put(path, cursor.getLong(GameDatabase.DIRECTORY_COLUMN_LAST_MODIFIED));
+      }
+
+      if (parent != null)
+      {
+        mKnownParents.put(path, parent);
+
+        List<String> siblings = mKnownChildren.get(parent);
+        if (siblings == null)
+        {
+          siblings = new ArrayList<>();
+          mKnownChildren.put(parent, siblings);
+        }
+        siblings.add(path);
+      }
+    }
+
+    cursor.close();
+
+    Cursor games = mDatabase.query(GameDatabase.TABLE_NAME_GAMES,
+            new String[]{GameDatabase.KEY_GAME_PATH},
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    while (games.moveToNext())
+    {
+      String path = games.getString(0);
+      String parent = new File(path).getParent();
+      if (parent == null)
+      {
+        continue;
+      }
+
+      List<String> siblings = mKnownGames.get(parent);
+      if (siblings == null)
+      {
+        siblings = new ArrayList<>();
+        mKnownGames.put(parent, siblings);
+      }
+      siblings.add(path);
+    }
+
+    games.close();
+  }
+}
@@ -0,0 +1,50 @@
+package org.citra.citra_android.model;
+
+import org.citra.citra_android.utils.Log;
+
+/**
+ * Reads metadata with a batched call, and falls back to reading one file at a time for good once
+ * the batched call turns out not to exist, as with a core built before it was added.
+ */
+abstract class FallbackGameMetadataReader implements GameMetadataReader
+{
+  // Set once the batched call turned out to be missing, so it isn't tried again.
+  private volatile boolean mBatchMissing;
+
+  @Override
+  public final GameMetadata[] read(String[] paths)
+  {
+    if (!mBatchMissing)
+    {
+      try
+      {
+        return readBatch(paths);
+      }
+      catch (UnsatisfiedLinkError e)
+      {
+        Log.warning("[GameMetadataReader] Batched metadata reads are not available, " +
+                "reading metadata one file at a time.");
+        mBatchMissing = true;
+      }
+    }
+
+    GameMetadata[] metadata = new GameMetadata[paths.length];
+    for (int i = 0; i < paths.length; i++)
+    {
+      metadata[i] = readFile(paths[i]);
+    }
+    return metadata;
+  }
+
+  /**
+   * Like {@link #read(String[])}.
+   *
+   * @throws UnsatisfiedLinkError If the batched call isn't available.
+   */
+  protected abstract GameMetadata[] readBatch(String[] paths);
+
+  /**
+   * @return The metadata of a single file, or null if it could not be read.
+   */
+  protected abstract GameMetadata readFile(String path);
+}
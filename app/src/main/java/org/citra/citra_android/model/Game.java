@@ -3,8 +3,13 @@ package org.citra.citra_android.model;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.os.Environment;
+import android.text.TextUtils;
 
 import org.citra.citra_android.ui.platform.Platform;
+import org.citra.citra_android.utils.BannerCache;
+
+import java.io.File;
+import java.util.Arrays;
 
 public final class Game
 {
@@ -28,19 +33,28 @@ public final class Game
           "file://" + Environment.getExternalStorageDirectory().getPath() +
                   "/dolphin-emu/ScreenShots/";
 
-  private String mTitle;
-  private String mDescription;
-  private String mPath;
-  private String mGameId;
-  private String mScreenshotPath;
-  private String mCompany;
+  private final long mId;
+
+  private final String mTitle;
+  private final String mDescription;
+  private final String mPath;
+  private final String mGameId;
+  private final String mScreenshotPath;
+  private final String mCompany;
+  private final String mFingerprint;
 
-  private Platform mPlatform;
-  private int mCountry;
+  private final Platform mPlatform;
+  private final int mCountry;
+  private final long mLastModified;
 
-  public Game(Platform platform, String title, String description, int country, String path,
-          String gameId, String company, String screenshotPath)
+  // Built on first use; the list binds the same Game over and over while scrolling.
+  private BannerCache.GameFile mBannerFile;
+
+  public Game(long id, Platform platform, String title, String description, int country,
+          String path, String gameId, String company, String screenshotPath, long lastModified,
+          String fingerprint)
   {
+    mId = id;
     mPlatform = platform;
     mTitle = title;
     mDescription = description;
@@ -49,6 +63,16 @@ public final class Game
     mGameId = gameId;
     mCompany = company;
     mScreenshotPath = screenshotPath;
+    mLastModified = lastModified;
+    mFingerprint = fingerprint;
+  }
+
+  /**
+   * @return The game's row ID, which stays the same when the rest of the game changes.
+   */
+  public long getId()
+  {
+    return mId;
   }
 
   public Platform getPlatform()
@@ -91,34 +115,137 @@ public final class Game
     return mScreenshotPath;
   }
 
-  public static ContentValues asContentValues(Platform platform, String title, String description,
-          int country, String path, String gameId, String company)
+  public long getLastModified()
+  {
+    return mLastModified;
+  }
+
+  /**
+   * @return A fingerprint of the game file's contents, or null if it hasn't been computed yet.
+   */
+  public String getFingerprint()
+  {
+    return mFingerprint;
+  }
+
+  /**
+   * @return What the banner cache knows this version of the game file by.
+   */
+  public BannerCache.GameFile getBannerFile()
+  {
+    if (mBannerFile == null)
+    {
+      mBannerFile = new BannerCache.GameFile(mPath, mFingerprint, mLastModified);
+    }
+    return mBannerFile;
+  }
+
+  @Override
+  public boolean equals(Object other)
+  {
+    if (this == other)
+    {
+      return true;
+    }
+
+    if (!(other instanceof Game))
+    {
+      return false;
+    }
+
+    Game game = (Game) other;
+    return mId == game.mId &&
+            mCountry == game.mCountry &&
+            mLastModified == game.mLastModified &&
+            mPlatform == game.mPlatform &&
+            TextUtils.equals(mTitle, game.mTitle) &&
+            TextUtils.equals(mDescription, game.mDescription) &&
+            TextUtils.equals(mPath, game.mPath) &&
+            TextUtils.equals(mGameId, game.mGameId) &&
+            TextUtils.equals(mScreenshotPath, game.mScreenshotPath) &&
+            TextUtils.equals(mCompany, game.mCompany) &&
+            TextUtils.equals(mFingerprint, game.mFingerprint);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Arrays.hashCode(new Object[]{mId, mPlatform, mTitle, mDescription, mCountry, mPath,
+            mGameId, mCompany, mScreenshotPath, mLastModified, mFingerprint});
+  }
+
+  public static ContentValues asContentValues(File file, GameMetadata metadata,
+          String fingerprint)
   {
     ContentValues values = new ContentValues();
 
+    String fileName = file.getName();
+
+    // If the game's title field is empty, use the filename.
+    String title = metadata.getTitle();
+    if (title.isEmpty())
+    {
+      title = fileName;
+    }
+
+    // If the game's ID field is empty, use the filename without extension.
+    String gameId = metadata.getGameId();
+    if (gameId.isEmpty())
+    {
+      int extensionStart = fileName.lastIndexOf('.');
+      gameId = extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+    }
+
     String screenPath = PATH_SCREENSHOT_FOLDER + gameId + "/" + gameId + "-1.png";
+    Platform platform = Platform.fromNativeInt(metadata.getPlatform());
 
     values.put(GameDatabase.KEY_GAME_PLATFORM, platform.toInt());
     values.put(GameDatabase.KEY_GAME_TITLE, title);
-    values.put(GameDatabase.KEY_GAME_DESCRIPTION, description);
-    values.put(GameDatabase.KEY_GAME_COUNTRY, company);
-    values.put(GameDatabase.KEY_GAME_PATH, path);
+    values.put(GameDatabase.KEY_GAME_DESCRIPTION, metadata.getDescription().replace("\n", " "));
+    values.put(GameDatabase.KEY_GAME_COUNTRY, metadata.getCountry());
+    values.put(GameDatabase.KEY_GAME_PATH, file.getPath());
     values.put(GameDatabase.KEY_GAME_ID, gameId);
-    values.put(GameDatabase.KEY_GAME_COMPANY, company);
+    values.put(GameDatabase.KEY_GAME_COMPANY, metadata.getCompany());
     values.put(GameDatabase.KEY_GAME_SCREENSHOT_PATH, screenPath);
+    // Stamp the row with what the filesystem reports, so the next scan can tell if it changed.
+    values.put(GameDatabase.KEY_GAME_FILE_SIZE, file.length());
+    values.put(GameDatabase.KEY_GAME_LAST_MODIFIED, file.lastModified());
+    values.put(GameDatabase.KEY_GAME_FINGERPRINT, fingerprint);
 
     return values;
   }
 
+  /**
+   * Builds a Game from a cursor queried with {@link GameDatabase#PROJECTION_GAME_LIST}. Its
+   * description and country are not available, and have to be read separately if needed.
+   */
+  public static Game fromListCursor(Cursor cursor)
+  {
+    return new Game(cursor.getLong(GameDatabase.COLUMN_DB_ID),
+            Platform.fromInt(cursor.getInt(GameDatabase.LIST_COLUMN_PLATFORM)),
+            cursor.getString(GameDatabase.LIST_COLUMN_TITLE),
+            null,
+            COUNTRY_UNKNOWN,
+            cursor.getString(GameDatabase.LIST_COLUMN_PATH),
+            cursor.getString(GameDatabase.LIST_COLUMN_GAME_ID),
+            cursor.getString(GameDatabase.LIST_COLUMN_COMPANY),
+            cursor.getString(GameDatabase.LIST_COLUMN_SCREENSHOT_PATH),
+            cursor.getLong(GameDatabase.LIST_COLUMN_LAST_MODIFIED),
+            cursor.getString(GameDatabase.LIST_COLUMN_FINGERPRINT));
+  }
+
   public static Game fromCursor(Cursor cursor)
   {
-    return new Game(Platform.fromInt(cursor.getInt(GameDatabase.GAME_COLUMN_PLATFORM)),
+    return new Game(cursor.getLong(GameDatabase.COLUMN_DB_ID),
+            Platform.fromInt(cursor.getInt(GameDatabase.GAME_COLUMN_PLATFORM)),
             cursor.getString(GameDatabase.GAME_COLUMN_TITLE),
             cursor.getString(GameDatabase.GAME_COLUMN_DESCRIPTION),
             cursor.getInt(GameDatabase.GAME_COLUMN_COUNTRY),
             cursor.getString(GameDatabase.GAME_COLUMN_PATH),
             cursor.getString(GameDatabase.GAME_COLUMN_GAME_ID),
             cursor.getString(GameDatabase.GAME_COLUMN_COMPANY),
-            cursor.getString(GameDatabase.GAME_COLUMN_SCREENSHOT_PATH));
+            cursor.getString(GameDatabase.GAME_COLUMN_SCREENSHOT_PATH),
+            cursor.getLong(GameDatabase.GAME_COLUMN_LAST_MODIFIED),
+            cursor.getString(GameDatabase.GAME_COLUMN_FINGERPRINT));
   }
 }
@@ -1,20 +1,14 @@
 package org.citra.citra_android.model;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
-import org.citra.citra_android.NativeLibrary;
-import org.citra.citra_android.ui.platform.Platform;
+import org.citra.citra_android.utils.BannerCache;
 import org.citra.citra_android.utils.Log;
 
-import java.io.File;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 import rx.Observable;
 
 /**
@@ -23,7 +17,7 @@ import rx.Observable;
  */
 public final class GameDatabase extends SQLiteOpenHelper
 {
-  private static final int DB_VERSION = 1;
+  private static final int DB_VERSION = 7;
 
   public static final int COLUMN_DB_ID = 0;
 
@@ -35,9 +29,26 @@ public final class GameDatabase extends SQLiteOpenHelper
   public static final int GAME_COLUMN_GAME_ID = 6;
   public static final int GAME_COLUMN_COMPANY = 7;
   public static final int GAME_COLUMN_SCREENSHOT_PATH = 8;
+  public static final int GAME_COLUMN_FILE_SIZE = 9;
+  public static final int GAME_COLUMN_LAST_MODIFIED = 10;
+  public static final int GAME_COLUMN_FINGERPRINT = 11;
+
+  // Column indices for cursors queried with PROJECTION_GAME_LIST.
+  public static final int LIST_COLUMN_PATH = 1;
+  public static final int LIST_COLUMN_PLATFORM = 2;
+  public static final int LIST_COLUMN_TITLE = 3;
+  public static final int LIST_COLUMN_GAME_ID = 4;
+  public static final int LIST_COLUMN_COMPANY = 5;
+  public static final int LIST_COLUMN_SCREENSHOT_PATH = 6;
+  public static final int LIST_COLUMN_LAST_MODIFIED = 7;
+  public static final int LIST_COLUMN_FINGERPRINT = 8;
 
   public static final int FOLDER_COLUMN_PATH = 1;
 
+  public static final int DIRECTORY_COLUMN_PATH = 1;
+  public static final int DIRECTORY_COLUMN_PARENT = 2;
+  public static final int DIRECTORY_COLUMN_LAST_MODIFIED = 3;
+
   public static final String KEY_DB_ID = "_id";
 
   public static final String KEY_GAME_PATH = "path";
@@ -48,11 +59,34 @@ public final class GameDatabase extends SQLiteOpenHelper
   public static final String KEY_GAME_ID = "game_id";
   public static final String KEY_GAME_COMPANY = "company";
   public static final String KEY_GAME_SCREENSHOT_PATH = "screenshot_path";
+  public static final String KEY_GAME_FILE_SIZE = "file_size";
+  public static final String KEY_GAME_LAST_MODIFIED = "last_modified";
+  public static final String KEY_GAME_FINGERPRINT = "fingerprint";
 
   public static final String KEY_FOLDER_PATH = "path";
 
+  public static final String KEY_DIRECTORY_PATH = "path";
+  public static final String KEY_DIRECTORY_PARENT = "parent";
+  public static final String KEY_DIRECTORY_LAST_MODIFIED = "last_modified";
+
   public static final String TABLE_NAME_FOLDERS = "folders";
   public static final String TABLE_NAME_GAMES = "games";
+  public static final String TABLE_NAME_DIRECTORIES = "directories";
+  public static final String TABLE_NAME_GAMES_SEARCH = "games_search";
+
+  /**
+   * Only the columns needed to show a game in a list or grid; notably not its description.
+   */
+  public static final String[] PROJECTION_GAME_LIST = {
+          KEY_DB_ID,
+          KEY_GAME_PATH,
+          KEY_GAME_PLATFORM,
+          KEY_GAME_TITLE,
+          KEY_GAME_ID,
+          KEY_GAME_COMPANY,
+          KEY_GAME_SCREENSHOT_PATH,
+          KEY_GAME_LAST_MODIFIED,
+          KEY_GAME_FINGERPRINT};
 
   private static final String TYPE_PRIMARY = " INTEGER PRIMARY KEY";
   private static final String TYPE_INTEGER = " INTEGER";
@@ -71,19 +105,103 @@ public final class GameDatabase extends SQLiteOpenHelper
           + KEY_GAME_COUNTRY + TYPE_INTEGER + SEPARATOR
           + KEY_GAME_ID + TYPE_STRING + SEPARATOR
           + KEY_GAME_COMPANY + TYPE_STRING + SEPARATOR
-          + KEY_GAME_SCREENSHOT_PATH + TYPE_STRING + ")";
+          + KEY_GAME_SCREENSHOT_PATH + TYPE_STRING + SEPARATOR
+          + KEY_GAME_FILE_SIZE + TYPE_INTEGER + SEPARATOR
+          + KEY_GAME_LAST_MODIFIED + TYPE_INTEGER + SEPARATOR
+          + KEY_GAME_FINGERPRINT + TYPE_STRING + ")";
 
   private static final String SQL_CREATE_FOLDERS = "CREATE TABLE " + TABLE_NAME_FOLDERS + "("
           + KEY_DB_ID + TYPE_PRIMARY + SEPARATOR
           + KEY_FOLDER_PATH + TYPE_STRING + CONSTRAINT_UNIQUE + ")";
 
+  private static final String SQL_CREATE_DIRECTORIES = "CREATE TABLE " + TABLE_NAME_DIRECTORIES
+          + "("
+          + KEY_DB_ID + TYPE_PRIMARY + SEPARATOR
+          + KEY_DIRECTORY_PATH + TYPE_STRING + CONSTRAINT_UNIQUE + SEPARATOR
+          + KEY_DIRECTORY_PARENT + TYPE_STRING + SEPARATOR
+          + KEY_DIRECTORY_LAST_MODIFIED + TYPE_INTEGER + ")";
+
+  private static final String SQL_CREATE_INDEX_GAME_PATH =
+          "CREATE UNIQUE INDEX IF NOT EXISTS index_games_path ON " + TABLE_NAME_GAMES + "("
+                  + KEY_GAME_PATH + ")";
+
+  // Copies of the same title are separate rows that share a game ID.
+  private static final String SQL_CREATE_INDEX_GAME_ID =
+          "CREATE INDEX IF NOT EXISTS index_games_game_id ON " + TABLE_NAME_GAMES + "("
+                  + KEY_GAME_ID + ")";
+
+  private static final String SQL_CREATE_INDEX_GAME_FINGERPRINT =
+          "CREATE INDEX IF NOT EXISTS index_games_fingerprint ON " + TABLE_NAME_GAMES + "("
+                  + KEY_GAME_FINGERPRINT + ")";
+
+  // Covers the platform and title ordering the game list is read in.
+  private static final String SQL_CREATE_INDEX_GAME_PLATFORM_TITLE =
+          "CREATE INDEX IF NOT EXISTS index_games_platform_title ON " + TABLE_NAME_GAMES + "("
+                  + KEY_GAME_PLATFORM + SEPARATOR + KEY_GAME_TITLE + SEPARATOR + KEY_DB_ID + ")";
+
+  // An external content table: it only stores the index, and reads the text back from the games
+  // table. The prefix indexes make the short prefix queries typed into a search box cheap.
+  private static final String SQL_CREATE_GAMES_SEARCH = "CREATE VIRTUAL TABLE "
+          + TABLE_NAME_GAMES_SEARCH + " USING fts4(content=\"" + TABLE_NAME_GAMES + "\", "
+          + KEY_GAME_TITLE + SEPARATOR
+          + KEY_GAME_COMPANY + SEPARATOR
+          + KEY_GAME_DESCRIPTION + SEPARATOR
+          + KEY_GAME_ID + SEPARATOR
+          + "prefix=\"1,2,3\")";
+
+  private static final String SEARCH_COLUMNS = KEY_GAME_TITLE + SEPARATOR + KEY_GAME_COMPANY
+          + SEPARATOR + KEY_GAME_DESCRIPTION + SEPARATOR + KEY_GAME_ID;
+
+  // Old index entries have to be removed before the row they were built from changes, as the
+  // search table reads their text back from the games table.
+  private static final String[] SQL_CREATE_GAMES_SEARCH_TRIGGERS = {
+          "CREATE TRIGGER games_search_before_update BEFORE UPDATE ON " + TABLE_NAME_GAMES
+                  + " BEGIN " + searchDelete() + " END",
+          "CREATE TRIGGER games_search_before_delete BEFORE DELETE ON " + TABLE_NAME_GAMES
+                  + " BEGIN " + searchDelete() + " END",
+          "CREATE TRIGGER games_search_after_update AFTER UPDATE ON " + TABLE_NAME_GAMES
+                  + " BEGIN " + searchInsert() + " END",
+          "CREATE TRIGGER games_search_after_insert AFTER INSERT ON " + TABLE_NAME_GAMES
+                  + " BEGIN " + searchInsert() + " END"};
+
+  private static final String SQL_REBUILD_GAMES_SEARCH = "INSERT INTO " + TABLE_NAME_GAMES_SEARCH
+          + "(" + TABLE_NAME_GAMES_SEARCH + ") VALUES('rebuild')";
+
   private static final String SQL_DELETE_FOLDERS = "DROP TABLE IF EXISTS " + TABLE_NAME_FOLDERS;
   private static final String SQL_DELETE_GAMES = "DROP TABLE IF EXISTS " + TABLE_NAME_GAMES;
+  private static final String SQL_DELETE_DIRECTORIES =
+          "DROP TABLE IF EXISTS " + TABLE_NAME_DIRECTORIES;
+  private static final String SQL_DELETE_GAMES_SEARCH =
+          "DROP TABLE IF EXISTS " + TABLE_NAME_GAMES_SEARCH;
+
+  private static String searchDelete()
+  {
+    return "DELETE FROM " + TABLE_NAME_GAMES_SEARCH + " WHERE docid = old." + KEY_DB_ID + ";";
+  }
+
+  private static String searchInsert()
+  {
+    return "INSERT INTO " + TABLE_NAME_GAMES_SEARCH + "(docid, " + SEARCH_COLUMNS + ") VALUES("
+            + "new." + KEY_DB_ID + ", new." + KEY_GAME_TITLE + ", new." + KEY_GAME_COMPANY
+            + ", new." + KEY_GAME_DESCRIPTION + ", new." + KEY_GAME_ID + ");";
+  }
+
+  private final Context mContext;
 
   public GameDatabase(Context context)
   {
     // Superclass constructor builds a database or uses an existing one.
     super(context, "games.db", null, DB_VERSION);
+
+    mContext = context.getApplicationContext();
+  }
+
+  @Override
+  public void onConfigure(SQLiteDatabase database)
+  {
+    // Rows replaced by an OR REPLACE conflict only leave the search index through its delete
+    // trigger when triggers may fire recursively.
+    database.execSQL("PRAGMA recursive_triggers = ON");
   }
 
   @Override
@@ -92,7 +210,13 @@ public final class GameDatabase extends SQLiteOpenHelper
     Log.debug("[GameDatabase] GameDatabase - Creating database...");
 
     execSqlAndLog(database, SQL_CREATE_GAMES);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PATH);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_ID);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_FINGERPRINT);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PLATFORM_TITLE);
+    createGamesSearch(database);
     execSqlAndLog(database, SQL_CREATE_FOLDERS);
+    execSqlAndLog(database, SQL_CREATE_DIRECTORIES);
   }
 
   @Override
@@ -104,6 +228,17 @@ public final class GameDatabase extends SQLiteOpenHelper
 
     execSqlAndLog(database, SQL_DELETE_GAMES);
     execSqlAndLog(database, SQL_CREATE_GAMES);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PATH);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_ID);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_FINGERPRINT);
+    execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PLATFORM_TITLE);
+
+    // Dropping the games table took its triggers with it.
+    execSqlAndLog(database, SQL_DELETE_GAMES_SEARCH);
+    createGamesSearch(database);
+
+    execSqlAndLog(database, SQL_DELETE_DIRECTORIES);
+    execSqlAndLog(database, SQL_CREATE_DIRECTORIES);
   }
 
   @Override
@@ -112,185 +247,215 @@ public final class GameDatabase extends SQLiteOpenHelper
     Log.info("[GameDatabase] Upgrading database from schema version " + oldVersion + " to " +
             newVersion);
 
-    // Delete all the games
-    execSqlAndLog(database, SQL_DELETE_GAMES);
-    execSqlAndLog(database, SQL_CREATE_GAMES);
+    // Each step migrates the existing rows in place; the next library scan fills in anything new.
+    if (oldVersion < 2)
+    {
+      // Rows without stamps are treated as modified and get refreshed by the next scan.
+      execSqlAndLog(database, "ALTER TABLE " + TABLE_NAME_GAMES + " ADD COLUMN "
+              + KEY_GAME_FILE_SIZE + TYPE_INTEGER);
+      execSqlAndLog(database, "ALTER TABLE " + TABLE_NAME_GAMES + " ADD COLUMN "
+              + KEY_GAME_LAST_MODIFIED + TYPE_INTEGER);
+    }
 
-    Log.verbose("[GameDatabase] Re-scanning library with new schema.");
-    scanLibrary(database);
-  }
+    if (oldVersion < 3)
+    {
+      // Older schemas allowed duplicate paths; keep the newest row so the unique index applies.
+      execSqlAndLog(database, "DELETE FROM " + TABLE_NAME_GAMES + " WHERE " + KEY_DB_ID
+              + " NOT IN (SELECT MAX(" + KEY_DB_ID + ") FROM " + TABLE_NAME_GAMES
+              + " GROUP BY " + KEY_GAME_PATH + ")");
+      execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PATH);
+    }
 
-  public void scanLibrary(SQLiteDatabase database)
-  {
-    // Before scanning known folders, go through the game table and remove any entries for which the file itself is missing.
-    Cursor fileCursor = database.query(TABLE_NAME_GAMES,
-            null,    // Get all columns.
-            null,    // Get all rows.
-            null,
-            null,    // No grouping.
-            null,
-            null);    // Order of games is irrelevant.
+    if (oldVersion < 4)
+    {
+      // An empty index just means the first scan lists every directory once.
+      execSqlAndLog(database, SQL_CREATE_DIRECTORIES);
+    }
 
-    // Possibly overly defensive, but ensures that moveToNext() does not skip a row.
-    fileCursor.moveToPosition(-1);
+    if (oldVersion < 5)
+    {
+      // Version 3 made game IDs unique, which kept duplicate copies of a title out of the library.
+      execSqlAndLog(database, "DROP INDEX IF EXISTS index_games_game_id");
+      execSqlAndLog(database, SQL_CREATE_INDEX_GAME_ID);
+
+      // Existing rows get a fingerprint the next time their file changes.
+      execSqlAndLog(database, "ALTER TABLE " + TABLE_NAME_GAMES + " ADD COLUMN "
+              + KEY_GAME_FINGERPRINT + TYPE_STRING);
+      execSqlAndLog(database, SQL_CREATE_INDEX_GAME_FINGERPRINT);
+    }
 
-    while (fileCursor.moveToNext())
+    if (oldVersion < 6)
     {
-      String gamePath = fileCursor.getString(GAME_COLUMN_PATH);
-      File game = new File(gamePath);
+      execSqlAndLog(database, SQL_CREATE_INDEX_GAME_PLATFORM_TITLE);
+    }
 
-      if (!game.exists())
-      {
-        Log.error("[GameDatabase] Game file no longer exists. Removing from the library: " +
-                gamePath);
-        database.delete(TABLE_NAME_GAMES,
-                KEY_DB_ID + " = ?",
-                new String[]{Long.toString(fileCursor.getLong(COLUMN_DB_ID))});
-      }
+    if (oldVersion < 7)
+    {
+      createGamesSearch(database);
+      execSqlAndLog(database, SQL_REBUILD_GAMES_SEARCH);
     }
+  }
 
+  private void createGamesSearch(SQLiteDatabase database)
+  {
+    execSqlAndLog(database, SQL_CREATE_GAMES_SEARCH);
 
-    // Get a cursor listing all the folders the user has added to the library.
-    Cursor folderCursor = database.query(TABLE_NAME_FOLDERS,
-            null,    // Get all columns.
-            null,    // Get all rows.
-            null,
-            null,    // No grouping.
-            null,
-            null);    // Order of folders is irrelevant.
+    for (String trigger : SQL_CREATE_GAMES_SEARCH_TRIGGERS)
+    {
+      execSqlAndLog(database, trigger);
+    }
+  }
 
-    Set<String> allowedExtensions = new HashSet<String>(Arrays.asList(
-            ".3ds", ".3ds", ".3dsx", ".elf", ".axf", ".cci", ".cxi", ".app"));
+  public void scanLibrary(SQLiteDatabase database)
+  {
+    scanLibrary(database, null);
+  }
 
-    // Possibly overly defensive, but ensures that moveToNext() does not skip a row.
-    folderCursor.moveToPosition(-1);
+  /**
+   * Removes games whose files have disappeared, then picks up new and modified files from every
+   * library folder and its subdirectories. Leaves the database open, as it belongs to this
+   * helper and may be in use on other threads.
+   *
+   * @param listener Notified as the metadata of each changed file is read. May be null.
+   */
+  public void scanLibrary(SQLiteDatabase database, LibraryScanner.ProgressListener listener)
+  {
+    // Before scanning known folders, find any games whose files are missing. Those that turn up
+    // elsewhere during the scan are moved rather than re-read; the rest are removed afterwards.
+    LibraryPruner pruner = new LibraryPruner(database);
+    pruner.findMissingGames();
 
-    // Iterate through all results of the DB query (i.e. all folders in the library.)
-    while (folderCursor.moveToNext())
-    {
+    new LibraryScanner(database, GameMetadataReader.NATIVE, pruner, listener,
+            BannerCache.getInstance(mContext)).scan();
+
+    pruner.deleteMissingGames();
+  }
 
-      String folderPath = folderCursor.getString(FOLDER_COLUMN_PATH);
-      File folder = new File(folderPath);
+  /**
+   * Reads every game, with only the columns in {@link #PROJECTION_GAME_LIST}, ordered by
+   * platform, then title, then row ID. Does IO, so don't call this on the main thread.
+   */
+  public Cursor readGameList()
+  {
+    Log.info("[GameDatabase] Reading games list...");
 
-      Log.info("[GameDatabase] Reading files from library folder: " + folderPath);
+    SQLiteDatabase database = getReadableDatabase();
+    return database.query(
+            TABLE_NAME_GAMES,
+            PROJECTION_GAME_LIST,
+            null,
+            null,
+            null,
+            null,
+            KEY_GAME_PLATFORM + " ASC, " + KEY_GAME_TITLE + " ASC, " + KEY_DB_ID + " ASC"
+    );
+  }
 
-      // Iterate through every file in the folder.
-      File[] children = folder.listFiles();
+  /**
+   * Reads every column of a single game, for views that show its full details.
+   */
+  public Observable<Game> getGame(final String path)
+  {
+    return Observable.create(subscriber ->
+    {
+      SQLiteDatabase database = getReadableDatabase();
+      Cursor cursor = database.query(
+              TABLE_NAME_GAMES,
+              null,
+              KEY_GAME_PATH + " = ?",
+              new String[]{path},
+              null,
+              null,
+              null
+      );
 
-      if (children != null)
+      if (cursor.moveToFirst())
       {
-        for (File file : children)
-        {
-          if (!file.isHidden() && !file.isDirectory())
-          {
-            String filePath = file.getPath();
-
-            int extensionStart = filePath.lastIndexOf('.');
-            if (extensionStart > 0)
-            {
-              String fileExtension = filePath.substring(extensionStart);
-
-              // Check that the file has an extension we care about before trying to read out of it.
-              if (allowedExtensions.contains(fileExtension.toLowerCase()))
-              {
-                String name = NativeLibrary.GetTitle(filePath);
-
-                // If the game's title field is empty, use the filename.
-                if (name.isEmpty())
-                {
-                  name = filePath.substring(filePath.lastIndexOf("/") + 1);
-                }
-
-                String gameId = NativeLibrary.GetGameId(filePath);
-
-                // If the game's ID field is empty, use the filename without extension.
-                if (gameId.isEmpty())
-                {
-                  gameId = filePath.substring(filePath.lastIndexOf("/") + 1,
-                          filePath.lastIndexOf("."));
-                }
-
-                Platform platform = Platform.fromNativeInt(NativeLibrary.GetPlatform(filePath));
-
-                ContentValues game = Game.asContentValues(platform,
-                        name,
-                        NativeLibrary.GetDescription(filePath).replace("\n", " "),
-                        NativeLibrary.GetCountry(filePath),
-                        filePath,
-                        gameId,
-                        NativeLibrary.GetCompany(filePath));
-
-                // Try to update an existing game first.
-                int rowsMatched = database.update(TABLE_NAME_GAMES,    // Which table to update.
-                        game,
-                        // The values to fill the row with.
-                        KEY_GAME_ID + " = ?",
-                        // The WHERE clause used to find the right row.
-                        new String[]{game.getAsString(
-                                KEY_GAME_ID)});    // The ? in WHERE clause is replaced with this,
-                // which is provided as an array because there
-                // could potentially be more than one argument.
-
-                // If update fails, insert a new game instead.
-                if (rowsMatched == 0)
-                {
-                  Log.verbose("[GameDatabase] Adding game: " + game.getAsString(KEY_GAME_TITLE));
-                  database.insert(TABLE_NAME_GAMES, null, game);
-                }
-                else
-                {
-                  Log.verbose("[GameDatabase] Updated game: " + game.getAsString(KEY_GAME_TITLE));
-                }
-              }
-            }
-          }
-        }
+        subscriber.onNext(Game.fromCursor(cursor));
       }
-      // If the folder is empty because it no longer exists, remove it from the library.
-      else if (!folder.exists())
+      else
       {
-        Log.error(
-                "[GameDatabase] Folder no longer exists. Removing from the library: " + folderPath);
-        database.delete(TABLE_NAME_FOLDERS,
-                KEY_DB_ID + " = ?",
-                new String[]{Long.toString(folderCursor.getLong(COLUMN_DB_ID))});
+        Log.error("[GameDatabase] Game not found: " + path);
       }
-      else
+
+      cursor.close();
+      subscriber.onCompleted();
+    });
+  }
+
+  /**
+   * Finds the games whose title, company, description or game ID contain words starting with
+   * each word of the query, with only the columns in {@link #PROJECTION_GAME_LIST}. Games whose
+   * title starts with the query come first, then those with a matching word in the title, then
+   * the rest; each group is ordered by title.
+   *
+   * @param query Text as typed by the user.
+   * @param limit The maximum number of games to return.
+   * @return A cursor over the results, which is empty if the query has no words.
+   */
+  public Cursor searchGames(SQLiteDatabase database, String query, int limit)
+  {
+    String match = buildPrefixMatch(query);
+    if (match == null)
+    {
+      return new MatrixCursor(PROJECTION_GAME_LIST, 0);
+    }
+
+    StringBuilder columns = new StringBuilder();
+    for (String column : PROJECTION_GAME_LIST)
+    {
+      if (columns.length() > 0)
       {
-        Log.error("[GameDatabase] Folder contains no games: " + folderPath);
+        columns.append(SEPARATOR);
       }
+      columns.append(TABLE_NAME_GAMES).append('.').append(column);
     }
 
-    fileCursor.close();
-    folderCursor.close();
-    database.close();
+    String title = TABLE_NAME_GAMES + "." + KEY_GAME_TITLE;
+    String sql = "SELECT " + columns + " FROM " + TABLE_NAME_GAMES + " JOIN "
+            + TABLE_NAME_GAMES_SEARCH + " ON " + TABLE_NAME_GAMES + "." + KEY_DB_ID + " = "
+            + TABLE_NAME_GAMES_SEARCH + ".docid"
+            + " WHERE " + TABLE_NAME_GAMES_SEARCH + " MATCH ?"
+            + " ORDER BY CASE WHEN " + title + " LIKE ? ESCAPE '\\' THEN 0"
+            + " WHEN " + title + " LIKE ? ESCAPE '\\' THEN 1 ELSE 2 END, "
+            + title + " ASC, " + TABLE_NAME_GAMES + "." + KEY_DB_ID + " ASC"
+            + " LIMIT " + limit;
+
+    String like = escapeLike(query.trim());
+    return database.rawQuery(sql, new String[]{match, like + "%", "% " + like + "%"});
   }
 
-  public Observable<Cursor> getGamesForPlatform(final Platform platform)
+  /**
+   * Turns the words of a query into an FTS prefix query, with each word quoted so that
+   * characters with a meaning in the query syntax are searched for literally.
+   *
+   * @return The query, or null if there are no words to search for.
+   */
+  private static String buildPrefixMatch(String query)
   {
-    return Observable.create(subscriber ->
-    {
-      Log.info("[GameDatabase] Reading games list...");
+    StringBuilder match = new StringBuilder();
 
-      String[] whereArgs = new String[]{Integer.toString(platform.toInt())};
+    for (String word : query.trim().split("\\s+"))
+    {
+      String term = word.replace("\"", "");
+      if (term.isEmpty())
+      {
+        continue;
+      }
 
-      SQLiteDatabase database = getReadableDatabase();
-      Cursor resultCursor = database.query(
-              TABLE_NAME_GAMES,
-              null,
-              KEY_GAME_PLATFORM + " = ?",
-              whereArgs,
-              null,
-              null,
-              KEY_GAME_TITLE + " ASC"
-      );
+      if (match.length() > 0)
+      {
+        match.append(' ');
+      }
+      match.append('"').append(term).append("*\"");
+    }
 
-      // Pass the result cursor to the consumer.
-      subscriber.onNext(resultCursor);
+    return match.length() > 0 ? match.toString() : null;
+  }
 
-      // Tell the consumer we're done; it will unsubscribe implicitly.
-      subscriber.onCompleted();
-    });
+  private static String escapeLike(String text)
+  {
+    return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
   }
 
   private void execSqlAndLog(SQLiteDatabase database, String sql)
@@ -0,0 +1,70 @@
+package org.citra.citra_android.model;
+
+/**
+ * The metadata embedded in a single ROM, as read in one pass by
+ * {@link org.citra.citra_android.NativeLibrary#GetGameMetadata(String[])}.
+ */
+public final class GameMetadata
+{
+  private final String mTitle;
+  private final String mDescription;
+  private final String mGameId;
+  private final String mCompany;
+  private final int mCountry;
+  private final int mPlatform;
+  private final long mFileSize;
+
+  /**
+   * Called from native code; the argument list must stay in sync with the constructor lookup in
+   * CacheClassesAndMethods.
+   */
+  public GameMetadata(String title, String description, String gameId, String company,
+          int country, int platform, long fileSize)
+  {
+    mTitle = title;
+    mDescription = description;
+    mGameId = gameId;
+    mCompany = company;
+    mCountry = country;
+    mPlatform = platform;
+    mFileSize = fileSize;
+  }
+
+  public String getTitle()
+  {
+    return mTitle;
+  }
+
+  public String getDescription()
+  {
+    return mDescription;
+  }
+
+  public String getGameId()
+  {
+    return mGameId;
+  }
+
+  public String getCompany()
+  {
+    return mCompany;
+  }
+
+  public int getCountry()
+  {
+    return mCountry;
+  }
+
+  /**
+   * @return The platform as reported by native code; see Platform.fromNativeInt().
+   */
+  public int getPlatform()
+  {
+    return mPlatform;
+  }
+
+  public long getFileSize()
+  {
+    return mFileSize;
+  }
+}
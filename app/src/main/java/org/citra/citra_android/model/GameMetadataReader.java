@@ -0,0 +1,17 @@
+package org.citra.citra_android.model;
+
+/**
+ * Reads the metadata of a batch of ROMs. The library scanner only talks to native code through
+ * this interface, so it can be driven by a fake implementation off-device.
+ */
+public interface GameMetadataReader
+{
+  GameMetadataReader NATIVE = new NativeGameMetadataReader();
+
+  /**
+   * @param paths The file paths of the ROMs to read.
+   * @return An array of the same length as paths, holding each file's metadata or null for any
+   * file that could not be read.
+   */
+  GameMetadata[] read(String[] paths);
+}
@@ -1,7 +1,10 @@
 package org.citra.citra_android.model;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
@@ -10,6 +13,8 @@ import android.support.annotation.NonNull;
 import org.citra.citra_android.BuildConfig;
 import org.citra.citra_android.utils.Log;
 
+import java.util.ArrayList;
+
 /**
  * Provides an interface allowing Activities to interact with the SQLite database.
  * CRUD methods in this class can be called by Activities using getContentResolver().
@@ -17,6 +22,9 @@ import org.citra.citra_android.utils.Log;
 public final class GameProvider extends ContentProvider
 {
   public static final String REFRESH_LIBRARY = "refresh";
+  public static final String SEARCH_GAMES = "search";
+
+  public static final String QUERY_PARAMETER_SEARCH = "q";
 
   public static final String AUTHORITY = "content://" + BuildConfig.APPLICATION_ID + ".provider";
   public static final Uri URI_FOLDER =
@@ -24,13 +32,26 @@ public final class GameProvider extends ContentProvider
   public static final Uri URI_GAME =
           Uri.parse(AUTHORITY + "/" + GameDatabase.TABLE_NAME_GAMES + "/");
   public static final Uri URI_REFRESH = Uri.parse(AUTHORITY + "/" + REFRESH_LIBRARY + "/");
+  public static final Uri URI_SEARCH = Uri.parse(AUTHORITY + "/" + SEARCH_GAMES + "/");
 
   public static final String MIME_TYPE_FOLDER = "vnd.android.cursor.item/vnd.dolphin.folder";
   public static final String MIME_TYPE_GAME = "vnd.android.cursor.item/vnd.dolphin.game";
+  public static final String MIME_TYPE_GAME_LIST = "vnd.android.cursor.dir/vnd.dolphin.game";
 
+  private static final int SEARCH_LIMIT = 100;
 
   private GameDatabase mDbHelper;
 
+  // Set while applyBatch() runs on a thread, to hold back per-operation notifications.
+  private final ThreadLocal<Boolean> mApplyingBatch = new ThreadLocal<Boolean>()
+  {
+    @Override
+    protected Boolean initialValue()
+    {
+      return false;
+    }
+  };
+
   @Override
   public boolean onCreate()
   {
@@ -57,12 +78,43 @@ public final class GameProvider extends ContentProvider
       return null;
     }
 
+    if (table.equals(SEARCH_GAMES))
+    {
+      return searchGames(db, uri);
+    }
+
     Cursor cursor = db.query(table, projection, selection, selectionArgs, null, null, sortOrder);
     cursor.setNotificationUri(getContext().getContentResolver(), uri);
 
     return cursor;
   }
 
+  /**
+   * Builds a URI that queries the games matching some search text, as typed by the user.
+   */
+  public static Uri buildSearchUri(String query)
+  {
+    return URI_SEARCH.buildUpon()
+            .appendQueryParameter(QUERY_PARAMETER_SEARCH, query)
+            .build();
+  }
+
+  /**
+   * Returns the games matching the text in the URI's query parameter, best matches first, with
+   * the columns in {@link GameDatabase#PROJECTION_GAME_LIST}. Words match by prefix, so this can
+   * be queried again as each character is typed.
+   */
+  private Cursor searchGames(SQLiteDatabase database, Uri uri)
+  {
+    String query = uri.getQueryParameter(QUERY_PARAMETER_SEARCH);
+
+    Cursor cursor = mDbHelper.searchGames(database, query != null ? query : "", SEARCH_LIMIT);
+
+    // Results change whenever the games they were found in do.
+    cursor.setNotificationUri(getContext().getContentResolver(), URI_GAME);
+    return cursor;
+  }
+
   @Override
   public String getType(@NonNull Uri uri)
   {
@@ -83,6 +135,10 @@ public final class GameProvider extends ContentProvider
     {
       return MIME_TYPE_GAME;
     }
+    else if (lastSegment.equals(SEARCH_GAMES))
+    {
+      return MIME_TYPE_GAME_LIST;
+    }
 
     Log.error("[GameProvider] Unknown MIME type for URI: " + uri);
     return null;
@@ -104,10 +160,15 @@ public final class GameProvider extends ContentProvider
       {
         Log.info(
                 "[GameProvider] URI specified table REFRESH_LIBRARY. No insertion necessary; refreshing library contents...");
-        mDbHelper.scanLibrary(database);
+        mDbHelper.scanLibrary(database, this::notifyScanProgress);
         return uri;
       }
 
+      if (table.equals(GameDatabase.TABLE_NAME_GAMES))
+      {
+        return insertGame(database, uri, values);
+      }
+
       id = database.insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_IGNORE);
 
       // If insertion was successful...
@@ -116,7 +177,7 @@ public final class GameProvider extends ContentProvider
         // If we just added a folder, add its contents to the game list.
         if (table.equals(GameDatabase.TABLE_NAME_FOLDERS))
         {
-          mDbHelper.scanLibrary(database);
+          mDbHelper.scanLibrary(database, this::notifyScanProgress);
         }
 
         // Notify the UI that its contents should be refreshed.
@@ -133,16 +194,123 @@ public final class GameProvider extends ContentProvider
       Log.error("[GameProvider] Badly formatted URI: " + uri);
     }
 
-    database.close();
-
     return uri;
   }
 
+  /**
+   * Builds the URI that is notified as a library refresh progresses. Observers registered on
+   * {@link #URI_REFRESH} with notifyForDescendants set receive one of these per processed file.
+   */
+  public static Uri buildRefreshProgressUri(int completed, int total)
+  {
+    return URI_REFRESH.buildUpon()
+            .appendPath(Integer.toString(completed))
+            .appendPath(Integer.toString(total))
+            .build();
+  }
+
+  private void notifyScanProgress(int completed, int total)
+  {
+    getContext().getContentResolver().notifyChange(buildRefreshProgressUri(completed, total), null);
+  }
+
+  /**
+   * Adds a game, or updates the game already stored at the same path so that it keeps its ID.
+   */
+  private Uri insertGame(SQLiteDatabase database, Uri uri, ContentValues values)
+  {
+    String path = values.getAsString(GameDatabase.KEY_GAME_PATH);
+    long id;
+
+    Cursor cursor = database.query(GameDatabase.TABLE_NAME_GAMES,
+            new String[]{GameDatabase.KEY_DB_ID},
+            GameDatabase.KEY_GAME_PATH + " = ?",
+            new String[]{path},
+            null,
+            null,
+            null);
+
+    if (cursor.moveToFirst())
+    {
+      id = cursor.getLong(0);
+      database.update(GameDatabase.TABLE_NAME_GAMES, values, GameDatabase.KEY_DB_ID + " = ?",
+              new String[]{Long.toString(id)});
+    }
+    else
+    {
+      id = database.insert(GameDatabase.TABLE_NAME_GAMES, null, values);
+    }
+
+    cursor.close();
+
+    if (id < 0)
+    {
+      Log.error("[GameProvider] Failed to store game: " + path);
+      return uri;
+    }
+
+    notifyChange(uri);
+    return Uri.withAppendedPath(uri, Long.toString(id));
+  }
+
+  /**
+   * Applies all operations in a single transaction, and notifies observers of {@link #URI_GAME}
+   * once for the whole batch rather than once per operation.
+   */
+  @NonNull
+  @Override
+  public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+          throws OperationApplicationException
+  {
+    SQLiteDatabase database = mDbHelper.getWritableDatabase();
+
+    mApplyingBatch.set(true);
+    database.beginTransaction();
+    try
+    {
+      ContentProviderResult[] results = super.applyBatch(operations);
+      database.setTransactionSuccessful();
+      return results;
+    }
+    finally
+    {
+      database.endTransaction();
+      mApplyingBatch.set(false);
+
+      getContext().getContentResolver().notifyChange(URI_GAME, null);
+    }
+  }
+
   @Override
   public int delete(@NonNull Uri uri, String selection, String[] selectionArgs)
   {
-    Log.error("[GameProvider] Delete operations unsupported. URI: " + uri);
-    return 0;
+    String table = uri.getLastPathSegment();
+
+    if (!GameDatabase.TABLE_NAME_GAMES.equals(table))
+    {
+      Log.error("[GameProvider] Delete operations unsupported. URI: " + uri);
+      return 0;
+    }
+
+    Log.info("[GameProvider] Deleting rows at URI: " + uri);
+
+    SQLiteDatabase database = mDbHelper.getWritableDatabase();
+    int count = database.delete(table, selection, selectionArgs);
+
+    if (count > 0)
+    {
+      notifyChange(uri);
+    }
+
+    return count;
+  }
+
+  private void notifyChange(Uri uri)
+  {
+    if (!mApplyingBatch.get())
+    {
+      getContext().getContentResolver().notifyChange(uri, null);
+    }
   }
 
   @Override
@@ -0,0 +1,167 @@
+package org.citra.citra_android.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects filesystem events for the library and coalesces them into batches, so that a burst of
+ * events (such as copying a folder of ROMs) is applied to the database once. Only the first and
+ * last events for each path matter: a path that was created and then deleted again cancels out,
+ * one that was modified and then deleted ends up as a removal, and one that was deleted and then
+ * re-created as a change. A move is recorded as a removal of its source and a creation of its
+ * destination.
+ * <p>
+ * A batch becomes due once no event has arrived for the quiet period, or once the oldest pending
+ * event has waited for the maximum delay, whichever comes first. Time is passed in by the caller,
+ * so this class has no Android dependencies and doesn't schedule anything itself.
+ */
+public final class LibraryEventCoalescer
+{
+  /**
+   * The coalesced outcome of a series of events.
+   */
+  public static final class Batch
+  {
+    private final Set<String> mChangedPaths;
+    private final Set<String> mRemovedPaths;
+
+    private Batch(Set<String> changedPaths, Set<String> removedPaths)
+    {
+      mChangedPaths = Collections.unmodifiableSet(changedPaths);
+      mRemovedPaths = Collections.unmodifiableSet(removedPaths);
+    }
+
+    /**
+     * @return Paths that were created, modified or moved in, in the order they were first seen.
+     */
+    public Set<String> getChangedPaths()
+    {
+      return mChangedPaths;
+    }
+
+    /**
+     * @return Paths that were deleted or moved out, in the order they were first seen.
+     */
+    public Set<String> getRemovedPaths()
+    {
+      return mRemovedPaths;
+    }
+  }
+
+  private static final long NONE = -1;
+
+  private final long mQuietPeriod;
+  private final long mMaxDelay;
+
+  // Maps each path to whether it exists after its most recent event.
+  private final Map<String, Boolean> mPending = new LinkedHashMap<>();
+  // Paths that didn't exist before their first pending event.
+  private final Set<String> mCreated = new HashSet<>();
+
+  private long mFirstEventTime = NONE;
+  private long mLastEventTime = NONE;
+
+  /**
+   * @param quietPeriod How long, in milliseconds, events must stop arriving before a batch is due.
+   * @param maxDelay    The longest, in milliseconds, an event may wait during a constant stream.
+   */
+  public LibraryEventCoalescer(long quietPeriod, long maxDelay)
+  {
+    mQuietPeriod = quietPeriod;
+    mMaxDelay = maxDelay;
+  }
+
+  /**
+   * Records that a path that didn't exist was created in, or moved into, a watched directory.
+   */
+  public void onPathCreated(String path, long now)
+  {
+    if (!mPending.containsKey(path))
+    {
+      mCreated.add(path);
+    }
+
+    record(path, true, now);
+  }
+
+  /**
+   * Records that a path was written to, whether or not it existed before.
+   */
+  public void onPathChanged(String path, long now)
+  {
+    record(path, true, now);
+  }
+
+  /**
+   * Records that a path was deleted or moved out of a watched directory.
+   */
+  public void onPathRemoved(String path, long now)
+  {
+    record(path, false, now);
+  }
+
+  /**
+   * @return The time at which the pending events become due, or -1 if nothing is pending.
+   */
+  public long getDueTime()
+  {
+    if (mPending.isEmpty())
+    {
+      return NONE;
+    }
+
+    return Math.min(mLastEventTime + mQuietPeriod, mFirstEventTime + mMaxDelay);
+  }
+
+  /**
+   * @return The pending events as one batch if they are due, or null if they are not (yet). The
+   * batch may be empty if every pending event cancelled out.
+   */
+  public Batch drain(long now)
+  {
+    long dueTime = getDueTime();
+    if (dueTime == NONE || now < dueTime)
+    {
+      return null;
+    }
+
+    Set<String> changed = new LinkedHashSet<>();
+    Set<String> removed = new LinkedHashSet<>();
+
+    for (Map.Entry<String, Boolean> event : mPending.entrySet())
+    {
+      String path = event.getKey();
+      if (event.getValue())
+      {
+        changed.add(path);
+      }
+      // Nothing to remove if the path only existed in between.
+      else if (!mCreated.contains(path))
+      {
+        removed.add(path);
+      }
+    }
+
+    mPending.clear();
+    mCreated.clear();
+    mFirstEventTime = NONE;
+    mLastEventTime = NONE;
+
+    return new Batch(changed, removed);
+  }
+
+  private void record(String path, boolean exists, long now)
+  {
+    if (mPending.isEmpty())
+    {
+      mFirstEventTime = now;
+    }
+
+    mPending.put(path, exists);
+    mLastEventTime = now;
+  }
+}
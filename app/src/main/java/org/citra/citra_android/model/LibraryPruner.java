@@ -0,0 +1,262 @@
+package org.citra.citra_android.model;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Environment;
+
+import org.citra.citra_android.utils.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Removes games whose files have disappeared from the library. Rows are grouped by their parent
+ * directory so that each directory is listed once, rather than checking every file on its own,
+ * and all deletions happen in a single transaction. Games inside a library folder whose storage
+ * volume isn't mounted are left alone, so they reappear without a rescan once it is.
+ * <p>
+ * Missing games are found before a library scan and deleted after it, so that the scan can claim
+ * any whose fingerprint turns up under a new path and move them instead.
+ */
+public final class LibraryPruner
+{
+  private final SQLiteDatabase mDatabase;
+
+  private final Set<Long> mMissingIds = Collections.synchronizedSet(new HashSet<>());
+  private final Map<String, Long> mMissingByFingerprint = new ConcurrentHashMap<>();
+
+  public LibraryPruner(SQLiteDatabase database)
+  {
+    mDatabase = database;
+  }
+
+  /**
+   * @return true if the folder is missing because the storage volume holding it is not mounted,
+   * as opposed to it having been deleted.
+   */
+  public static boolean isOffline(File folder)
+  {
+    return !folder.exists() &&
+            !Environment.MEDIA_MOUNTED.equals(Environment.getExternalStorageState(folder));
+  }
+
+  public void findMissingGames()
+  {
+    Map<String, List<Long>> idsByDirectory = new HashMap<>();
+    Map<String, List<String>> namesByDirectory = new HashMap<>();
+    Map<Long, String> fingerprints = new HashMap<>();
+
+    Cursor cursor = mDatabase.query(GameDatabase.TABLE_NAME_GAMES,
+            new String[]{GameDatabase.KEY_DB_ID, GameDatabase.KEY_GAME_PATH,
+                    GameDatabase.KEY_GAME_FINGERPRINT},
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    while (cursor.moveToNext())
+    {
+      File game = new File(cursor.getString(1));
+      String directory = game.getParent();
+
+      if (!idsByDirectory.containsKey(directory))
+      {
+        idsByDirectory.put(directory, new ArrayList<>());
+        namesByDirectory.put(directory, new ArrayList<>());
+      }
+
+      idsByDirectory.get(directory).add(cursor.getLong(0));
+      namesByDirectory.get(directory).add(game.getName());
+
+      if (!cursor.isNull(2))
+      {
+        fingerprints.put(cursor.getLong(0), cursor.getString(2));
+      }
+    }
+
+    cursor.close();
+
+    List<String> offlineFolders = findOfflineFolders();
+
+    for (Map.Entry<String, List<Long>> entry : idsByDirectory.entrySet())
+    {
+      String directory = entry.getKey();
+
+      if (isUnder(directory, offlineFolders))
+      {
+        Log.verbose("[LibraryPruner] Skipping directory on unmounted storage: " + directory);
+        continue;
+      }
+
+      String[] children = directory != null ? new File(directory).list() : null;
+      Set<String> present;
+
+      if (children != null)
+      {
+        present = new HashSet<>(Arrays.asList(children));
+      }
+      else if (isDeleted(directory))
+      {
+        present = new HashSet<>();
+      }
+      else
+      {
+        // An I/O error or a revoked permission says nothing about whether the games are gone.
+        Log.warning("[LibraryPruner] Couldn't list directory, skipping: " + directory);
+        continue;
+      }
+
+      List<String> names = namesByDirectory.get(directory);
+      List<Long> ids = entry.getValue();
+
+      for (int i = 0; i < ids.size(); i++)
+      {
+        if (!present.contains(names.get(i)))
+        {
+          Log.verbose("[LibraryPruner] Game file no longer exists: " + directory + "/" +
+                  names.get(i));
+
+          long id = ids.get(i);
+          mMissingIds.add(id);
+
+          String fingerprint = fingerprints.get(id);
+          if (fingerprint != null)
+          {
+            mMissingByFingerprint.put(fingerprint, id);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return Whether a directory that couldn't be listed is known to be gone, because its parent
+   * can be listed and no longer holds it.
+   */
+  private static boolean isDeleted(String directory)
+  {
+    if (directory == null)
+    {
+      return false;
+    }
+
+    File file = new File(directory);
+    File parent = file.getParentFile();
+    String[] siblings = parent != null ? parent.list() : null;
+
+    return siblings != null && !Arrays.asList(siblings).contains(file.getName());
+  }
+
+  /**
+   * Claims a missing game that has the same contents as a newly found file, so that it can be
+   * moved to the new path rather than deleted. Safe to call from any thread.
+   *
+   * @return The row ID of the missing game, or null if no missing game has this fingerprint.
+   */
+  public Long claimMovedGame(String fingerprint)
+  {
+    Long id = mMissingByFingerprint.remove(fingerprint);
+
+    if (id != null)
+    {
+      mMissingIds.remove(id);
+    }
+
+    return id;
+  }
+
+  /**
+   * Deletes every missing game that was not claimed by {@link #claimMovedGame(String)}.
+   */
+  public void deleteMissingGames()
+  {
+    List<Long> ids;
+    synchronized (mMissingIds)
+    {
+      ids = new ArrayList<>(mMissingIds);
+      mMissingIds.clear();
+    }
+    mMissingByFingerprint.clear();
+
+    if (ids.isEmpty())
+    {
+      return;
+    }
+
+    Log.info("[LibraryPruner] Removing " + ids.size() + " missing games from the library.");
+
+    SQLiteStatement delete = mDatabase.compileStatement("DELETE FROM "
+            + GameDatabase.TABLE_NAME_GAMES + " WHERE " + GameDatabase.KEY_DB_ID + " = ?");
+
+    mDatabase.beginTransaction();
+    try
+    {
+      for (long id : ids)
+      {
+        delete.bindLong(1, id);
+        delete.executeUpdateDelete();
+      }
+
+      mDatabase.setTransactionSuccessful();
+    }
+    finally
+    {
+      mDatabase.endTransaction();
+      delete.close();
+    }
+  }
+
+  private List<String> findOfflineFolders()
+  {
+    List<String> offline = new ArrayList<>();
+
+    Cursor cursor = mDatabase.query(GameDatabase.TABLE_NAME_FOLDERS,
+            new String[]{GameDatabase.KEY_FOLDER_PATH},
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    while (cursor.moveToNext())
+    {
+      String folder = cursor.getString(0);
+      if (isOffline(new File(folder)))
+      {
+        Log.warning("[LibraryPruner] Library folder is offline: " + folder);
+        offline.add(folder);
+      }
+    }
+
+    cursor.close();
+    return offline;
+  }
+
+  private static boolean isUnder(String directory, List<String> folders)
+  {
+    if (directory == null)
+    {
+      return false;
+    }
+
+    for (String folder : folders)
+    {
+      if (directory.equals(folder) || directory.startsWith(folder + "/"))
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
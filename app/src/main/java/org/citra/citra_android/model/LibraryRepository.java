@@ -0,0 +1,90 @@
+package org.citra.citra_android.model;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import org.citra.citra_android.utils.Log;
+
+import rx.Observable;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Keeps a {@link LibrarySnapshot} of the game library, reading the whole game list again on a
+ * background thread whenever the games table changes. Every game list in the UI binds from these
+ * snapshots, so the library is read once per change rather than once per list shown.
+ */
+public final class LibraryRepository
+{
+  private final GameDatabase mDatabase;
+
+  private final Handler mHandler;
+  private final Runnable mLoad = this::load;
+
+  private final BehaviorSubject<LibrarySnapshot> mSnapshots = BehaviorSubject.create();
+
+  // Only touched on the loader thread.
+  private LibrarySnapshot mSnapshot = LibrarySnapshot.EMPTY;
+
+  public LibraryRepository(Context context, GameDatabase database)
+  {
+    mDatabase = database;
+
+    HandlerThread thread =
+            new HandlerThread("LibraryRepository", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    mHandler = new Handler(thread.getLooper());
+
+    // Runs on the loader thread, so a burst of changes only queues a single reload.
+    context.getContentResolver().registerContentObserver(GameProvider.URI_GAME, true,
+            new ContentObserver(mHandler)
+            {
+              @Override
+              public void onChange(boolean selfChange)
+              {
+                reload();
+              }
+            });
+
+    reload();
+  }
+
+  /**
+   * @return The latest snapshot, once the first has been read, followed by every later one.
+   * Snapshots are emitted on the loader thread.
+   */
+  public Observable<LibrarySnapshot> getSnapshots()
+  {
+    return mSnapshots.asObservable();
+  }
+
+  /**
+   * Reads the library again. Reloads requested before a pending one starts are merged with it.
+   */
+  public void reload()
+  {
+    mHandler.removeCallbacks(mLoad);
+    mHandler.post(mLoad);
+  }
+
+  private void load()
+  {
+    LibrarySnapshot snapshot;
+    try (Cursor cursor = mDatabase.readGameList())
+    {
+      snapshot = LibrarySnapshot.fromCursor(cursor, mSnapshot);
+    }
+
+    // Don't wake up the lists if nothing they show has changed.
+    if (snapshot != mSnapshot || !mSnapshots.hasValue())
+    {
+      Log.debug("[LibraryRepository] Library changed, publishing snapshot.");
+
+      mSnapshot = snapshot;
+      mSnapshots.onNext(snapshot);
+    }
+  }
+}
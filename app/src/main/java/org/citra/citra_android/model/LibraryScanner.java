@@ -0,0 +1,387 @@
+package org.citra.citra_android.model;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import org.citra.citra_android.utils.BannerCache;
+import org.citra.citra_android.utils.FileFingerprint;
+import org.citra.citra_android.utils.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Walks every folder in the library recursively and extracts the metadata of new or modified ROMs
+ * through a {@link MetadataExtractor}, in batches so that each batch costs a single native call.
+ * Files whose size and modification time match what was recorded during the previous scan are
+ * skipped entirely. All database writes happen on the calling thread. Once stored, the banners of
+ * those ROMs are extracted to the banner cache in the background, ahead of the UI asking for them.
+ */
+public final class LibraryScanner
+{
+  /**
+   * Receives updates as files are processed by a scan.
+   */
+  public interface ProgressListener
+  {
+    /**
+     * @param completed The number of files whose metadata has been extracted so far.
+     * @param total     The number of files that need their metadata extracted in this scan.
+     */
+    void onScanProgress(int completed, int total);
+  }
+
+  /**
+   * The columns written by a scan, in the order they are bound to the upsert statements.
+   */
+  private static final String[] UPSERT_COLUMNS = {
+          GameDatabase.KEY_GAME_PATH,
+          GameDatabase.KEY_GAME_PLATFORM,
+          GameDatabase.KEY_GAME_TITLE,
+          GameDatabase.KEY_GAME_DESCRIPTION,
+          GameDatabase.KEY_GAME_COUNTRY,
+          GameDatabase.KEY_GAME_ID,
+          GameDatabase.KEY_GAME_COMPANY,
+          GameDatabase.KEY_GAME_SCREENSHOT_PATH,
+          GameDatabase.KEY_GAME_FILE_SIZE,
+          GameDatabase.KEY_GAME_LAST_MODIFIED,
+          GameDatabase.KEY_GAME_FINGERPRINT};
+
+  /**
+   * The columns rewritten when a known game is found under a new path.
+   */
+  private static final String[] MOVE_COLUMNS = {
+          GameDatabase.KEY_GAME_PATH,
+          GameDatabase.KEY_GAME_FILE_SIZE,
+          GameDatabase.KEY_GAME_LAST_MODIFIED};
+
+  private static final Set<String> ALLOWED_EXTENSIONS = new HashSet<>(Arrays.asList(
+          ".3ds", ".3dsx", ".elf", ".axf", ".cci", ".cxi", ".app"));
+
+  private final SQLiteDatabase mDatabase;
+  private final GameMetadataReader mReader;
+  private final LibraryPruner mPruner;
+  private final ProgressListener mListener;
+  private final BannerCache mBannerCache;
+
+  /**
+   * @param pruner      Holds the games found missing before this scan, any of which this scan
+   *                    moves if its contents turn up under a new path.
+   * @param bannerCache Where the banners of new and modified games are prefetched to. May be null.
+   */
+  public LibraryScanner(SQLiteDatabase database, GameMetadataReader reader, LibraryPruner pruner,
+          ProgressListener listener, BannerCache bannerCache)
+  {
+    mDatabase = database;
+    mReader = reader;
+    mPruner = pruner;
+    mListener = listener;
+    mBannerCache = bannerCache;
+  }
+
+  public void scan()
+  {
+    Map<String, long[]> knownFiles = readFileStamps();
+    List<File> pendingFiles = new ArrayList<>();
+    DirectoryWalker walker = new DirectoryWalker(mDatabase);
+
+    // Get a cursor listing all the folders the user has added to the library.
+    Cursor folderCursor = mDatabase.query(GameDatabase.TABLE_NAME_FOLDERS,
+            null,    // Get all columns.
+            null,    // Get all rows.
+            null,
+            null,    // No grouping.
+            null,
+            null);    // Order of folders is irrelevant.
+
+    // Possibly overly defensive, but ensures that moveToNext() does not skip a row.
+    folderCursor.moveToPosition(-1);
+
+    // Iterate through all results of the DB query (i.e. all folders in the library.)
+    while (folderCursor.moveToNext())
+    {
+      String folderPath = folderCursor.getString(GameDatabase.FOLDER_COLUMN_PATH);
+      File folder = new File(folderPath);
+
+      Log.info("[LibraryScanner] Reading files from library folder: " + folderPath);
+
+      boolean walked = walker.walk(folder, (file, size, lastModified) ->
+      {
+        if (isGameFile(file.getName()) &&
+                isModified(knownFiles.get(file.getPath()), size, lastModified))
+        {
+          pendingFiles.add(file);
+        }
+      });
+
+      // Keep folders on unmounted storage, along with what is known about their contents.
+      if (!walked && LibraryPruner.isOffline(folder))
+      {
+        Log.warning("[LibraryScanner] Folder is offline, skipping: " + folderPath);
+        walker.retain(folder);
+      }
+      // If the folder can't be walked because it no longer exists, remove it from the library.
+      else if (!walked && !folder.exists())
+      {
+        Log.error(
+                "[LibraryScanner] Folder no longer exists. Removing from the library: " +
+                        folderPath);
+        mDatabase.delete(GameDatabase.TABLE_NAME_FOLDERS,
+                GameDatabase.KEY_DB_ID + " = ?",
+                new String[]{Long.toString(folderCursor.getLong(GameDatabase.COLUMN_DB_ID))});
+      }
+    }
+
+    folderCursor.close();
+
+    Log.info("[LibraryScanner] " + pendingFiles.size() + " of the library's files changed.");
+
+    // Only remember which directories are up to date once their files have been stored.
+    List<File> failedFiles = new ArrayList<>();
+    if (extractAndStore(pendingFiles, failedFiles))
+    {
+      // Files that couldn't be read are retried by the next scan, even if nothing changes.
+      for (File file : failedFiles)
+      {
+        walker.forget(file.getParentFile());
+      }
+
+      walker.saveIndex();
+    }
+  }
+
+  /**
+   * Fans metadata extraction out over a {@link MetadataExtractor}, then stores every result at
+   * once.
+   *
+   * @param failedFiles Receives the files whose metadata couldn't be read.
+   * @return false if the scan was interrupted before the results could be stored.
+   */
+  private boolean extractAndStore(List<File> files, List<File> failedFiles)
+  {
+    ScanSink sink = new ScanSink(failedFiles);
+    if (!new MetadataExtractor(mReader).extract(files, sink, mListener))
+    {
+      Log.warning("[LibraryScanner] Scan interrupted.");
+      return false;
+    }
+
+    List<ContentValues> games = new ArrayList<>(sink.mMoves);
+    games.addAll(sink.mGames);
+
+    storeGames(games);
+    prefetchBanners(sink.mGames);
+    return true;
+  }
+
+  /**
+   * Turns what the extractor made of each file into rows to store. Files whose fingerprint
+   * matches a missing game become moves of that game, which carry its row ID and skip reading
+   * metadata entirely.
+   */
+  private final class ScanSink implements MetadataExtractor.Sink
+  {
+    // Filled in on the worker threads.
+    final List<ContentValues> mMoves = Collections.synchronizedList(new ArrayList<>());
+    final Map<String, String> mFingerprints = new ConcurrentHashMap<>();
+
+    final List<ContentValues> mGames = new ArrayList<>();
+    final List<File> mFailedFiles;
+
+    ScanSink(List<File> failedFiles)
+    {
+      mFailedFiles = failedFiles;
+    }
+
+    /**
+     * Runs on a worker thread; must not touch the database.
+     */
+    @Override
+    public boolean needsMetadata(File file)
+    {
+      String fingerprint = FileFingerprint.compute(file);
+      if (fingerprint == null)
+      {
+        return true;
+      }
+
+      Long movedId = mPruner.claimMovedGame(fingerprint);
+      if (movedId == null)
+      {
+        mFingerprints.put(file.getPath(), fingerprint);
+        return true;
+      }
+
+      Log.verbose("[LibraryScanner] Game moved to " + file.getPath());
+
+      ContentValues move = new ContentValues();
+      move.put(GameDatabase.KEY_DB_ID, movedId);
+      move.put(GameDatabase.KEY_GAME_PATH, file.getPath());
+      move.put(GameDatabase.KEY_GAME_FILE_SIZE, file.length());
+      move.put(GameDatabase.KEY_GAME_LAST_MODIFIED, file.lastModified());
+      mMoves.add(move);
+      return false;
+    }
+
+    @Override
+    public void onMetadataRead(File file, GameMetadata metadata)
+    {
+      mGames.add(Game.asContentValues(file, metadata, mFingerprints.get(file.getPath())));
+    }
+
+    @Override
+    public void onMetadataFailed(File file)
+    {
+      mFailedFiles.add(file);
+    }
+  }
+
+  /**
+   * Writes all of the given games in one transaction. Moves only rewrite the path and stamps of
+   * their row. Other games are keyed by path: an existing row is updated in place so it keeps its
+   * ID, and a new row is inserted otherwise.
+   */
+  private void storeGames(List<ContentValues> games)
+  {
+    if (games.isEmpty())
+    {
+      return;
+    }
+
+    SQLiteStatement update = mDatabase.compileStatement("UPDATE "
+            + GameDatabase.TABLE_NAME_GAMES + " SET " + buildAssignments(UPSERT_COLUMNS)
+            + " WHERE " + GameDatabase.KEY_GAME_PATH + " = ?");
+    SQLiteStatement insert = mDatabase.compileStatement("INSERT INTO "
+            + GameDatabase.TABLE_NAME_GAMES + " (" + TextUtils.join(", ", UPSERT_COLUMNS)
+            + ") VALUES (" + buildPlaceholders(UPSERT_COLUMNS.length) + ")");
+    // Replace in case a stale row still holds the new path.
+    SQLiteStatement move = mDatabase.compileStatement("UPDATE OR REPLACE "
+            + GameDatabase.TABLE_NAME_GAMES + " SET " + buildAssignments(MOVE_COLUMNS)
+            + " WHERE " + GameDatabase.KEY_DB_ID + " = ?");
+
+    mDatabase.beginTransaction();
+    try
+    {
+      for (ContentValues game : games)
+      {
+        if (game.containsKey(GameDatabase.KEY_DB_ID))
+        {
+          bindGame(move, MOVE_COLUMNS, game);
+          move.bindLong(MOVE_COLUMNS.length + 1, game.getAsLong(GameDatabase.KEY_DB_ID));
+          move.executeUpdateDelete();
+          continue;
+        }
+
+        bindGame(update, UPSERT_COLUMNS, game);
+        update.bindString(UPSERT_COLUMNS.length + 1,
+                game.getAsString(GameDatabase.KEY_GAME_PATH));
+
+        if (update.executeUpdateDelete() == 0)
+        {
+          bindGame(insert, UPSERT_COLUMNS, game);
+          insert.executeInsert();
+          Log.verbose("[LibraryScanner] Added game: " +
+                  game.getAsString(GameDatabase.KEY_GAME_TITLE));
+        }
+        else
+        {
+          Log.verbose("[LibraryScanner] Updated game: " +
+                  game.getAsString(GameDatabase.KEY_GAME_TITLE));
+        }
+      }
+
+      mDatabase.setTransactionSuccessful();
+    }
+    finally
+    {
+      mDatabase.endTransaction();
+      update.close();
+      insert.close();
+      move.close();
+    }
+  }
+
+  private static String buildAssignments(String[] columns)
+  {
+    StringBuilder assignments = new StringBuilder();
+    for (String column : columns)
+    {
+      if (assignments.length() > 0)
+      {
+        assignments.append(", ");
+      }
+      assignments.append(column).append(" = ?");
+    }
+    return assignments.toString();
+  }
+
+  private static String buildPlaceholders(int count)
+  {
+    StringBuilder placeholders = new StringBuilder();
+    for (int i = 0; i < count; i++)
+    {
+      placeholders.append(i == 0 ? "?" : ", ?");
+    }
+    return placeholders.toString();
+  }
+
+  private static void bindGame(SQLiteStatement statement, String[] columns, ContentValues game)
+  {
+    statement.clearBindings();
+    for (int i = 0; i < columns.length; i++)
+    {
+      DatabaseUtils.bindObjectToProgram(statement, i + 1, game.get(columns[i]));
+    }
+  }
+
+  /**
+   * @return A map from each known game's path to its recorded size and modification time.
+   */
+  private Map<String, long[]> readFileStamps()
+  {
+    Map<String, long[]> stamps = new HashMap<>();
+
+    Cursor cursor = mDatabase.query(GameDatabase.TABLE_NAME_GAMES,
+            new String[]{GameDatabase.KEY_GAME_PATH, GameDatabase.KEY_GAME_FILE_SIZE,
+                    GameDatabase.KEY_GAME_LAST_MODIFIED},
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    while (cursor.moveToNext())
+    {
+      stamps.put(cursor.getString(0), new long[]{cursor.getLong(1), cursor.getLong(2)});
+    }
+
+    cursor.close();
+    return stamps;
+  }
+
+  private static boolean isModified(long[] stamp, long size, long lastModified)
+  {
+    return stamp == null || stamp[0] != size || stamp[1] != lastModified;
+  }
+
+  public static boolean isGameFile(String fileName)
+  {
+    int extensionStart = fileName.lastIndexOf('.');
+
+    // Check that the file has an extension we care about before trying to read out of it.
+    return extensionStart > 0 &&
+            ALLOWED_EXTENSIONS.contains(fileName.substring(extensionStart).toLowerCase());
+  }
+}
@@ -0,0 +1,91 @@
+package org.citra.citra_android.model;
+
+import android.database.Cursor;
+
+import org.citra.citra_android.ui.platform.Platform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every game in the library as it was at one point in time, already split by platform and
+ * sorted by title. Snapshots never change once built, so they can be read from any thread, and
+ * the game lists handed to the UI stay valid for as long as they are shown.
+ */
+public final class LibrarySnapshot
+{
+  public static final LibrarySnapshot EMPTY = new LibrarySnapshot(emptyLists());
+
+  // Indexed by Platform ordinal.
+  private final List<Game>[] mGames;
+
+  private LibrarySnapshot(List<Game>[] games)
+  {
+    mGames = games;
+  }
+
+  /**
+   * @return The platform's games, ordered by title, then row ID. The same List is returned by
+   * later snapshots for as long as none of the platform's games change, so comparing Lists by
+   * identity tells whether they need to be shown again.
+   */
+  public List<Game> getGames(Platform platform)
+  {
+    return mGames[platform.ordinal()];
+  }
+
+  /**
+   * Builds a snapshot from every row of a cursor read with {@link GameDatabase#readGameList()}.
+   * Platforms whose games are unchanged since the previous snapshot keep its List.
+   *
+   * @param previous The snapshot this one replaces.
+   * @return The new snapshot, or the previous one if no game changed at all.
+   */
+  public static LibrarySnapshot fromCursor(Cursor cursor, LibrarySnapshot previous)
+  {
+    List<List<Game>> loaded = new ArrayList<>();
+    for (int i = 0; i < Platform.values().length; i++)
+    {
+      loaded.add(new ArrayList<>());
+    }
+
+    cursor.moveToPosition(-1);
+    while (cursor.moveToNext())
+    {
+      Game game = Game.fromListCursor(cursor);
+      loaded.get(game.getPlatform().ordinal()).add(game);
+    }
+
+    List<Game>[] games = emptyLists();
+    boolean changed = false;
+
+    for (int i = 0; i < games.length; i++)
+    {
+      List<Game> previousGames = previous.mGames[i];
+      List<Game> platformGames = loaded.get(i);
+
+      if (platformGames.equals(previousGames))
+      {
+        games[i] = previousGames;
+      }
+      else
+      {
+        games[i] = Collections.unmodifiableList(
+                Arrays.asList(platformGames.toArray(new Game[platformGames.size()])));
+        changed = true;
+      }
+    }
+
+    return changed ? new LibrarySnapshot(games) : previous;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Game>[] emptyLists()
+  {
+    List<Game>[] games = new List[Platform.values().length];
+    Arrays.fill(games, Collections.<Game>emptyList());
+    return games;
+  }
+}
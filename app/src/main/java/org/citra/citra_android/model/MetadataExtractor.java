@@ -0,0 +1,197 @@
+package org.citra.citra_android.model;
+
+import org.citra.citra_android.utils.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The extraction stage of a library scan: fans the files out over a pool of worker threads sized
+ * to the core count, in batches so that each batch costs a single call to the
+ * {@link GameMetadataReader}, and hands the results to a {@link Sink} on the calling thread. It
+ * only depends on the reader and the sink, so the stage can run against a fake reader on a plain
+ * JVM.
+ */
+final class MetadataExtractor
+{
+  /**
+   * How many files each worker hands to the reader at once.
+   */
+  static final int BATCH_SIZE = 16;
+
+  /**
+   * Receives what became of each file.
+   */
+  interface Sink
+  {
+    /**
+     * Called on a worker thread before a file's metadata is read, so it must be thread-safe.
+     *
+     * @return false if the file doesn't need its metadata read, e.g. because it is a known game
+     * that moved.
+     */
+    boolean needsMetadata(File file);
+
+    /**
+     * Called on the thread running the extraction.
+     */
+    void onMetadataRead(File file, GameMetadata metadata);
+
+    /**
+     * Called on the thread running the extraction for each file that couldn't be read.
+     */
+    void onMetadataFailed(File file);
+  }
+
+  /**
+   * The files of one batch that needed reading, and what the reader made of them.
+   */
+  private static final class BatchResult
+  {
+    final List<File> files;
+    final GameMetadata[] metadata;
+
+    BatchResult(List<File> files, GameMetadata[] metadata)
+    {
+      this.files = files;
+      this.metadata = metadata;
+    }
+  }
+
+  private final GameMetadataReader mReader;
+
+  MetadataExtractor(GameMetadataReader reader)
+  {
+    mReader = reader;
+  }
+
+  /**
+   * Reads the metadata of all the files, passing each result to the sink as its batch completes.
+   *
+   * @param listener Notified after each batch. May be null.
+   * @return false if interrupted before every batch completed.
+   */
+  boolean extract(List<File> files, Sink sink, LibraryScanner.ProgressListener listener)
+  {
+    int total = files.size();
+    if (total == 0)
+    {
+      reportProgress(listener, 0, 0);
+      return true;
+    }
+
+    int batches = (total + BATCH_SIZE - 1) / BATCH_SIZE;
+    int threads = Math.min(batches, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CompletionService<BatchResult> completionService = new ExecutorCompletionService<>(executor);
+
+    // The files of each batch, in case the whole batch fails.
+    Map<Future<BatchResult>, List<File>> batchFiles = new HashMap<>();
+
+    for (int start = 0; start < total; start += BATCH_SIZE)
+    {
+      List<File> batch = files.subList(start, Math.min(start + BATCH_SIZE, total));
+      batchFiles.put(completionService.submit(() -> readBatch(batch, sink)), batch);
+    }
+
+    int completed = 0;
+    try
+    {
+      for (int i = 0; i < batches; i++)
+      {
+        Future<BatchResult> future = completionService.take();
+        try
+        {
+          deliver(future.get(), sink);
+        }
+        catch (ExecutionException e)
+        {
+          Log.error("[MetadataExtractor] Failed to read game metadata: " + e.getCause());
+          for (File file : batchFiles.get(future))
+          {
+            sink.onMetadataFailed(file);
+          }
+        }
+
+        completed = Math.min(completed + BATCH_SIZE, total);
+        reportProgress(listener, completed, total);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+    return true;
+  }
+
+  /**
+   * Runs on a worker thread.
+   */
+  private BatchResult readBatch(List<File> batch, Sink sink)
+  {
+    List<File> files = new ArrayList<>(batch.size());
+    for (File file : batch)
+    {
+      if (sink.needsMetadata(file))
+      {
+        files.add(file);
+      }
+    }
+
+    if (files.isEmpty())
+    {
+      return new BatchResult(files, new GameMetadata[0]);
+    }
+
+    String[] paths = new String[files.size()];
+    for (int i = 0; i < paths.length; i++)
+    {
+      paths[i] = files.get(i).getPath();
+    }
+
+    return new BatchResult(files, mReader.read(paths));
+  }
+
+  private static void deliver(BatchResult result, Sink sink)
+  {
+    for (int i = 0; i < result.files.size(); i++)
+    {
+      File file = result.files.get(i);
+      GameMetadata metadata = i < result.metadata.length ? result.metadata[i] : null;
+
+      if (metadata != null)
+      {
+        sink.onMetadataRead(file, metadata);
+      }
+      else
+      {
+        Log.error("[MetadataExtractor] Couldn't read game metadata: " + file.getPath());
+        sink.onMetadataFailed(file);
+      }
+    }
+  }
+
+  private static void reportProgress(LibraryScanner.ProgressListener listener, int completed,
+          int total)
+  {
+    if (listener != null)
+    {
+      listener.onScanProgress(completed, total);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package org.citra.citra_android.model;
+
+import org.citra.citra_android.NativeLibrary;
+
+/**
+ * Reads metadata with {@link NativeLibrary#GetGameMetadata(String[])}. A core built before that
+ * entry point was added doesn't export it; each file is then read with the per-field natives
+ * instead, as the scanner did before.
+ */
+final class NativeGameMetadataReader extends FallbackGameMetadataReader
+{
+  @Override
+  protected GameMetadata[] readBatch(String[] paths)
+  {
+    return NativeLibrary.GetGameMetadata(paths);
+  }
+
+  @Override
+  protected GameMetadata readFile(String path)
+  {
+    String title = NativeLibrary.GetTitle(path);
+    if (title == null)
+    {
+      return null;
+    }
+
+    return new GameMetadata(title,
+            NativeLibrary.GetDescription(path),
+            NativeLibrary.GetGameId(path),
+            NativeLibrary.GetCompany(path),
+            NativeLibrary.GetCountry(path),
+            NativeLibrary.GetPlatform(path),
+            NativeLibrary.GetFilesize(path));
+  }
+}
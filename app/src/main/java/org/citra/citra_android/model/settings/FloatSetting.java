@@ -17,7 +17,11 @@ public final class FloatSetting extends Setting
 
   public void setValue(float value)
   {
-    mValue = value;
+    if (mValue != value)
+    {
+      mValue = value;
+      markDirty();
+    }
   }
 
   @Override
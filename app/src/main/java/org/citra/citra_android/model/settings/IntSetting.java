@@ -17,7 +17,11 @@ public final class IntSetting extends Setting
 
   public void setValue(int value)
   {
-    mValue = value;
+    if (mValue != value)
+    {
+      mValue = value;
+      markDirty();
+    }
   }
 
   @Override
@@ -0,0 +1,85 @@
+package org.citra.citra_android.model.settings;
+
+/**
+ * The settings in effect for a game, resolved from three layers: the defaults declared in
+ * {@link SettingsSchema}, then the global config file, then the game's own settings file. The
+ * layers are merged once, when this is created, so every lookup is an array access.
+ * <p>
+ * Instances are immutable and never modify their layers, so unchanged layers are shared between
+ * instances rather than copied.
+ */
+public final class LayeredSettings
+{
+  private final SettingValues mGlobal;
+  private final SettingValues mGame;
+  private final SettingValues mEffective;
+
+  /**
+   * @param global The values of the global config file.
+   * @param game   The values of the game's settings file, or null if not resolving for a game.
+   */
+  public LayeredSettings(SettingValues global, SettingValues game)
+  {
+    mGlobal = global;
+    mGame = game;
+    mEffective = game != null ? global.overlay(game) : global;
+  }
+
+  /**
+   * @return Settings with the given layers, or this instance itself if they are the ones it
+   * already has, so that nothing is merged again unless a layer actually changed.
+   */
+  public LayeredSettings withLayers(SettingValues global, SettingValues game)
+  {
+    if (global == mGlobal && game == mGame)
+    {
+      return this;
+    }
+
+    return new LayeredSettings(global, game);
+  }
+
+  public SettingValues getGlobal()
+  {
+    return mGlobal;
+  }
+
+  /**
+   * @return The values of the game's settings file, or null if not resolving for a game.
+   */
+  public SettingValues getGame()
+  {
+    return mGame;
+  }
+
+  /**
+   * @return Whether the game's settings file sets the key, rather than it being inherited.
+   */
+  public boolean isOverridden(SettingKey key)
+  {
+    return mGame != null && mGame.isSet(key);
+  }
+
+  public int getInt(SettingKey key)
+  {
+    return mEffective.getInt(key);
+  }
+
+  public float getFloat(SettingKey key)
+  {
+    return mEffective.getFloat(key);
+  }
+
+  public String getString(SettingKey key)
+  {
+    return mEffective.getString(key);
+  }
+
+  /**
+   * @return The value in effect, as it would be written to a settings file.
+   */
+  public String getAsString(SettingKey key)
+  {
+    return mEffective.getAsString(key);
+  }
+}
@@ -12,6 +12,10 @@ public abstract class Setting
   private String mSection;
   private int mFile;
 
+  // Settings start out dirty, since a Setting that wasn't read from a file still has to be saved.
+  private boolean mDirty = true;
+  private SettingSection mParent;
+
   /**
    * Base constructor.
    *
@@ -54,4 +58,38 @@ public abstract class Setting
    * @return A representation of this Setting's backing value converted to a String (e.g. for serialization).
    */
   public abstract String getValueAsString();
+
+  /**
+   * @return Whether this Setting has changed since it was last read from or saved to its file.
+   */
+  public boolean isDirty()
+  {
+    return mDirty;
+  }
+
+  /**
+   * Marks this Setting as matching its file again, once it has been read or queued for saving.
+   */
+  public void clearDirty()
+  {
+    mDirty = false;
+  }
+
+  /**
+   * To be called by subclasses whenever their value changes.
+   */
+  protected void markDirty()
+  {
+    mDirty = true;
+
+    if (mParent != null)
+    {
+      mParent.markDirty();
+    }
+  }
+
+  void setParent(SettingSection parent)
+  {
+    mParent = parent;
+  }
 }
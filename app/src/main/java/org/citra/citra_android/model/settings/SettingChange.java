@@ -0,0 +1,56 @@
+package org.citra.citra_android.model.settings;
+
+/**
+ * A change to one declared settings key, as published once it is saved. The new value is read
+ * from the values the file had right after the change, so it is already typed.
+ */
+public final class SettingChange
+{
+  private final String mFileName;
+  private final SettingKey mKey;
+  private final SettingValues mValues;
+
+  /**
+   * @param fileName The settings file that changed, as passed to
+   *                 {@link org.citra.citra_android.utils.SettingsFile}.
+   * @param key      The key that changed.
+   * @param values   The values of the file after the change. Must not be modified afterwards.
+   */
+  public SettingChange(String fileName, SettingKey key, SettingValues values)
+  {
+    mFileName = fileName;
+    mKey = key;
+    mValues = values;
+  }
+
+  public String getFileName()
+  {
+    return mFileName;
+  }
+
+  public SettingKey getKey()
+  {
+    return mKey;
+  }
+
+  public int getInt()
+  {
+    return mValues.getInt(mKey);
+  }
+
+  public float getFloat()
+  {
+    return mValues.getFloat(mKey);
+  }
+
+  public String getString()
+  {
+    return mValues.getString(mKey);
+  }
+
+  @Override
+  public String toString()
+  {
+    return mFileName + ": " + mKey + " = " + mValues.getAsString(mKey);
+  }
+}
@@ -0,0 +1,131 @@
+package org.citra.citra_android.model.settings;
+
+/**
+ * The declaration of one key of the settings files: where it is stored, what type its value has,
+ * the value it takes when missing, and the range it must lie in. Every key is declared exactly
+ * once, in {@link SettingsSchema}, which also hands out its IDs.
+ */
+public final class SettingKey
+{
+  public static final int TYPE_INT = 0;
+  public static final int TYPE_FLOAT = 1;
+  public static final int TYPE_STRING = 2;
+
+  private final int mId;
+  private final int mSlot;
+
+  private final String mSection;
+  private final String mKey;
+  private final int mType;
+
+  private final int mDefaultInt;
+  private final float mDefaultFloat;
+  private final String mDefaultString;
+
+  private final float mMin;
+  private final float mMax;
+
+  SettingKey(int id, int slot, String section, String key, int type, int defaultInt,
+          float defaultFloat, String defaultString, float min, float max)
+  {
+    mId = id;
+    mSlot = slot;
+    mSection = section;
+    mKey = key;
+    mType = type;
+    mDefaultInt = defaultInt;
+    mDefaultFloat = defaultFloat;
+    mDefaultString = defaultString;
+    mMin = min;
+    mMax = max;
+  }
+
+  /**
+   * @return A small number identifying this key, unique among all keys and below
+   * {@link SettingsSchema#getKeyCount()}.
+   */
+  public int getId()
+  {
+    return mId;
+  }
+
+  /**
+   * @return The index of this key's value among the values of its type, below the count of keys
+   * of that type in {@link SettingsSchema}.
+   */
+  int getSlot()
+  {
+    return mSlot;
+  }
+
+  /**
+   * @return The name of the header under which this key is written in the ini file.
+   */
+  public String getSection()
+  {
+    return mSection;
+  }
+
+  /**
+   * @return The identifier used to write this key to the ini file.
+   */
+  public String getKey()
+  {
+    return mKey;
+  }
+
+  /**
+   * @return One of the TYPE_* constants.
+   */
+  public int getType()
+  {
+    return mType;
+  }
+
+  public int getDefaultInt()
+  {
+    return mDefaultInt;
+  }
+
+  public float getDefaultFloat()
+  {
+    return mDefaultFloat;
+  }
+
+  public String getDefaultString()
+  {
+    return mDefaultString;
+  }
+
+  public float getMin()
+  {
+    return mMin;
+  }
+
+  public float getMax()
+  {
+    return mMax;
+  }
+
+  /**
+   * @return The value, moved into this key's range if it lies outside.
+   */
+  public int clamp(int value)
+  {
+    return (int) Math.max(mMin, Math.min(mMax, value));
+  }
+
+  /**
+   * @return The value, moved into this key's range if it lies outside.
+   */
+  public float clamp(float value)
+  {
+    return Math.max(mMin, Math.min(mMax, value));
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[" + mSection + "] " + mKey;
+  }
+}
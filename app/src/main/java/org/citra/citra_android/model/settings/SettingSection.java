@@ -12,6 +12,8 @@ public final class SettingSection
 
   private HashMap<String, Setting> mSettings = new HashMap<>();
 
+  private boolean mDirty;
+
   /**
    * Create a new SettingSection with no Settings in it.
    *
@@ -35,6 +37,12 @@ public final class SettingSection
   public void putSetting(Setting setting)
   {
     mSettings.put(setting.getKey(), setting);
+    setting.setParent(this);
+
+    if (setting.isDirty())
+    {
+      mDirty = true;
+    }
   }
 
   /**
@@ -52,4 +60,31 @@ public final class SettingSection
   {
     return mSettings;
   }
+
+  /**
+   * @return Whether any Setting in this section has changed since it was last read from or
+   * saved to its file, so sections without changes can be skipped without looking at each key.
+   */
+  public boolean isDirty()
+  {
+    return mDirty;
+  }
+
+  /**
+   * Marks this section and all its Settings as matching the file again.
+   */
+  public void clearDirty()
+  {
+    for (Setting setting : mSettings.values())
+    {
+      setting.clearDirty();
+    }
+
+    mDirty = false;
+  }
+
+  void markDirty()
+  {
+    mDirty = true;
+  }
 }
@@ -0,0 +1,219 @@
+package org.citra.citra_android.model.settings;
+
+import org.citra.citra_android.utils.IniFile;
+import org.citra.citra_android.utils.Log;
+
+/**
+ * The values of every key declared in {@link SettingsSchema}, kept in one primitive array per
+ * type and indexed by each key's ID, so reading a value is an array access with no hashing or
+ * boxing. Keys that were never set read as their declared default.
+ */
+public final class SettingValues
+{
+  private final int[] mInts = new int[SettingsSchema.getKeyCount(SettingKey.TYPE_INT)];
+  private final float[] mFloats = new float[SettingsSchema.getKeyCount(SettingKey.TYPE_FLOAT)];
+  private final String[] mStrings =
+          new String[SettingsSchema.getKeyCount(SettingKey.TYPE_STRING)];
+
+  // Indexed by key ID.
+  private final boolean[] mSet = new boolean[SettingsSchema.getKeyCount()];
+
+  public SettingValues()
+  {
+  }
+
+  public SettingValues(SettingValues other)
+  {
+    System.arraycopy(other.mInts, 0, mInts, 0, mInts.length);
+    System.arraycopy(other.mFloats, 0, mFloats, 0, mFloats.length);
+    System.arraycopy(other.mStrings, 0, mStrings, 0, mStrings.length);
+    System.arraycopy(other.mSet, 0, mSet, 0, mSet.length);
+  }
+
+  /**
+   * Reads the values of every declared key found in a settings file. Values that don't fit their
+   * key's type are left unset, and so read as the default.
+   */
+  public static SettingValues fromIni(IniFile ini)
+  {
+    SettingValues values = new SettingValues();
+
+    ini.visitEntries((section, key, value) ->
+    {
+      SettingKey settingKey = SettingsSchema.find(section, key);
+      if (settingKey != null && !value.isEmpty() && !values.setFromString(settingKey, value))
+      {
+        Log.warning("[SettingValues] Ignoring invalid value for " + settingKey + ": " + value);
+      }
+    });
+
+    return values;
+  }
+
+  /**
+   * @return Whether no key was given a value, so that every key reads as its default.
+   */
+  public boolean isEmpty()
+  {
+    for (boolean set : mSet)
+    {
+      if (set)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Layers other values on top of these ones. Neither is modified: values that were handed out
+   * are never changed, so they can be shared between layers.
+   *
+   * @param top The values that take precedence wherever they are set.
+   * @return These values with every key set in top replaced by its value there. This instance
+   * itself if top sets nothing, so a layer without overrides costs no copy.
+   */
+  public SettingValues overlay(SettingValues top)
+  {
+    if (top.isEmpty())
+    {
+      return this;
+    }
+
+    SettingValues merged = new SettingValues(this);
+
+    for (int id = 0; id < mSet.length; id++)
+    {
+      if (!top.mSet[id])
+      {
+        continue;
+      }
+
+      SettingKey key = SettingsSchema.get(id);
+      int slot = key.getSlot();
+
+      switch (key.getType())
+      {
+        case SettingKey.TYPE_INT:
+          merged.mInts[slot] = top.mInts[slot];
+          break;
+
+        case SettingKey.TYPE_FLOAT:
+          merged.mFloats[slot] = top.mFloats[slot];
+          break;
+
+        default:
+          merged.mStrings[slot] = top.mStrings[slot];
+          break;
+      }
+
+      merged.mSet[id] = true;
+    }
+
+    return merged;
+  }
+
+  /**
+   * @return Whether the key was given a value, rather than reading as its default.
+   */
+  public boolean isSet(SettingKey key)
+  {
+    return mSet[key.getId()];
+  }
+
+  public int getInt(SettingKey key)
+  {
+    return mSet[key.getId()] ? mInts[key.getSlot()] : key.getDefaultInt();
+  }
+
+  public float getFloat(SettingKey key)
+  {
+    return mSet[key.getId()] ? mFloats[key.getSlot()] : key.getDefaultFloat();
+  }
+
+  public String getString(SettingKey key)
+  {
+    return mSet[key.getId()] ? mStrings[key.getSlot()] : key.getDefaultString();
+  }
+
+  /**
+   * @return The value as it would be written to a settings file.
+   */
+  public String getAsString(SettingKey key)
+  {
+    switch (key.getType())
+    {
+      case SettingKey.TYPE_INT:
+        return Integer.toString(getInt(key));
+
+      case SettingKey.TYPE_FLOAT:
+        return Float.toString(getFloat(key));
+
+      default:
+        return getString(key);
+    }
+  }
+
+  /**
+   * Sets an int key's value, clamped to the key's range.
+   */
+  public void setInt(SettingKey key, int value)
+  {
+    mInts[key.getSlot()] = key.clamp(value);
+    mSet[key.getId()] = true;
+  }
+
+  /**
+   * Sets a float key's value, clamped to the key's range.
+   */
+  public void setFloat(SettingKey key, float value)
+  {
+    mFloats[key.getSlot()] = key.clamp(value);
+    mSet[key.getId()] = true;
+  }
+
+  public void setString(SettingKey key, String value)
+  {
+    mStrings[key.getSlot()] = value;
+    mSet[key.getId()] = true;
+  }
+
+  /**
+   * Makes the key read as its default again.
+   */
+  public void unset(SettingKey key)
+  {
+    mSet[key.getId()] = false;
+  }
+
+  /**
+   * Sets a key from text, as found in a settings file or a {@link Setting}.
+   *
+   * @return Whether the text was a valid value for the key's type.
+   */
+  public boolean setFromString(SettingKey key, String value)
+  {
+    switch (key.getType())
+    {
+      case SettingKey.TYPE_INT:
+        if (!IniFile.isInt(value))
+        {
+          return false;
+        }
+        setInt(key, Integer.parseInt(value));
+        return true;
+
+      case SettingKey.TYPE_FLOAT:
+        if (!IniFile.isFloat(value))
+        {
+          return false;
+        }
+        setFloat(key, Float.parseFloat(value));
+        return true;
+
+      default:
+        setString(key, value);
+        return true;
+    }
+  }
+}
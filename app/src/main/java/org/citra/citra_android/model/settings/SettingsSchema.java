@@ -0,0 +1,161 @@
+package org.citra.citra_android.model.settings;
+
+import org.citra.citra_android.utils.SettingsFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Declares the section, type, default value and range of every settings key the app knows
+ * about. Keys are numbered as they are declared, so their values can be kept in arrays indexed by
+ * those numbers (see {@link SettingValues}) instead of being looked up by name. Looking a key up
+ * by name is only needed while parsing a file.
+ */
+public final class SettingsSchema
+{
+  private static final ArrayList<SettingKey> sKeys = new ArrayList<>();
+  private static final HashMap<String, SettingKey> sKeysByName = new HashMap<>();
+
+  // How many keys of each type were declared so far, indexed by type.
+  private static final int[] sTypeCounts = new int[3];
+
+  // Core
+  public static final SettingKey CPU_JIT =
+          declareInt(SettingsFile.SECTION_CORE, SettingsFile.KEY_CPU_JIT, 1, 0, 1);
+
+  // Renderer
+  public static final SettingKey HW_RENDERER =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_HW_RENDERER, 1, 0, 1);
+  public static final SettingKey HW_SHADER =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_HW_SHADER, 1, 0, 1);
+  public static final SettingKey SHADERS_ACCURATE_MUL = declareInt(SettingsFile.SECTION_RENDERER,
+          SettingsFile.KEY_SHADERS_ACCURATE_MUL, 0, 0, 1);
+  public static final SettingKey SHADERS_ACCURATE_GS = declareInt(SettingsFile.SECTION_RENDERER,
+          SettingsFile.KEY_SHADERS_ACCURATE_GS, 0, 0, 1);
+  public static final SettingKey USE_SHADER_JIT =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_USE_SHADER_JIT, 1, 0, 1);
+  public static final SettingKey USE_VSYNC =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_USE_VSYNC, 0, 0, 1);
+  public static final SettingKey RESOLUTION_FACTOR = declareInt(SettingsFile.SECTION_RENDERER,
+          SettingsFile.KEY_RESOLUTION_FACTOR, 0, 0, 10);
+  public static final SettingKey FRAME_LIMIT_ENABLED = declareInt(SettingsFile.SECTION_RENDERER,
+          SettingsFile.KEY_FRAME_LIMIT_ENABLED, 0, 0, 1);
+  public static final SettingKey FRAME_LIMIT =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_FRAME_LIMIT, 100, 0, 500);
+  public static final SettingKey BACKGROUND_RED =
+          declareFloat(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_BACKGROUND_RED, 0, 0, 1);
+  public static final SettingKey BACKGROUND_GREEN =
+          declareFloat(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_BACKGROUND_GREEN, 0, 0, 1);
+  public static final SettingKey BACKGROUND_BLUE =
+          declareFloat(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_BACKGROUND_BLUE, 0, 0, 1);
+  public static final SettingKey STEREOSCOPY =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_STEREOSCOPY, 0, 0, 1);
+  public static final SettingKey FACTOR_3D =
+          declareInt(SettingsFile.SECTION_RENDERER, SettingsFile.KEY_FACTOR_3D, 0, 0, 100);
+
+  // Layout
+  public static final SettingKey LAYOUT_OPTION =
+          declareInt(SettingsFile.SECTION_LAYOUT, SettingsFile.KEY_LAYOUT_OPTION, 0, 0, 3);
+  public static final SettingKey SWAP_SCREEN =
+          declareInt(SettingsFile.SECTION_LAYOUT, SettingsFile.KEY_SWAP_SCREEN, 0, 0, 1);
+
+  // Audio
+  public static final SettingKey AUDIO_OUTPUT_ENGINE = declareString(SettingsFile.SECTION_AUDIO,
+          SettingsFile.KEY_AUDIO_OUTPUT_ENGINE, "auto");
+  public static final SettingKey ENABLE_AUDIO_STRETCHING = declareInt(SettingsFile.SECTION_AUDIO,
+          SettingsFile.KEY_ENABLE_AUDIO_STRETCHING, 0, 0, 1);
+  public static final SettingKey VOLUME =
+          declareFloat(SettingsFile.SECTION_AUDIO, SettingsFile.KEY_VOLUME, 1, 0, 1);
+
+  // System
+  public static final SettingKey IS_NEW_3DS =
+          declareInt(SettingsFile.SECTION_SYSTEM, SettingsFile.KEY_IS_NEW_3DS, 0, 0, 1);
+  public static final SettingKey REGION_VALUE =
+          declareInt(SettingsFile.SECTION_SYSTEM, SettingsFile.KEY_REGION_VALUE, -1, -1, 6);
+  public static final SettingKey INIT_CLOCK =
+          declareInt(SettingsFile.SECTION_SYSTEM, SettingsFile.KEY_INIT_CLOCK, 0, 0, 1);
+  public static final SettingKey INIT_TIME = declareString(SettingsFile.SECTION_SYSTEM,
+          SettingsFile.KEY_INIT_TIME, "2000-01-01 00:00:01");
+
+  // Camera
+  public static final SettingKey CAMERA_OUTER_RIGHT_NAME = declareString(
+          SettingsFile.SECTION_CAMERA, SettingsFile.KEY_CAMERA_OUTER_RIGHT_NAME, "blank");
+  public static final SettingKey CAMERA_OUTER_RIGHT_CONFIG = declareString(
+          SettingsFile.SECTION_CAMERA, SettingsFile.KEY_CAMERA_OUTER_RIGHT_CONFIG, "");
+  public static final SettingKey CAMERA_OUTER_RIGHT_FLIP = declareInt(SettingsFile.SECTION_CAMERA,
+          SettingsFile.KEY_CAMERA_OUTER_RIGHT_FLIP, 0, 0, 3);
+  public static final SettingKey CAMERA_OUTER_LEFT_FLIP = declareInt(SettingsFile.SECTION_CAMERA,
+          SettingsFile.KEY_CAMERA_OUTER_LEFT_FLIP, 0, 0, 3);
+  public static final SettingKey CAMERA_INNER_NAME = declareString(SettingsFile.SECTION_CAMERA,
+          SettingsFile.KEY_CAMERA_INNER_NAME, "blank");
+  public static final SettingKey CAMERA_INNER_CONFIG = declareString(SettingsFile.SECTION_CAMERA,
+          SettingsFile.KEY_CAMERA_INNER_CONFIG, "");
+  public static final SettingKey CAMERA_INNER_FLIP = declareInt(SettingsFile.SECTION_CAMERA,
+          SettingsFile.KEY_CAMERA_INNER_FLIP, 0, 0, 3);
+
+  // Miscellaneous
+  public static final SettingKey LOG_FILTER =
+          declareString(SettingsFile.SECTION_MISC, SettingsFile.KEY_LOG_FILTER, "*:Info");
+
+  private SettingsSchema()
+  {
+  }
+
+  /**
+   * @return The declaration of a key, or null if the key isn't declared. Uses a hash lookup, so
+   * only call this where the key is only known by name, such as while parsing a file.
+   */
+  public static SettingKey find(String section, String key)
+  {
+    return sKeysByName.get(section + '\n' + key);
+  }
+
+  /**
+   * @return The key with the given ID.
+   */
+  public static SettingKey get(int id)
+  {
+    return sKeys.get(id);
+  }
+
+  public static int getKeyCount()
+  {
+    return sKeys.size();
+  }
+
+  /**
+   * @return The number of keys of one of the {@link SettingKey} TYPE_* constants.
+   */
+  public static int getKeyCount(int type)
+  {
+    return sTypeCounts[type];
+  }
+
+  private static SettingKey declareInt(String section, String key, int defaultValue, int min,
+          int max)
+  {
+    return declare(section, key, SettingKey.TYPE_INT, defaultValue, 0, null, min, max);
+  }
+
+  private static SettingKey declareFloat(String section, String key, float defaultValue,
+          float min, float max)
+  {
+    return declare(section, key, SettingKey.TYPE_FLOAT, 0, defaultValue, null, min, max);
+  }
+
+  private static SettingKey declareString(String section, String key, String defaultValue)
+  {
+    return declare(section, key, SettingKey.TYPE_STRING, 0, 0, defaultValue, 0, 0);
+  }
+
+  private static SettingKey declare(String section, String key, int type, int defaultInt,
+          float defaultFloat, String defaultString, float min, float max)
+  {
+    SettingKey settingKey = new SettingKey(sKeys.size(), sTypeCounts[type]++, section, key, type,
+            defaultInt, defaultFloat, defaultString, min, max);
+
+    sKeys.add(settingKey);
+    sKeysByName.put(section + '\n' + key, settingKey);
+    return settingKey;
+  }
+}
@@ -1,5 +1,7 @@
 package org.citra.citra_android.model.settings;
 
+import android.text.TextUtils;
+
 public final class StringSetting extends Setting
 {
   private String mValue;
@@ -17,7 +19,11 @@ public final class StringSetting extends Setting
 
   public void setValue(String value)
   {
-    mValue = value;
+    if (!TextUtils.equals(mValue, value))
+    {
+      mValue = value;
+      markDirty();
+    }
   }
 
   @Override
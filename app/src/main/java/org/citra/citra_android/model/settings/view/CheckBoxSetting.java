@@ -2,6 +2,8 @@ package org.citra.citra_android.model.settings.view;
 
 import org.citra.citra_android.model.settings.IntSetting;
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingsSchema;
 
 public final class CheckBoxSetting extends SettingsItem
 {
@@ -14,6 +16,16 @@ public final class CheckBoxSetting extends SettingsItem
     mDefaultValue = defaultValue;
   }
 
+  /**
+   * Creates a checkbox for a key declared in {@link SettingsSchema}, which is checked by default
+   * if the key's default is 1.
+   */
+  public CheckBoxSetting(SettingKey key, int file, int titleId, int descriptionId, Setting setting)
+  {
+    this(key.getKey(), key.getSection(), file, titleId, descriptionId, key.getDefaultInt() == 1,
+            setting);
+  }
+
   public boolean isChecked()
   {
     if (getSetting() == null)
@@ -1,6 +1,8 @@
 package org.citra.citra_android.model.settings.view;
 
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingsSchema;
 import org.citra.citra_android.model.settings.StringSetting;
 
 public final class DateTimeSetting extends SettingsItem
@@ -14,6 +16,17 @@ public final class DateTimeSetting extends SettingsItem
         mDefaultValue = defaultValue;
     }
 
+    /**
+     * Creates a date and time picker for a string key declared in {@link SettingsSchema}, which
+     * starts at its default.
+     */
+    public DateTimeSetting(SettingKey key, int file, int titleId, int descriptionId,
+                           Setting setting)
+    {
+        this(key.getKey(), key.getSection(), file, titleId, descriptionId, key.getDefaultString(),
+                setting);
+    }
+
     public String getValue()
     {
         if (getSetting() != null)
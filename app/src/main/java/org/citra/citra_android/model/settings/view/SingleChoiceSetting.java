@@ -2,6 +2,8 @@ package org.citra.citra_android.model.settings.view;
 
 import org.citra.citra_android.model.settings.IntSetting;
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingsSchema;
 
 public final class SingleChoiceSetting extends SettingsItem
 {
@@ -19,6 +21,17 @@ public final class SingleChoiceSetting extends SettingsItem
     mDefaultValue = defaultValue;
   }
 
+  /**
+   * Creates a choice for an int key declared in {@link SettingsSchema}, which starts at its
+   * default.
+   */
+  public SingleChoiceSetting(SettingKey key, int file, int titleId, int descriptionId,
+          int choicesId, int valuesId, Setting setting)
+  {
+    this(key.getKey(), key.getSection(), file, titleId, descriptionId, choicesId, valuesId,
+            key.getDefaultInt(), setting);
+  }
+
   public int getChoicesId()
   {
     return mChoicesId;
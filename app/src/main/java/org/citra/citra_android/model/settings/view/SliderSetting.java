@@ -3,6 +3,8 @@ package org.citra.citra_android.model.settings.view;
 import org.citra.citra_android.model.settings.FloatSetting;
 import org.citra.citra_android.model.settings.IntSetting;
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingsSchema;
 import org.citra.citra_android.utils.Log;
 import org.citra.citra_android.utils.SettingsFile;
 
@@ -22,6 +24,17 @@ public final class SliderSetting extends SettingsItem
     mDefaultValue = defaultValue;
   }
 
+  /**
+   * Creates a slider for an int key declared in {@link SettingsSchema}, which goes up to the
+   * key's maximum and starts at its default.
+   */
+  public SliderSetting(SettingKey key, int file, int titleId, int descriptionId, String units,
+          Setting setting)
+  {
+    this(key.getKey(), key.getSection(), file, titleId, descriptionId, (int) key.getMax(), units,
+            key.getDefaultInt(), setting);
+  }
+
   public int getMax()
   {
     return mMax;
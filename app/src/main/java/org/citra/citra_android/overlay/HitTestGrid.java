@@ -0,0 +1,171 @@
+package org.citra.citra_android.overlay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A uniform grid over the area covered by the overlay controls, so that the controls under a touch
+ * are found by looking up the one cell it falls in, rather than by testing the bounds of every
+ * control. The grid is built from the bounds the controls were added with, and has to be built
+ * again whenever one of them moves.
+ * <p>
+ * Bounds are plain coordinates rather than {@link android.graphics.Rect}s, so the grid can be
+ * tested on the JVM.
+ */
+final class HitTestGrid<T>
+{
+  // Cells are a fraction of the smallest control, so that each cell overlaps only a few controls.
+  private static final int CELLS_PER_CONTROL = 2;
+  private static final int MIN_CELL_SIZE = 16;
+
+  private static final class Entry<T>
+  {
+    final T item;
+    final int left;
+    final int top;
+    final int right;
+    final int bottom;
+
+    Entry(T item, int left, int top, int right, int bottom)
+    {
+      this.item = item;
+      this.left = left;
+      this.top = top;
+      this.right = right;
+      this.bottom = bottom;
+    }
+
+    boolean isEmpty()
+    {
+      return left >= right || top >= bottom;
+    }
+  }
+
+  private final ArrayList<Entry<T>> mEntries = new ArrayList<>();
+
+  private final ArrayList<List<T>> mCells = new ArrayList<>();
+  private int mLeft;
+  private int mTop;
+  private int mColumns;
+  private int mRows;
+  private int mCellSize = MIN_CELL_SIZE;
+
+  /**
+   * Removes all controls. Takes effect with the next {@link #build()}.
+   */
+  public void clear()
+  {
+    mEntries.clear();
+  }
+
+  /**
+   * Adds a control with the given bounds, whose right and bottom edges are exclusive as in a
+   * {@link android.graphics.Rect}. Takes effect with the next {@link #build()}.
+   */
+  public void add(T item, int left, int top, int right, int bottom)
+  {
+    mEntries.add(new Entry<>(item, left, top, right, bottom));
+  }
+
+  /**
+   * Sorts the controls into the cells their bounds overlap.
+   */
+  public void build()
+  {
+    mCells.clear();
+    mColumns = 0;
+    mRows = 0;
+
+    if (mEntries.isEmpty())
+    {
+      return;
+    }
+
+    int left = Integer.MAX_VALUE;
+    int top = Integer.MAX_VALUE;
+    int right = Integer.MIN_VALUE;
+    int bottom = Integer.MIN_VALUE;
+    int smallest = Integer.MAX_VALUE;
+
+    for (Entry<T> bounds : mEntries)
+    {
+      left = Math.min(left, bounds.left);
+      top = Math.min(top, bounds.top);
+      right = Math.max(right, bounds.right);
+      bottom = Math.max(bottom, bounds.bottom);
+      smallest = Math.min(smallest,
+              Math.min(bounds.right - bounds.left, bounds.bottom - bounds.top));
+    }
+
+    mLeft = left;
+    mTop = top;
+    mCellSize = Math.max(MIN_CELL_SIZE, smallest / CELLS_PER_CONTROL);
+    mColumns = (right - left + mCellSize - 1) / mCellSize;
+    mRows = (bottom - top + mCellSize - 1) / mCellSize;
+
+    ArrayList<ArrayList<T>> cells = new ArrayList<>(mColumns * mRows);
+    for (int i = 0; i < mColumns * mRows; i++)
+    {
+      cells.add(null);
+    }
+
+    for (Entry<T> bounds : mEntries)
+    {
+      if (bounds.isEmpty())
+      {
+        continue;
+      }
+
+      int firstColumn = (bounds.left - mLeft) / mCellSize;
+      int lastColumn = (bounds.right - 1 - mLeft) / mCellSize;
+      int firstRow = (bounds.top - mTop) / mCellSize;
+      int lastRow = (bounds.bottom - 1 - mTop) / mCellSize;
+
+      for (int row = firstRow; row <= lastRow; row++)
+      {
+        for (int column = firstColumn; column <= lastColumn; column++)
+        {
+          int index = row * mColumns + column;
+
+          ArrayList<T> cell = cells.get(index);
+          if (cell == null)
+          {
+            cell = new ArrayList<>(1);
+            cells.set(index, cell);
+          }
+
+          cell.add(bounds.item);
+        }
+      }
+    }
+
+    for (ArrayList<T> cell : cells)
+    {
+      mCells.add(cell != null ? cell : Collections.emptyList());
+    }
+  }
+
+  /**
+   * @return The controls whose bounds may contain the point, in no particular order. They still
+   * have to be checked against their bounds, since a cell can be only partly covered by a
+   * control. Not to be modified.
+   */
+  public List<T> getCandidates(int x, int y)
+  {
+    if (x < mLeft || y < mTop)
+    {
+      return Collections.emptyList();
+    }
+
+    int column = (x - mLeft) / mCellSize;
+    int row = (y - mTop) / mCellSize;
+
+    if (column >= mColumns || row >= mRows)
+    {
+      return Collections.emptyList();
+    }
+
+    return mCells.get(row * mColumns + column);
+  }
+}
@@ -10,38 +10,47 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.res.Resources;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.preference.PreferenceManager;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.SurfaceView;
 import android.view.View;
 import android.view.Display;
 import android.view.View.OnTouchListener;
 
-import org.citra.citra_android.NativeLibrary;
-import org.citra.citra_android.NativeLibrary.ButtonState;
 import org.citra.citra_android.NativeLibrary.ButtonType;
 import org.citra.citra_android.R;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Draws the interactive input overlay on top of the
  * {@link SurfaceView} that is rendering emulation.
+ * <p>
+ * The overlay has a surface of its own, which an {@link OverlayRenderer} draws on from a separate
+ * thread. Touches are handled on the UI thread, which only records what the controls look like
+ * afterwards.
  */
 public final class InputOverlay extends SurfaceView implements OnTouchListener
 {
+  // Stands for the 3DS touchscreen in mPointerOwners.
+  private static final Object OWNER_TOUCHSCREEN = new Object();
+
   private final Set<InputOverlayDrawableButton> overlayButtons = new HashSet<>();
   private final Set<InputOverlayDrawableDpad> overlayDpads = new HashSet<>();
   private final Set<InputOverlayDrawableJoystick> overlayJoysticks = new HashSet<>();
 
+  private final HitTestGrid<InputOverlayDrawableButton> mButtonGrid = new HitTestGrid<>();
+  private final HitTestGrid<InputOverlayDrawableDpad> mDpadGrid = new HitTestGrid<>();
+  private final HitTestGrid<InputOverlayDrawableJoystick> mJoystickGrid = new HitTestGrid<>();
+
   private boolean mIsInEditMode = false;
   private InputOverlayDrawableButton mButtonBeingConfigured;
   private InputOverlayDrawableDpad mDpadBeingConfigured;
@@ -49,25 +58,36 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
 
   private SharedPreferences mPreferences;
 
+  private final InputRing mInputRing = InputRing.getInstance();
+
+  // What each pointer that is down controls, by pointer ID: a control, or the touchscreen.
+  private final SparseArray<Object> mPointerOwners = new SparseArray<>();
+
+  // The images of all controls, rebuilt with them.
+  private OverlayAtlas mAtlas;
+
+  private final OverlayRenderer mRenderer = new OverlayRenderer();
+  private final OverlayFrame mFrame = new OverlayFrame();
+
+  // The area whose controls changed their looks since it was last redrawn.
+  private final Rect mDirtyRect = new Rect();
+  private final Rect mJoystickBounds = new Rect();
+
   /**
-   * Resizes a {@link Bitmap} by a given scale factor
+   * Gets the size of a control drawn at a given scale factor
    *
    * @param context The current {@link Context}
-   * @param bitmap  The {@link Bitmap} to scale.
-   * @param scale   The scale factor for the bitmap.
-   * @return The scaled {@link Bitmap}
+   * @param scale   The scale factor for the control.
+   * @return The width and height of the control, in pixels.
    */
-  public static Bitmap resizeBitmap(Context context, Bitmap bitmap, float scale)
+  public static int getControlSize(Context context, float scale)
   {
     // Determine the button size based on the smaller screen dimension.
     // This makes sure the buttons are the same size in both portrait and landscape.
     DisplayMetrics dm = context.getResources().getDisplayMetrics();
     int minDimension = Math.min(dm.widthPixels, dm.heightPixels);
 
-    return Bitmap.createScaledBitmap(bitmap,
-            (int) (minDimension * scale),
-            (int) (minDimension * scale),
-            true);
+    return (int) (minDimension * scale);
   }
 
   /**
@@ -80,6 +100,11 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
   {
     super(context, attrs);
 
+    // Draw the controls on a transparent surface between the emulation and the window.
+    getHolder().setFormat(PixelFormat.TRANSLUCENT);
+    getHolder().addCallback(mRenderer);
+    setZOrderMediaOverlay(true);
+
     mPreferences = PreferenceManager.getDefaultSharedPreferences(getContext());
     	if(!mPreferences.getBoolean("OverlayInit", false))
 	    defaultOverlay();
@@ -89,32 +114,59 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     // Set the on touch listener.
     setOnTouchListener(this);
 
-    // Force draw
-    setWillNotDraw(false);
-
     // Request focus for the overlay so it has priority on presses.
     requestFocus();
   }
 
   @Override
-  public void draw(Canvas canvas)
+  protected void onAttachedToWindow()
+  {
+    super.onAttachedToWindow();
+    mRenderer.start();
+  }
+
+  @Override
+  protected void onDetachedFromWindow()
+  {
+    // Destroys the surface first, so the renderer is done drawing by the time it is stopped.
+    super.onDetachedFromWindow();
+    mRenderer.quit();
+  }
+
+  /**
+   * Records what the controls look like now and hands that to the render thread.
+   *
+   * @param dirty The area that changed since the last call, or null if anything may have.
+   */
+  private void render(Rect dirty)
   {
-    super.draw(canvas);
+    mFrame.reset(mAtlas);
 
     for (InputOverlayDrawableButton button : overlayButtons)
     {
-      button.draw(canvas);
+      button.draw(mFrame);
     }
 
     for (InputOverlayDrawableDpad dpad : overlayDpads)
     {
-      dpad.draw(canvas);
+      dpad.draw(mFrame);
     }
 
     for (InputOverlayDrawableJoystick joystick : overlayJoysticks)
     {
-      joystick.draw(canvas);
+      joystick.draw(mFrame);
     }
+
+    if (dirty != null)
+    {
+      mFrame.getDirty().set(dirty);
+    }
+    else
+    {
+      mFrame.getDirty().set(0, 0, getWidth(), getHeight());
+    }
+
+    mRenderer.submit(mFrame);
   }
 
   @Override
@@ -126,130 +178,228 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     }
 
     int pointerIndex = event.getActionIndex();
+    int pointerId = event.getPointerId(pointerIndex);
 
-    if (mPreferences.getBoolean("isTouchEnabled", true))
+    switch (event.getAction() & MotionEvent.ACTION_MASK)
     {
-      switch (event.getAction())
+      case MotionEvent.ACTION_DOWN:
+      case MotionEvent.ACTION_POINTER_DOWN:
+        onPointerDown(pointerId, event.getX(pointerIndex), event.getY(pointerIndex));
+        break;
+
+      case MotionEvent.ACTION_MOVE:
+        // A move carries every pointer; each one only affects what it owns.
+        for (int i = 0; i < event.getPointerCount(); i++)
+        {
+          onPointerMove(event, i);
+        }
+        break;
+
+      case MotionEvent.ACTION_UP:
+      case MotionEvent.ACTION_POINTER_UP:
+        onPointerUp(pointerId);
+        break;
+
+      case MotionEvent.ACTION_CANCEL:
+        while (mPointerOwners.size() > 0)
+        {
+          onPointerUp(mPointerOwners.keyAt(0));
+        }
+        break;
+    }
+
+    // Everything this event changed reaches the native side in one call.
+    mInputRing.commit();
+
+    // Only the controls that look different need to be drawn again.
+    if (!mDirtyRect.isEmpty())
+    {
+      render(mDirtyRect);
+      mDirtyRect.setEmpty();
+    }
+
+    return true;
+  }
+
+  /**
+   * Gives a pointer that went down to the control under it, or to the touchscreen if there is
+   * none. A pointer keeps its owner until it goes up, wherever it moves in the meantime.
+   */
+  private void onPointerDown(int pointerId, float x, float y)
+  {
+    int touchX = (int) x;
+    int touchY = (int) y;
+
+    // Only the controls sharing the pointer's grid cell can be under it.
+    List<InputOverlayDrawableJoystick> joysticks = mJoystickGrid.getCandidates(touchX, touchY);
+    for (int i = 0; i < joysticks.size(); i++)
+    {
+      InputOverlayDrawableJoystick joystick = joysticks.get(i);
+      if (joystick.getBounds().contains(touchX, touchY) && !isOwned(joystick))
       {
-        case MotionEvent.ACTION_DOWN:
-        case MotionEvent.ACTION_POINTER_DOWN:
-          NativeLibrary.onTouchEvent(event.getX(pointerIndex), event.getY(pointerIndex), true);
-          break;
-        case MotionEvent.ACTION_MOVE:
-          NativeLibrary.onTouchMoved(event.getX(), event.getY());
-          break;
-        case MotionEvent.ACTION_UP:
-        case MotionEvent.ACTION_POINTER_UP:
-          // We dont really care where the touch has been released. We only care whether it has been
-          // released or not.
-          NativeLibrary.onTouchEvent(0, 0, false);
-          break;
+        mPointerOwners.put(pointerId, joystick);
+        invalidateJoystick(joystick);
+        joystick.onPointerDown(x, y);
+        invalidateJoystick(joystick);
+        putStick(joystick);
+        return;
       }
     }
 
-    for (InputOverlayDrawableButton button : overlayButtons)
+    List<InputOverlayDrawableDpad> dpads = mDpadGrid.getCandidates(touchX, touchY);
+    for (int i = 0; i < dpads.size(); i++)
     {
-      // Determine the button state to apply based on the MotionEvent action flag.
-      switch (event.getAction() & MotionEvent.ACTION_MASK)
+      InputOverlayDrawableDpad dpad = dpads.get(i);
+      if (dpad.getBounds().contains(touchX, touchY) && !isOwned(dpad))
       {
-        case MotionEvent.ACTION_DOWN:
-        case MotionEvent.ACTION_POINTER_DOWN:
-          // If a pointer enters the bounds of a button, press that button.
-          if (button.getBounds()
-                  .contains((int) event.getX(pointerIndex), (int) event.getY(pointerIndex)))
-          {
-            button.setPressedState(true);
-            button.setTrackId(event.getPointerId(pointerIndex));
-            NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, button.getId(),
-                    ButtonState.PRESSED);
-          }
-          break;
-        case MotionEvent.ACTION_UP:
-        case MotionEvent.ACTION_POINTER_UP:
-          // If a pointer ends, release the button it was pressing.
-          if (button.getTrackId() == event.getPointerId(pointerIndex))
-          {
-            button.setPressedState(false);
-            NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, button.getId(),
-                    ButtonState.RELEASED);
-          }
-          break;
+        mPointerOwners.put(pointerId, dpad);
+        updateDpad(dpad, touchX, touchY);
+        return;
       }
     }
 
-    for (InputOverlayDrawableDpad dpad : overlayDpads)
+    List<InputOverlayDrawableButton> buttons = mButtonGrid.getCandidates(touchX, touchY);
+    for (int i = 0; i < buttons.size(); i++)
     {
-      // Determine the button state to apply based on the MotionEvent action flag.
-      switch (event.getAction() & MotionEvent.ACTION_MASK)
+      InputOverlayDrawableButton button = buttons.get(i);
+      if (button.getBounds().contains(touchX, touchY))
       {
-        case MotionEvent.ACTION_DOWN:
-        case MotionEvent.ACTION_POINTER_DOWN:
-          // If a pointer enters the bounds of a button, press that button.
-          if (dpad.getBounds()
-                  .contains((int) event.getX(pointerIndex), (int) event.getY(pointerIndex)))
-          {
-            boolean up = false;
-            boolean down = false;
-            boolean left = false;
-            boolean right = false;
-            if (dpad.getBounds().top + (dpad.getHeight() / 3) > (int) event.getY(pointerIndex))
-            {
-              NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, dpad.getId(0),
-                      ButtonState.PRESSED);
-              up = true;
-            }
-            if (dpad.getBounds().bottom - (dpad.getHeight() / 3) < (int) event.getY(pointerIndex))
-            {
-              NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, dpad.getId(1),
-                      ButtonState.PRESSED);
-              down = true;
-            }
-            if (dpad.getBounds().left + (dpad.getWidth() / 3) > (int) event.getX(pointerIndex))
-            {
-              NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, dpad.getId(2),
-                      ButtonState.PRESSED);
-              left = true;
-            }
-            if (dpad.getBounds().right - (dpad.getWidth() / 3) < (int) event.getX(pointerIndex))
-            {
-              NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, dpad.getId(3),
-                      ButtonState.PRESSED);
-              right = true;
-            }
-
-            setDpadState(dpad, up, down, left, right);
-            dpad.setTrackId(event.getPointerId(pointerIndex));
-          }
-          break;
-        case MotionEvent.ACTION_UP:
-        case MotionEvent.ACTION_POINTER_UP:
-          // If a pointer ends, release the buttons.
-          if (dpad.getTrackId() == event.getPointerId(pointerIndex))
-          {
-            for (int i = 0; i < 4; i++)
-            {
-              dpad.setState(InputOverlayDrawableDpad.STATE_DEFAULT);
-              NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, dpad.getId(i),
-                      ButtonState.RELEASED);
-            }
-          }
-          break;
+        mPointerOwners.put(pointerId, button);
+        button.setPressedState(true);
+        mDirtyRect.union(button.getBounds());
+        mInputRing.setButton(button.getId(), true);
+        return;
       }
     }
 
-    for (InputOverlayDrawableJoystick joystick : overlayJoysticks)
+    // The 3DS touchscreen only knows a single touch, so any further pointers are ignored.
+    if (mPreferences.getBoolean("isTouchEnabled", true) && !isOwned(OWNER_TOUCHSCREEN))
     {
-      joystick.TrackEvent(event);
-      int axisID = joystick.getId();
-      float[] axises = joystick.getAxisValues();
+      mPointerOwners.put(pointerId, OWNER_TOUCHSCREEN);
+      mInputRing.putTouch(x, y, true);
+    }
+  }
 
-      NativeLibrary
-              .onGamePadMoveEvent(NativeLibrary.TouchScreenDevice, axisID, axises[0], axises[1]);
+  private void onPointerMove(MotionEvent event, int pointerIndex)
+  {
+    Object owner = mPointerOwners.get(event.getPointerId(pointerIndex));
+    float x = event.getX(pointerIndex);
+    float y = event.getY(pointerIndex);
+
+    if (owner == OWNER_TOUCHSCREEN)
+    {
+      // Moves are batched by the system; pass on the samples in between as well.
+      for (int i = 0; i < event.getHistorySize(); i++)
+      {
+        mInputRing.putTouch(event.getHistoricalX(pointerIndex, i),
+                event.getHistoricalY(pointerIndex, i), true);
+      }
+      mInputRing.putTouch(x, y, true);
+    }
+    else if (owner instanceof InputOverlayDrawableJoystick)
+    {
+      InputOverlayDrawableJoystick joystick = (InputOverlayDrawableJoystick) owner;
+      invalidateJoystick(joystick);
+      joystick.onPointerMove(x, y);
+      invalidateJoystick(joystick);
+      putStick(joystick);
+    }
+    else if (owner instanceof InputOverlayDrawableDpad)
+    {
+      // Sliding across the d-pad changes direction without lifting the finger.
+      updateDpad((InputOverlayDrawableDpad) owner, (int) x, (int) y);
     }
 
-    invalidate();
+    // Buttons stay pressed until their pointer goes up.
+  }
 
-    return true;
+  private void onPointerUp(int pointerId)
+  {
+    Object owner = mPointerOwners.get(pointerId);
+    mPointerOwners.remove(pointerId);
+
+    if (owner == OWNER_TOUCHSCREEN)
+    {
+      // We dont really care where the touch has been released. We only care whether it has been
+      // released or not.
+      mInputRing.putTouch(0, 0, false);
+    }
+    else if (owner instanceof InputOverlayDrawableButton)
+    {
+      InputOverlayDrawableButton button = (InputOverlayDrawableButton) owner;
+
+      // Another finger may still be holding the same button.
+      if (!isOwned(button))
+      {
+        button.setPressedState(false);
+        mDirtyRect.union(button.getBounds());
+        mInputRing.setButton(button.getId(), false);
+      }
+    }
+    else if (owner instanceof InputOverlayDrawableDpad)
+    {
+      InputOverlayDrawableDpad dpad = (InputOverlayDrawableDpad) owner;
+      dpad.setState(InputOverlayDrawableDpad.STATE_DEFAULT);
+      mDirtyRect.union(dpad.getBounds());
+      for (int i = 0; i < 4; i++)
+      {
+        mInputRing.setButton(dpad.getId(i), false);
+      }
+    }
+    else if (owner instanceof InputOverlayDrawableJoystick)
+    {
+      InputOverlayDrawableJoystick joystick = (InputOverlayDrawableJoystick) owner;
+      invalidateJoystick(joystick);
+      joystick.onPointerUp();
+      invalidateJoystick(joystick);
+      putStick(joystick);
+    }
+  }
+
+  private boolean isOwned(Object owner)
+  {
+    return mPointerOwners.indexOfValue(owner) >= 0;
+  }
+
+  /**
+   * Presses the directions of the d-pad that lie under a position, and releases the others.
+   */
+  private void updateDpad(InputOverlayDrawableDpad dpad, int x, int y)
+  {
+    boolean up = dpad.getBounds().top + (dpad.getHeight() / 3) > y;
+    boolean down = dpad.getBounds().bottom - (dpad.getHeight() / 3) < y;
+    boolean left = dpad.getBounds().left + (dpad.getWidth() / 3) > x;
+    boolean right = dpad.getBounds().right - (dpad.getWidth() / 3) < x;
+
+    mInputRing.setButton(dpad.getId(0), up);
+    mInputRing.setButton(dpad.getId(1), down);
+    mInputRing.setButton(dpad.getId(2), left);
+    mInputRing.setButton(dpad.getId(3), right);
+
+    int oldState = dpad.getState();
+    dpad.setState(InputOverlayDrawableDpad.STATE_DEFAULT);
+    setDpadState(dpad, up, down, left, right);
+
+    if (dpad.getState() != oldState)
+    {
+      mDirtyRect.union(dpad.getBounds());
+    }
+  }
+
+  /**
+   * Adds the area a joystick draws to to the dirty area. Called both before and after the
+   * joystick moves, so that where it was is cleared as well.
+   */
+  private void invalidateJoystick(InputOverlayDrawableJoystick joystick)
+  {
+    joystick.getDrawnBounds(mJoystickBounds);
+    mDirtyRect.union(mJoystickBounds);
+  }
+
+  private void putStick(InputOverlayDrawableJoystick joystick)
+  {
+    float[] axises = joystick.getAxisValues();
+    mInputRing.putStick(joystick.getId(), axises[0], axises[1]);
   }
 
   public boolean onTouchWhileEditing(MotionEvent event)
@@ -280,7 +430,7 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
           if (mButtonBeingConfigured != null)
           {
             mButtonBeingConfigured.onConfigureTouch(event);
-            invalidate();
+            render(null);
             return true;
           }
           break;
@@ -318,7 +468,7 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
           if (mDpadBeingConfigured != null)
           {
             mDpadBeingConfigured.onConfigureTouch(event);
-            invalidate();
+            render(null);
             return true;
           }
           break;
@@ -353,7 +503,7 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
           if (mJoystickBeingConfigured != null)
           {
             mJoystickBeingConfigured.onConfigureTouch(event);
-            invalidate();
+            render(null);
           }
           break;
         case MotionEvent.ACTION_UP:
@@ -403,66 +553,66 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     }
   }
 
-  private void add3dsOverlayControls()
+  private void add3dsOverlayControls(OverlayAtlas atlas)
   {
     if (mPreferences.getBoolean("buttonToggle3ds0", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_a,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_a,
               R.drawable.classic_a_pressed, ButtonType.N3DS_BUTTON_A));
     }
     if (mPreferences.getBoolean("buttonToggle3ds1", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_b,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_b,
               R.drawable.classic_b_pressed, ButtonType.N3DS_BUTTON_B));
     }
     if (mPreferences.getBoolean("buttonToggle3ds2", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_x,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_x,
               R.drawable.classic_x_pressed, ButtonType.N3DS_BUTTON_X));
     }
     if (mPreferences.getBoolean("buttonToggle3ds3", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_y,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_y,
               R.drawable.classic_y_pressed, ButtonType.N3DS_BUTTON_Y));
     }
     if (mPreferences.getBoolean("buttonToggle3ds4", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_l,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_l,
               R.drawable.classic_l_pressed, ButtonType.N3DS_TRIGGER_L));
     }
     if (mPreferences.getBoolean("buttonToggle3ds5", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_r,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_r,
               R.drawable.classic_r_pressed, ButtonType.N3DS_TRIGGER_R));
     }
     if (mPreferences.getBoolean("buttonToggle3ds6", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_zl,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_zl,
               R.drawable.classic_zl_pressed, ButtonType.N3DS_BUTTON_ZL));
     }
     if (mPreferences.getBoolean("buttonToggle3ds7", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.classic_zr,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.classic_zr,
               R.drawable.classic_zr_pressed, ButtonType.N3DS_BUTTON_ZR));
     }
     if (mPreferences.getBoolean("buttonToggle3ds8", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.gcpad_start,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.gcpad_start,
               R.drawable.gcpad_start_pressed, ButtonType.N3DS_BUTTON_START));
     }
     if (mPreferences.getBoolean("buttonToggle3ds9", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.n3ds_select,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.n3ds_select,
               R.drawable.n3ds_select_pressed, ButtonType.N3DS_BUTTON_SELECT));
     }
     if (mPreferences.getBoolean("buttonToggle3ds10", true))
     {
-      overlayButtons.add(initializeOverlayButton(getContext(), R.drawable.wiimote_home,
+      overlayButtons.add(initializeOverlayButton(getContext(), atlas, R.drawable.wiimote_home,
               R.drawable.wiimote_home_pressed, ButtonType.N3DS_BUTTON_HOME));
     }
     if (mPreferences.getBoolean("buttonToggle3ds11", true))
     {
-      overlayDpads.add(initializeOverlayDpad(getContext(), R.drawable.gcwii_dpad,
+      overlayDpads.add(initializeOverlayDpad(getContext(), atlas, R.drawable.gcwii_dpad,
               R.drawable.gcwii_dpad_pressed_one_direction,
               R.drawable.gcwii_dpad_pressed_two_directions,
               ButtonType.N3DS_DPAD_UP, ButtonType.N3DS_DPAD_DOWN,
@@ -470,13 +620,13 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     }
     if (mPreferences.getBoolean("buttonToggle3ds12", true))
     {
-      overlayJoysticks.add(initializeOverlayJoystick(getContext(), R.drawable.gcwii_joystick_range,
+      overlayJoysticks.add(initializeOverlayJoystick(getContext(), atlas, R.drawable.gcwii_joystick_range,
               R.drawable.gcwii_joystick, R.drawable.gcwii_joystick_pressed,
               ButtonType.N3DS_STICK_LEFT));
     }
     if (mPreferences.getBoolean("buttonToggle3ds13", true))
     {
-      overlayJoysticks.add(initializeOverlayJoystick(getContext(), R.drawable.gcwii_joystick_range,
+      overlayJoysticks.add(initializeOverlayJoystick(getContext(), atlas, R.drawable.gcwii_joystick_range,
               R.drawable.gcpad_c, R.drawable.gcpad_c_pressed, ButtonType.N3DS_STICK_C));
     }
   }
@@ -488,9 +638,46 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     overlayDpads.removeAll(overlayDpads);
     overlayJoysticks.removeAll(overlayJoysticks);
 
-    add3dsOverlayControls();
+    // The images of all controls at their current size go into one atlas, which replaces the one
+    // of the controls just removed. The renderer frees the old one once it no longer draws it.
+    mAtlas = new OverlayAtlas();
+    add3dsOverlayControls(mAtlas);
+    mAtlas.bake(getResources());
+
+    rebuildHitTestGrids();
+
+    render(null);
+  }
+
+  /**
+   * Sorts the controls into the grids used to find the ones under a touch. Needs to be called
+   * whenever controls are added, removed or moved.
+   */
+  private void rebuildHitTestGrids()
+  {
+    mButtonGrid.clear();
+    for (InputOverlayDrawableButton button : overlayButtons)
+    {
+      Rect bounds = button.getBounds();
+      mButtonGrid.add(button, bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+    mButtonGrid.build();
 
-    invalidate();
+    mDpadGrid.clear();
+    for (InputOverlayDrawableDpad dpad : overlayDpads)
+    {
+      Rect bounds = dpad.getBounds();
+      mDpadGrid.add(dpad, bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+    mDpadGrid.build();
+
+    mJoystickGrid.clear();
+    for (InputOverlayDrawableJoystick joystick : overlayJoysticks)
+    {
+      Rect bounds = joystick.getBounds();
+      mJoystickGrid.add(joystick, bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+    mJoystickGrid.build();
   }
 
   private void saveControlPosition(int sharedPrefsId, int x, int y)
@@ -527,17 +714,15 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
    * for Android to call the onDraw method.
    *
    * @param context      The current {@link Context}.
-   * @param defaultResId The resource ID of the {@link Drawable} to get the {@link Bitmap} of (Default State).
-   * @param pressedResId The resource ID of the {@link Drawable} to get the {@link Bitmap} of (Pressed State).
+   * @param atlas        The {@link OverlayAtlas} to add the images of the button to.
+   * @param defaultResId The resource ID of the {@link Drawable} to draw in the default state.
+   * @param pressedResId The resource ID of the {@link Drawable} to draw in the pressed state.
    * @param buttonId     Identifier for determining what type of button the initialized InputOverlayDrawableButton represents.
    * @return An {@link InputOverlayDrawableButton} with the correct drawing bounds set.
    */
   private static InputOverlayDrawableButton initializeOverlayButton(Context context,
-          int defaultResId, int pressedResId, int buttonId)
+          OverlayAtlas atlas, int defaultResId, int pressedResId, int buttonId)
   {
-    // Resources handle for fetching the initial Drawable resource.
-    final Resources res = context.getResources();
-
     // SharedPreference to retrieve the X and Y coordinates for the InputOverlayDrawableButton.
     final SharedPreferences sPrefs = PreferenceManager.getDefaultSharedPreferences(context);
 
@@ -566,12 +751,10 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     scale /= 100;
 
     // Initialize the InputOverlayDrawableButton.
-    final Bitmap defaultStateBitmap =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, defaultResId), scale);
-    final Bitmap pressedStateBitmap =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, pressedResId), scale);
+    final int size = getControlSize(context, scale);
     final InputOverlayDrawableButton overlayDrawable =
-            new InputOverlayDrawableButton(res, defaultStateBitmap, pressedStateBitmap, buttonId);
+            new InputOverlayDrawableButton(atlas.add(defaultResId, size, size, 0),
+                    atlas.add(pressedResId, size, size, 0), buttonId);
 
     // The X and Y coordinates of the InputOverlayDrawableButton on the InputOverlay.
     // These were set in the input overlay configuration menu.
@@ -595,9 +778,10 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
    * Initializes an {@link InputOverlayDrawableDpad}
    *
    * @param context                   The current {@link Context}.
-   * @param defaultResId              The {@link Bitmap} resource ID of the default sate.
-   * @param pressedOneDirectionResId  The {@link Bitmap} resource ID of the pressed sate in one direction.
-   * @param pressedTwoDirectionsResId The {@link Bitmap} resource ID of the pressed sate in two directions.
+   * @param atlas                     The {@link OverlayAtlas} to add the images of the d-pad to.
+   * @param defaultResId              The resource ID of the default sate.
+   * @param pressedOneDirectionResId  The resource ID of the pressed sate in one direction.
+   * @param pressedTwoDirectionsResId The resource ID of the pressed sate in two directions.
    * @param buttonUp                  Identifier for the up button.
    * @param buttonDown                Identifier for the down button.
    * @param buttonLeft                Identifier for the left button.
@@ -605,6 +789,7 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
    * @return the initialized {@link InputOverlayDrawableDpad}
    */
   private static InputOverlayDrawableDpad initializeOverlayDpad(Context context,
+          OverlayAtlas atlas,
           int defaultResId,
           int pressedOneDirectionResId,
           int pressedTwoDirectionsResId,
@@ -613,9 +798,6 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
           int buttonLeft,
           int buttonRight)
   {
-    // Resources handle for fetching the initial Drawable resource.
-    final Resources res = context.getResources();
-
     // SharedPreference to retrieve the X and Y coordinates for the InputOverlayDrawableDpad.
     final SharedPreferences sPrefs = PreferenceManager.getDefaultSharedPreferences(context);
 
@@ -636,17 +818,28 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     scale /= 100;
 
     // Initialize the InputOverlayDrawableDpad.
-    final Bitmap defaultStateBitmap =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, defaultResId), scale);
-    final Bitmap pressedOneDirectionStateBitmap =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, pressedOneDirectionResId),
-                    scale);
-    final Bitmap pressedTwoDirectionsStateBitmap =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, pressedTwoDirectionsResId),
-                    scale);
+    // The pressed images show up and up-left; the other directions are rotations of them.
+    final int size = getControlSize(context, scale);
+    final Rect[] stateRegions = new Rect[InputOverlayDrawableDpad.STATE_COUNT];
+    stateRegions[InputOverlayDrawableDpad.STATE_DEFAULT] = atlas.add(defaultResId, size, size, 0);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_UP] =
+            atlas.add(pressedOneDirectionResId, size, size, 0);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_RIGHT] =
+            atlas.add(pressedOneDirectionResId, size, size, 90);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_DOWN] =
+            atlas.add(pressedOneDirectionResId, size, size, 180);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_LEFT] =
+            atlas.add(pressedOneDirectionResId, size, size, 270);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_UP_LEFT] =
+            atlas.add(pressedTwoDirectionsResId, size, size, 0);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_UP_RIGHT] =
+            atlas.add(pressedTwoDirectionsResId, size, size, 90);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_DOWN_RIGHT] =
+            atlas.add(pressedTwoDirectionsResId, size, size, 180);
+    stateRegions[InputOverlayDrawableDpad.STATE_PRESSED_DOWN_LEFT] =
+            atlas.add(pressedTwoDirectionsResId, size, size, 270);
     final InputOverlayDrawableDpad overlayDrawable =
-            new InputOverlayDrawableDpad(res, defaultStateBitmap,
-                    pressedOneDirectionStateBitmap, pressedTwoDirectionsStateBitmap,
+            new InputOverlayDrawableDpad(stateRegions,
                     buttonUp, buttonDown, buttonLeft, buttonRight);
 
     // The X and Y coordinates of the InputOverlayDrawableDpad on the InputOverlay.
@@ -671,6 +864,7 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
    * Initializes an {@link InputOverlayDrawableJoystick}
    *
    * @param context         The current {@link Context}
+   * @param atlas           The {@link OverlayAtlas} to add the images of the joystick to.
    * @param resOuter        Resource ID for the outer image of the joystick (the static image that shows the circular bounds).
    * @param defaultResInner Resource ID for the default inner image of the joystick (the one you actually move around).
    * @param pressedResInner Resource ID for the pressed inner image of the joystick.
@@ -678,11 +872,8 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
    * @return the initialized {@link InputOverlayDrawableJoystick}.
    */
   private static InputOverlayDrawableJoystick initializeOverlayJoystick(Context context,
-          int resOuter, int defaultResInner, int pressedResInner, int joystick)
+          OverlayAtlas atlas, int resOuter, int defaultResInner, int pressedResInner, int joystick)
   {
-    // Resources handle for fetching the initial Drawable resource.
-    final Resources res = context.getResources();
-
     // SharedPreference to retrieve the X and Y coordinates for the InputOverlayDrawableJoystick.
     final SharedPreferences sPrefs = PreferenceManager.getDefaultSharedPreferences(context);
 
@@ -691,12 +882,6 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
     scale *= (sPrefs.getInt("controlScale", 50) + 50);
     scale /= 100;
 
-    // Initialize the InputOverlayDrawableJoystick.
-    final Bitmap bitmapOuter =
-            resizeBitmap(context, BitmapFactory.decodeResource(res, resOuter), scale);
-    final Bitmap bitmapInnerDefault = BitmapFactory.decodeResource(res, defaultResInner);
-    final Bitmap bitmapInnerPressed = BitmapFactory.decodeResource(res, pressedResInner);
-
     // The X and Y coordinates of the InputOverlayDrawableButton on the InputOverlay.
     // These were set in the input overlay configuration menu.
     int drawableX = (int) sPrefs.getFloat(joystick + "-X", 0f);
@@ -717,14 +902,17 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
 
     // Now set the bounds for the InputOverlayDrawableJoystick.
     // This will dictate where on the screen (and the what the size) the InputOverlayDrawableJoystick will be.
-    int outerSize = bitmapOuter.getWidth();
+    int outerSize = getControlSize(context, scale);
     Rect outerRect = new Rect(drawableX, drawableY, drawableX + outerSize, drawableY + outerSize);
     Rect innerRect = new Rect(0, 0, (int) (outerSize / innerScale), (int) (outerSize / innerScale));
 
     // Send the drawableId to the joystick so it can be referenced when saving control position.
+    // The inner images are baked at the size they are drawn at.
     final InputOverlayDrawableJoystick overlayDrawable
-            = new InputOverlayDrawableJoystick(res, bitmapOuter,
-            bitmapInnerDefault, bitmapInnerPressed,
+            = new InputOverlayDrawableJoystick(
+            atlas.add(resOuter, outerSize, outerSize, 0),
+            atlas.add(defaultResInner, innerRect.width(), innerRect.height(), 0),
+            atlas.add(pressedResInner, innerRect.width(), innerRect.height(), 0),
             outerRect, innerRect, joystick);
 
     // Need to set the image's position
@@ -736,6 +924,9 @@ public final class InputOverlay extends SurfaceView implements OnTouchListener
   public void setIsInEditMode(boolean isInEditMode)
   {
     mIsInEditMode = isInEditMode;
+
+    // Controls may have been moved while editing.
+    rebuildHitTestGrids();
   }
 
   private void defaultOverlay()
@@ -6,47 +6,42 @@
 
 package org.citra.citra_android.overlay;
 
-import android.content.res.Resources;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
 import android.view.MotionEvent;
 
 /**
- * Custom {@link BitmapDrawable} that is capable
+ * Button of the input overlay, drawn from an {@link OverlayAtlas}, that is capable
  * of storing it's own ID.
  */
 public final class InputOverlayDrawableButton
 {
   // The ID identifying what type of button this Drawable represents.
   private int mButtonType;
-  private int mTrackId;
   private int mPreviousTouchX, mPreviousTouchY;
   private int mControlPositionX, mControlPositionY;
   private int mWidth;
   private int mHeight;
-  private BitmapDrawable mDefaultStateBitmap;
-  private BitmapDrawable mPressedStateBitmap;
+  private final Rect mBounds = new Rect();
+  private Rect mDefaultStateRegion;
+  private Rect mPressedStateRegion;
   private boolean mPressedState = false;
 
   /**
    * Constructor
    *
-   * @param res                {@link Resources} instance.
-   * @param defaultStateBitmap {@link Bitmap} to use with the default state Drawable.
-   * @param pressedStateBitmap {@link Bitmap} to use with the pressed state Drawable.
+   * @param defaultStateRegion Region of the {@link OverlayAtlas} to draw in the default state.
+   * @param pressedStateRegion Region of the {@link OverlayAtlas} to draw in the pressed state.
    * @param buttonType         Identifier for this type of button.
    */
-  public InputOverlayDrawableButton(Resources res, Bitmap defaultStateBitmap,
-          Bitmap pressedStateBitmap, int buttonType)
+  public InputOverlayDrawableButton(Rect defaultStateRegion, Rect pressedStateRegion,
+          int buttonType)
   {
-    mDefaultStateBitmap = new BitmapDrawable(res, defaultStateBitmap);
-    mPressedStateBitmap = new BitmapDrawable(res, pressedStateBitmap);
+    mDefaultStateRegion = defaultStateRegion;
+    mPressedStateRegion = pressedStateRegion;
     mButtonType = buttonType;
 
-    mWidth = mDefaultStateBitmap.getIntrinsicWidth();
-    mHeight = mDefaultStateBitmap.getIntrinsicHeight();
+    mWidth = defaultStateRegion.width();
+    mHeight = defaultStateRegion.height();
   }
 
   /**
@@ -59,16 +54,6 @@ public final class InputOverlayDrawableButton
     return mButtonType;
   }
 
-  public void setTrackId(int trackId)
-  {
-    mTrackId = trackId;
-  }
-
-  public int getTrackId()
-  {
-    return mTrackId;
-  }
-
   public boolean onConfigureTouch(MotionEvent event)
   {
     int pointerIndex = event.getActionIndex();
@@ -99,25 +84,19 @@ public final class InputOverlayDrawableButton
     mControlPositionY = y;
   }
 
-  public void draw(Canvas canvas)
-  {
-    getCurrentStateBitmapDrawable().draw(canvas);
-  }
-
-  private BitmapDrawable getCurrentStateBitmapDrawable()
+  public void draw(OverlayFrame frame)
   {
-    return mPressedState ? mPressedStateBitmap : mDefaultStateBitmap;
+    frame.add(mPressedState ? mPressedStateRegion : mDefaultStateRegion, mBounds);
   }
 
   public void setBounds(int left, int top, int right, int bottom)
   {
-    mDefaultStateBitmap.setBounds(left, top, right, bottom);
-    mPressedStateBitmap.setBounds(left, top, right, bottom);
+    mBounds.set(left, top, right, bottom);
   }
 
   public Rect getBounds()
   {
-    return mDefaultStateBitmap.getBounds();
+    return mBounds;
   }
 
   public int getWidth()
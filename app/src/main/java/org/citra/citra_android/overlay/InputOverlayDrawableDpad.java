@@ -6,29 +6,23 @@
 
 package org.citra.citra_android.overlay;
 
-import android.content.res.Resources;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
 import android.view.MotionEvent;
 
 /**
- * Custom {@link BitmapDrawable} that is capable
+ * D-pad of the input overlay, drawn from an {@link OverlayAtlas}, that is capable
  * of storing it's own ID.
  */
 public final class InputOverlayDrawableDpad
 {
   // The ID identifying what type of button this Drawable represents.
   private int[] mButtonType = new int[4];
-  private int mTrackId;
   private int mPreviousTouchX, mPreviousTouchY;
   private int mControlPositionX, mControlPositionY;
   private int mWidth;
   private int mHeight;
-  private BitmapDrawable mDefaultStateBitmap;
-  private BitmapDrawable mPressedOneDirectionStateBitmap;
-  private BitmapDrawable mPressedTwoDirectionsStateBitmap;
+  private final Rect mBounds = new Rect();
+  private Rect[] mStateRegions;
   private int mPressState = STATE_DEFAULT;
 
   public static final int STATE_DEFAULT = 0;
@@ -41,31 +35,27 @@ public final class InputOverlayDrawableDpad
   public static final int STATE_PRESSED_DOWN_LEFT = 7;
   public static final int STATE_PRESSED_DOWN_RIGHT = 8;
 
+  public static final int STATE_COUNT = 9;
+
   /**
    * Constructor
    *
-   * @param res                             {@link Resources} instance.
-   * @param defaultStateBitmap              {@link Bitmap} of the default state.
-   * @param pressedOneDirectionStateBitmap  {@link Bitmap} of the pressed state in one direction.
-   * @param pressedTwoDirectionsStateBitmap {@link Bitmap} of the pressed state in two direction.
-   * @param buttonUp                        Identifier for the up button.
-   * @param buttonDown                      Identifier for the down button.
-   * @param buttonLeft                      Identifier for the left button.
-   * @param buttonRight                     Identifier for the right button.
+   * @param stateRegions Region of the {@link OverlayAtlas} to draw in each state, indexed by the
+   *                     STATE_ constants. The images of the directions are expected to be
+   *                     rotated already.
+   * @param buttonUp     Identifier for the up button.
+   * @param buttonDown   Identifier for the down button.
+   * @param buttonLeft   Identifier for the left button.
+   * @param buttonRight  Identifier for the right button.
    */
-  public InputOverlayDrawableDpad(Resources res,
-          Bitmap defaultStateBitmap,
-          Bitmap pressedOneDirectionStateBitmap,
-          Bitmap pressedTwoDirectionsStateBitmap,
+  public InputOverlayDrawableDpad(Rect[] stateRegions,
           int buttonUp, int buttonDown,
           int buttonLeft, int buttonRight)
   {
-    mDefaultStateBitmap = new BitmapDrawable(res, defaultStateBitmap);
-    mPressedOneDirectionStateBitmap = new BitmapDrawable(res, pressedOneDirectionStateBitmap);
-    mPressedTwoDirectionsStateBitmap = new BitmapDrawable(res, pressedTwoDirectionsStateBitmap);
+    mStateRegions = stateRegions;
 
-    mWidth = mDefaultStateBitmap.getIntrinsicWidth();
-    mHeight = mDefaultStateBitmap.getIntrinsicHeight();
+    mWidth = stateRegions[STATE_DEFAULT].width();
+    mHeight = stateRegions[STATE_DEFAULT].height();
 
     mButtonType[0] = buttonUp;
     mButtonType[1] = buttonDown;
@@ -73,58 +63,9 @@ public final class InputOverlayDrawableDpad
     mButtonType[3] = buttonRight;
   }
 
-  public void draw(Canvas canvas)
+  public void draw(OverlayFrame frame)
   {
-    int px = mControlPositionX + (getWidth() / 2);
-    int py = mControlPositionY + (getHeight() / 2);
-    switch (mPressState)
-    {
-      case STATE_DEFAULT:
-        mDefaultStateBitmap.draw(canvas);
-        break;
-      case STATE_PRESSED_UP:
-        mPressedOneDirectionStateBitmap.draw(canvas);
-        break;
-      case STATE_PRESSED_RIGHT:
-        canvas.save();
-        canvas.rotate(90, px, py);
-        mPressedOneDirectionStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-      case STATE_PRESSED_DOWN:
-        canvas.save();
-        canvas.rotate(180, px, py);
-        mPressedOneDirectionStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-      case STATE_PRESSED_LEFT:
-        canvas.save();
-        canvas.rotate(270, px, py);
-        mPressedOneDirectionStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-      case STATE_PRESSED_UP_LEFT:
-        mPressedTwoDirectionsStateBitmap.draw(canvas);
-        break;
-      case STATE_PRESSED_UP_RIGHT:
-        canvas.save();
-        canvas.rotate(90, px, py);
-        mPressedTwoDirectionsStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-      case STATE_PRESSED_DOWN_RIGHT:
-        canvas.save();
-        canvas.rotate(180, px, py);
-        mPressedTwoDirectionsStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-      case STATE_PRESSED_DOWN_LEFT:
-        canvas.save();
-        canvas.rotate(270, px, py);
-        mPressedTwoDirectionsStateBitmap.draw(canvas);
-        canvas.restore();
-        break;
-    }
+    frame.add(mStateRegions[mPressState], mBounds);
   }
 
   /**
@@ -137,16 +78,6 @@ public final class InputOverlayDrawableDpad
     return mButtonType[direction];
   }
 
-  public void setTrackId(int trackId)
-  {
-    mTrackId = trackId;
-  }
-
-  public int getTrackId()
-  {
-    return mTrackId;
-  }
-
   public boolean onConfigureTouch(MotionEvent event)
   {
     int pointerIndex = event.getActionIndex();
@@ -179,14 +110,12 @@ public final class InputOverlayDrawableDpad
 
   public void setBounds(int left, int top, int right, int bottom)
   {
-    mDefaultStateBitmap.setBounds(left, top, right, bottom);
-    mPressedOneDirectionStateBitmap.setBounds(left, top, right, bottom);
-    mPressedTwoDirectionsStateBitmap.setBounds(left, top, right, bottom);
+    mBounds.set(left, top, right, bottom);
   }
 
   public Rect getBounds()
   {
-    return mDefaultStateBitmap.getBounds();
+    return mBounds;
   }
 
   public int getWidth()
@@ -199,6 +128,11 @@ public final class InputOverlayDrawableDpad
     return mHeight;
   }
 
+  public int getState()
+  {
+    return mPressState;
+  }
+
   public void setState(int pressState)
   {
     mPressState = pressState;
@@ -6,22 +6,17 @@
 
 package org.citra.citra_android.overlay;
 
-import android.content.res.Resources;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
 import android.view.MotionEvent;
 
 /**
- * Custom {@link BitmapDrawable} that is capable
+ * Joystick of the input overlay, drawn from an {@link OverlayAtlas}, that is capable
  * of storing it's own ID.
  */
 public final class InputOverlayDrawableJoystick
 {
   private final int[] axisIDs = {0, 0, 0, 0};
   private final float[] axises = {0f, 0f};
-  private int trackId = -1;
   private int mJoystickType;
   private int mControlPositionX, mControlPositionY;
   private int mPreviousTouchX, mPreviousTouchY;
@@ -29,25 +24,25 @@ public final class InputOverlayDrawableJoystick
   private int mHeight;
   private Rect mVirtBounds;
   private Rect mOrigBounds;
-  private BitmapDrawable mOuterBitmap;
-  private BitmapDrawable mDefaultStateInnerBitmap;
-  private BitmapDrawable mPressedStateInnerBitmap;
-  private BitmapDrawable mBoundsBoxBitmap;
+  private final Rect mOuterBounds = new Rect();
+  private final Rect mInnerBounds = new Rect();
+  private Rect mOuterRegion;
+  private Rect mDefaultStateInnerRegion;
+  private Rect mPressedStateInnerRegion;
   private boolean mPressedState = false;
 
   /**
    * Constructor
    *
-   * @param res                {@link Resources} instance.
-   * @param bitmapOuter        {@link Bitmap} which represents the outer non-movable part of the joystick.
-   * @param bitmapInnerDefault {@link Bitmap} which represents the default inner movable part of the joystick.
-   * @param bitmapInnerPressed {@link Bitmap} which represents the pressed inner movable part of the joystick.
+   * @param regionOuter        Region of the {@link OverlayAtlas} with the outer non-movable part of the joystick.
+   * @param regionInnerDefault Region of the atlas with the default inner movable part of the joystick.
+   * @param regionInnerPressed Region of the atlas with the pressed inner movable part of the joystick.
    * @param rectOuter          {@link Rect} which represents the outer joystick bounds.
    * @param rectInner          {@link Rect} which represents the inner joystick bounds.
    * @param joystick           Identifier for which joystick this is.
    */
-  public InputOverlayDrawableJoystick(Resources res, Bitmap bitmapOuter,
-          Bitmap bitmapInnerDefault, Bitmap bitmapInnerPressed,
+  public InputOverlayDrawableJoystick(Rect regionOuter,
+          Rect regionInnerDefault, Rect regionInnerPressed,
           Rect rectOuter, Rect rectInner, int joystick)
   {
     axisIDs[0] = joystick + 1; // Up
@@ -56,20 +51,16 @@ public final class InputOverlayDrawableJoystick
     axisIDs[3] = joystick + 4; // Right
     mJoystickType = joystick;
 
-    mOuterBitmap = new BitmapDrawable(res, bitmapOuter);
-    mDefaultStateInnerBitmap = new BitmapDrawable(res, bitmapInnerDefault);
-    mPressedStateInnerBitmap = new BitmapDrawable(res, bitmapInnerPressed);
-    mBoundsBoxBitmap = new BitmapDrawable(res, bitmapOuter);
-    mWidth = bitmapOuter.getWidth();
-    mHeight = bitmapOuter.getHeight();
+    mOuterRegion = regionOuter;
+    mDefaultStateInnerRegion = regionInnerDefault;
+    mPressedStateInnerRegion = regionInnerPressed;
+    mWidth = rectOuter.width();
+    mHeight = rectOuter.height();
 
     setBounds(rectOuter);
-    mDefaultStateInnerBitmap.setBounds(rectInner);
-    mPressedStateInnerBitmap.setBounds(rectInner);
-    mVirtBounds = getBounds();
-    mOrigBounds = mOuterBitmap.copyBounds();
-    mBoundsBoxBitmap.setAlpha(0);
-    mBoundsBoxBitmap.setBounds(getVirtBounds());
+    mInnerBounds.set(rectInner);
+    mVirtBounds = new Rect(rectOuter);
+    mOrigBounds = new Rect(rectOuter);
     SetInnerBounds();
   }
 
@@ -83,73 +74,78 @@ public final class InputOverlayDrawableJoystick
     return mJoystickType;
   }
 
-  public void draw(Canvas canvas)
+  public void draw(OverlayFrame frame)
   {
-    mOuterBitmap.draw(canvas);
-    getCurrentStateBitmapDrawable().draw(canvas);
-    mBoundsBoxBitmap.draw(canvas);
-  }
+    // While held, the outer ring is shown around where the joystick was grabbed instead.
+    if (!mPressedState)
+    {
+      frame.add(mOuterRegion, mOuterBounds);
+    }
 
-  public void TrackEvent(MotionEvent event)
-  {
-    int pointerIndex = event.getActionIndex();
+    frame.add(mPressedState ? mPressedStateInnerRegion : mDefaultStateInnerRegion, mInnerBounds);
 
-    switch (event.getAction() & MotionEvent.ACTION_MASK)
+    if (mPressedState)
     {
-      case MotionEvent.ACTION_DOWN:
-      case MotionEvent.ACTION_POINTER_DOWN:
-        if (getBounds().contains((int) event.getX(pointerIndex), (int) event.getY(pointerIndex)))
-        {
-          mPressedState = true;
-          mOuterBitmap.setAlpha(0);
-          mBoundsBoxBitmap.setAlpha(255);
-          getVirtBounds().offset((int) event.getX(pointerIndex) - getVirtBounds().centerX(),
-                  (int) event.getY(pointerIndex) - getVirtBounds().centerY());
-          mBoundsBoxBitmap.setBounds(getVirtBounds());
-          trackId = event.getPointerId(pointerIndex);
-        }
-        break;
-      case MotionEvent.ACTION_UP:
-      case MotionEvent.ACTION_POINTER_UP:
-        if (trackId == event.getPointerId(pointerIndex))
-        {
-          mPressedState = false;
-          axises[0] = axises[1] = 0.0f;
-          mOuterBitmap.setAlpha(255);
-          mBoundsBoxBitmap.setAlpha(0);
-          setVirtBounds(new Rect(mOrigBounds.left, mOrigBounds.top, mOrigBounds.right,
-                  mOrigBounds.bottom));
-          setBounds(new Rect(mOrigBounds.left, mOrigBounds.top, mOrigBounds.right,
-                  mOrigBounds.bottom));
-          SetInnerBounds();
-          trackId = -1;
-        }
-        break;
+      frame.add(mOuterRegion, getVirtBounds());
     }
+  }
 
-    if (trackId == -1)
-      return;
+  /**
+   * Gets the area the joystick currently draws to.
+   *
+   * @param outRect Set to the area, which includes the outer ring wherever it is shown.
+   */
+  public void getDrawnBounds(Rect outRect)
+  {
+    outRect.set(mPressedState ? getVirtBounds() : mOuterBounds);
+    outRect.union(mInnerBounds);
+  }
 
-    for (int i = 0; i < event.getPointerCount(); i++)
-    {
-      if (trackId == event.getPointerId(i))
-      {
-        float touchX = event.getX(i);
-        float touchY = event.getY(i);
-        float maxY = getVirtBounds().bottom;
-        float maxX = getVirtBounds().right;
-        touchX -= getVirtBounds().centerX();
-        maxX -= getVirtBounds().centerX();
-        touchY -= getVirtBounds().centerY();
-        maxY -= getVirtBounds().centerY();
-        final float AxisX = touchX / maxX;
-        final float AxisY = touchY / maxY;
-        axises[0] = AxisX;
-        axises[1] = AxisY;
+  /**
+   * Takes hold of the joystick with a pointer that went down on it. Its range is centered where
+   * the pointer went down.
+   */
+  public void onPointerDown(float x, float y)
+  {
+    mPressedState = true;
+    getVirtBounds().offset((int) x - getVirtBounds().centerX(),
+            (int) y - getVirtBounds().centerY());
 
-        SetInnerBounds();
-      }
-    }
+    onPointerMove(x, y);
+  }
+
+  /**
+   * Moves the joystick to follow the pointer holding it.
+   */
+  public void onPointerMove(float x, float y)
+  {
+    float touchX = x;
+    float touchY = y;
+    float maxY = getVirtBounds().bottom;
+    float maxX = getVirtBounds().right;
+    touchX -= getVirtBounds().centerX();
+    maxX -= getVirtBounds().centerX();
+    touchY -= getVirtBounds().centerY();
+    maxY -= getVirtBounds().centerY();
+    final float AxisX = touchX / maxX;
+    final float AxisY = touchY / maxY;
+    axises[0] = AxisX;
+    axises[1] = AxisY;
+
+    SetInnerBounds();
+  }
+
+  /**
+   * Lets go of the joystick, which returns to its center.
+   */
+  public void onPointerUp()
+  {
+    mPressedState = false;
+    axises[0] = axises[1] = 0.0f;
+    // Copied in place, so that releasing the stick doesn't allocate.
+    mVirtBounds.set(mOrigBounds);
+    mOuterBounds.set(mOrigBounds);
+    SetInnerBounds();
   }
 
   public boolean onConfigureTouch(MotionEvent event)
@@ -169,15 +165,15 @@ public final class InputOverlayDrawableJoystick
         mControlPositionX += deltaX;
         mControlPositionY += deltaY;
         setBounds(new Rect(mControlPositionX, mControlPositionY,
-                mOuterBitmap.getIntrinsicWidth() + mControlPositionX,
-                mOuterBitmap.getIntrinsicHeight() + mControlPositionY));
+                mWidth + mControlPositionX,
+                mHeight + mControlPositionY));
         setVirtBounds(new Rect(mControlPositionX, mControlPositionY,
-                mOuterBitmap.getIntrinsicWidth() + mControlPositionX,
-                mOuterBitmap.getIntrinsicHeight() + mControlPositionY));
+                mWidth + mControlPositionX,
+                mHeight + mControlPositionY));
         SetInnerBounds();
         setOrigBounds(new Rect(new Rect(mControlPositionX, mControlPositionY,
-                mOuterBitmap.getIntrinsicWidth() + mControlPositionX,
-                mOuterBitmap.getIntrinsicHeight() + mControlPositionY)));
+                mWidth + mControlPositionX,
+                mHeight + mControlPositionY)));
         mPreviousTouchX = fingerPositionX;
         mPreviousTouchY = fingerPositionY;
         break;
@@ -210,10 +206,9 @@ public final class InputOverlayDrawableJoystick
     if (Y < getVirtBounds().centerY() - (getVirtBounds().height() / 2))
       Y = getVirtBounds().centerY() - (getVirtBounds().height() / 2);
 
-    int width = mPressedStateInnerBitmap.getBounds().width() / 2;
-    int height = mPressedStateInnerBitmap.getBounds().height() / 2;
-    mDefaultStateInnerBitmap.setBounds(X - width, Y - height, X + width, Y + height);
-    mPressedStateInnerBitmap.setBounds(mDefaultStateInnerBitmap.getBounds());
+    int width = mInnerBounds.width() / 2;
+    int height = mInnerBounds.height() / 2;
+    mInnerBounds.set(X - width, Y - height, X + width, Y + height);
   }
 
   public void setPosition(int x, int y)
@@ -222,19 +217,14 @@ public final class InputOverlayDrawableJoystick
     mControlPositionY = y;
   }
 
-  private BitmapDrawable getCurrentStateBitmapDrawable()
-  {
-    return mPressedState ? mPressedStateInnerBitmap : mDefaultStateInnerBitmap;
-  }
-
   public void setBounds(Rect bounds)
   {
-    mOuterBitmap.setBounds(bounds);
+    mOuterBounds.set(bounds);
   }
 
   public Rect getBounds()
   {
-    return mOuterBitmap.getBounds();
+    return mOuterBounds;
   }
 
   private void setVirtBounds(Rect bounds)
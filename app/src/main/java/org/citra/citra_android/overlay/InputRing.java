@@ -0,0 +1,239 @@
+package org.citra.citra_android.overlay;
+
+import org.citra.citra_android.NativeLibrary;
+import org.citra.citra_android.NativeLibrary.ButtonState;
+import org.citra.citra_android.NativeLibrary.ButtonType;
+import org.citra.citra_android.utils.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Passes the input of the touch overlay to the native side through a ring of fixed-size records
+ * in a direct buffer, which native code drains once per emulated frame. The UI thread only writes
+ * into memory both sides share, and crosses JNI once per event to publish what it wrote, instead
+ * of once for every button, stick and touch sample.
+ * <p>
+ * Each record is {@link #RECORD_SIZE} bytes in native byte order: an int type, an int value, and
+ * two floats x and y.
+ * <ul>
+ * <li>{@link #RECORD_TOUCH}: value is 1 while touching and 0 on release; x and y are the
+ * position.</li>
+ * <li>{@link #RECORD_BUTTONS}: value is the mask of all pressed buttons, with bits as given by
+ * {@link #getButtonBit(int)}.</li>
+ * <li>{@link #RECORD_STICK}: value is the stick's ButtonType; x and y are its axes.</li>
+ * </ul>
+ * Record n is stored at index n % {@link #CAPACITY}.
+ * <p>
+ * Cores without the ring don't export {@link NativeLibrary#SetInputRing}. For them, committed
+ * records are replayed through the per-event calls instead, so the overlay works either way.
+ */
+public final class InputRing
+{
+  public static final int RECORD_TOUCH = 0;
+  public static final int RECORD_BUTTONS = 1;
+  public static final int RECORD_STICK = 2;
+
+  public static final int RECORD_SIZE = 16;
+
+  // A power of two, so that record counts can wrap around without skipping an index.
+  public static final int CAPACITY = 512;
+
+  private static InputRing sInstance;
+
+  private final ByteBuffer mBuffer =
+          ByteBuffer.allocateDirect(CAPACITY * RECORD_SIZE).order(ByteOrder.nativeOrder());
+
+  // How many records were written and published so far. Only touched on the UI thread.
+  private int mWritten;
+  private int mCommitted;
+
+  private int mButtons;
+
+  // Set once the core turns out not to read the ring.
+  private boolean mReplay;
+
+  // What the replayed records last passed on, so that only changes are.
+  private int mReplayedButtons;
+  private boolean mReplayedTouch;
+
+  private InputRing()
+  {
+    try
+    {
+      NativeLibrary.SetInputRing(mBuffer, CAPACITY);
+    }
+    catch (UnsatisfiedLinkError e)
+    {
+      Log.warning("[InputRing] Core has no input ring, passing input per event: " + e.getMessage());
+      mReplay = true;
+    }
+  }
+
+  public static InputRing getInstance()
+  {
+    if (sInstance == null)
+    {
+      sInstance = new InputRing();
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * @return The bit standing for a button in the mask of {@link #RECORD_BUTTONS}.
+   */
+  public static int getButtonBit(int buttonId)
+  {
+    // The IDs run from 700 to 720, then carry on at 771.
+    if (buttonId < ButtonType.N3DS_STICK_C_LEFT)
+    {
+      return buttonId - ButtonType.N3DS_BUTTON_A;
+    }
+
+    return buttonId - ButtonType.N3DS_STICK_C_LEFT + ButtonType.N3DS_STICK_C_DOWN -
+            ButtonType.N3DS_BUTTON_A + 1;
+  }
+
+  /**
+   * @return The button standing for a bit, the reverse of {@link #getButtonBit(int)}.
+   */
+  private static int getButtonId(int bit)
+  {
+    int lowBits = ButtonType.N3DS_STICK_C_DOWN - ButtonType.N3DS_BUTTON_A + 1;
+    if (bit < lowBits)
+    {
+      return ButtonType.N3DS_BUTTON_A + bit;
+    }
+
+    return ButtonType.N3DS_STICK_C_LEFT + bit - lowBits;
+  }
+
+  public void putTouch(float x, float y, boolean pressed)
+  {
+    put(RECORD_TOUCH, pressed ? 1 : 0, x, y);
+  }
+
+  /**
+   * Records a button being pressed or released. Nothing is written if that doesn't change the
+   * state of the buttons.
+   */
+  public void setButton(int buttonId, boolean pressed)
+  {
+    int bit = 1 << getButtonBit(buttonId);
+    int buttons = pressed ? mButtons | bit : mButtons & ~bit;
+
+    if (buttons != mButtons)
+    {
+      mButtons = buttons;
+      put(RECORD_BUTTONS, buttons, 0, 0);
+    }
+  }
+
+  public void putStick(int stickId, float x, float y)
+  {
+    put(RECORD_STICK, stickId, x, y);
+  }
+
+  /**
+   * Makes everything written since the last call visible to the native side.
+   */
+  public void commit()
+  {
+    if (mWritten == mCommitted)
+    {
+      return;
+    }
+
+    if (!mReplay)
+    {
+      try
+      {
+        NativeLibrary.CommitInput(mWritten);
+        mCommitted = mWritten;
+        return;
+      }
+      catch (UnsatisfiedLinkError e)
+      {
+        Log.warning("[InputRing] Core can't read the input ring, passing input per event: " +
+                e.getMessage());
+        mReplay = true;
+      }
+    }
+
+    replay();
+    mCommitted = mWritten;
+  }
+
+  /**
+   * Passes the records written since the last commit on through the per-event calls.
+   */
+  private void replay()
+  {
+    // Records older than a ring's length were overwritten.
+    int record = mWritten - mCommitted > CAPACITY ? mWritten - CAPACITY : mCommitted;
+
+    for (; record != mWritten; record++)
+    {
+      int offset = (record & (CAPACITY - 1)) * RECORD_SIZE;
+      int value = mBuffer.getInt(offset + 4);
+      float x = mBuffer.getFloat(offset + 8);
+      float y = mBuffer.getFloat(offset + 12);
+
+      switch (mBuffer.getInt(offset))
+      {
+        case RECORD_TOUCH:
+          replayTouch(value != 0, x, y);
+          break;
+
+        case RECORD_BUTTONS:
+          replayButtons(value);
+          break;
+
+        case RECORD_STICK:
+          NativeLibrary.onGamePadMoveEvent(NativeLibrary.TouchScreenDevice, value, x, y);
+          break;
+      }
+    }
+  }
+
+  private void replayTouch(boolean pressed, float x, float y)
+  {
+    if (pressed && mReplayedTouch)
+    {
+      NativeLibrary.onTouchMoved(x, y);
+    }
+    else
+    {
+      NativeLibrary.onTouchEvent(x, y, pressed);
+    }
+
+    mReplayedTouch = pressed;
+  }
+
+  private void replayButtons(int buttons)
+  {
+    for (int changed = buttons ^ mReplayedButtons; changed != 0; changed &= changed - 1)
+    {
+      int bit = Integer.numberOfTrailingZeros(changed);
+      boolean pressed = (buttons & (1 << bit)) != 0;
+
+      NativeLibrary.onGamePadEvent(NativeLibrary.TouchScreenDevice, getButtonId(bit),
+              pressed ? ButtonState.PRESSED : ButtonState.RELEASED);
+    }
+
+    mReplayedButtons = buttons;
+  }
+
+  private void put(int type, int value, float x, float y)
+  {
+    int offset = (mWritten & (CAPACITY - 1)) * RECORD_SIZE;
+
+    mBuffer.putInt(offset, type);
+    mBuffer.putInt(offset + 4, value);
+    mBuffer.putFloat(offset + 8, x);
+    mBuffer.putFloat(offset + 12, y);
+
+    mWritten++;
+  }
+}
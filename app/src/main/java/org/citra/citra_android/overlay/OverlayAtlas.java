@@ -0,0 +1,167 @@
+package org.citra.citra_android.overlay;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * A single bitmap holding every image the overlay controls can show, each already at the size it
+ * is drawn at. Drawing a control is then one copy of a region of the atlas, with no scaling or
+ * rotation, and the images of all controls share one allocation instead of a scaled bitmap per
+ * state.
+ * <p>
+ * Images are requested with {@link #add(int, int, int, int)} while the controls are laid out, and
+ * drawn into the atlas all at once by {@link #bake(Resources)}.
+ */
+final class OverlayAtlas
+{
+  // Keeps neighbouring images from bleeding into each other when filtered.
+  private static final int PADDING = 1;
+
+  private static final Paint sPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+  private final ArrayList<Entry> mEntries = new ArrayList<>();
+  private Bitmap mBitmap;
+
+  private static final class Entry
+  {
+    final int resId;
+    final int rotation;
+    final Rect region;
+
+    Entry(int resId, int width, int height, int rotation)
+    {
+      this.resId = resId;
+      this.rotation = rotation;
+      this.region = new Rect(0, 0, width, height);
+    }
+  }
+
+  /**
+   * Requests an image. Requesting the same image again returns the same region.
+   *
+   * @param resId    The resource to draw.
+   * @param width    The width to draw it at.
+   * @param height   The height to draw it at.
+   * @param rotation Clockwise rotation in degrees, a multiple of 90. Only for square images.
+   * @return Where in the atlas the image ends up. It has the requested size right away, and is
+   * moved to its place by {@link #bake(Resources)}.
+   */
+  public Rect add(int resId, int width, int height, int rotation)
+  {
+    for (Entry entry : mEntries)
+    {
+      if (entry.resId == resId && entry.rotation == rotation &&
+              entry.region.width() == width && entry.region.height() == height)
+      {
+        return entry.region;
+      }
+    }
+
+    Entry entry = new Entry(resId, width, height, rotation);
+    mEntries.add(entry);
+    return entry.region;
+  }
+
+  /**
+   * Packs the requested images into rows and draws them into a newly allocated atlas. Each
+   * resource is decoded once, and the decoded bitmap is released as soon as it has been drawn.
+   */
+  public void bake(Resources res)
+  {
+    if (mEntries.isEmpty())
+    {
+      return;
+    }
+
+    // Filling rows from the tallest image down wastes the least space.
+    ArrayList<Entry> entries = new ArrayList<>(mEntries);
+    Collections.sort(entries, (a, b) -> b.region.height() - a.region.height());
+
+    long area = 0;
+    int widest = 0;
+    for (Entry entry : entries)
+    {
+      int width = entry.region.width() + PADDING;
+      area += (long) width * (entry.region.height() + PADDING);
+      widest = Math.max(widest, width);
+    }
+    int atlasWidth = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+
+    int x = 0;
+    int y = 0;
+    int rowHeight = 0;
+    for (Entry entry : entries)
+    {
+      Rect region = entry.region;
+      if (x + region.width() + PADDING > atlasWidth)
+      {
+        x = 0;
+        y += rowHeight;
+        rowHeight = 0;
+      }
+
+      region.offsetTo(x, y);
+      x += region.width() + PADDING;
+      rowHeight = Math.max(rowHeight, region.height() + PADDING);
+    }
+
+    mBitmap = Bitmap.createBitmap(atlasWidth, y + rowHeight, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(mBitmap);
+
+    SparseArray<Bitmap> sources = new SparseArray<>();
+    for (Entry entry : entries)
+    {
+      Bitmap source = sources.get(entry.resId);
+      if (source == null)
+      {
+        source = BitmapFactory.decodeResource(res, entry.resId);
+        sources.put(entry.resId, source);
+      }
+
+      canvas.save();
+      canvas.rotate(entry.rotation, entry.region.exactCenterX(), entry.region.exactCenterY());
+      canvas.drawBitmap(source, null, entry.region, sPaint);
+      canvas.restore();
+    }
+
+    for (int i = 0; i < sources.size(); i++)
+    {
+      sources.valueAt(i).recycle();
+    }
+  }
+
+  /**
+   * Draws a region of the atlas.
+   *
+   * @param canvas The canvas to draw on.
+   * @param region A region returned by {@link #add(int, int, int, int)}.
+   * @param bounds Where to draw it.
+   */
+  public void draw(Canvas canvas, Rect region, Rect bounds)
+  {
+    if (mBitmap != null)
+    {
+      canvas.drawBitmap(mBitmap, region, bounds, sPaint);
+    }
+  }
+
+  /**
+   * Frees the atlas. Nothing is drawn from it afterwards.
+   */
+  public void recycle()
+  {
+    if (mBitmap != null)
+    {
+      mBitmap.recycle();
+      mBitmap = null;
+    }
+  }
+}
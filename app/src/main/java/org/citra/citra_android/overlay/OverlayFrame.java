@@ -0,0 +1,106 @@
+package org.citra.citra_android.overlay;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+
+/**
+ * What the overlay looks like at one moment: the regions of the atlas to draw and where, plus the
+ * area that changed since the frame before. Controls are recorded into a frame on the UI thread,
+ * and a copy of it is drawn on the render thread, so the two never share the state of a control.
+ * <p>
+ * The rectangles are kept between frames and reused, so recording doesn't allocate once the
+ * overlay has been drawn.
+ */
+final class OverlayFrame
+{
+  private final ArrayList<Rect> mRegions = new ArrayList<>();
+  private final ArrayList<Rect> mBounds = new ArrayList<>();
+  private int mCount;
+
+  private OverlayAtlas mAtlas;
+  private final Rect mDirty = new Rect();
+  private final Rect mClip = new Rect();
+
+  /**
+   * Empties the frame.
+   *
+   * @param atlas The atlas that the regions recorded next refer to.
+   */
+  public void reset(OverlayAtlas atlas)
+  {
+    mAtlas = atlas;
+    mCount = 0;
+    mDirty.setEmpty();
+  }
+
+  /**
+   * Records a region of the atlas to be drawn on top of those recorded before it.
+   *
+   * @param region A region of the atlas, which must not change afterwards.
+   * @param bounds Where to draw it. Copied, so it can change afterwards.
+   */
+  public void add(Rect region, Rect bounds)
+  {
+    if (mCount == mBounds.size())
+    {
+      mRegions.add(region);
+      mBounds.add(new Rect(bounds));
+    }
+    else
+    {
+      mRegions.set(mCount, region);
+      mBounds.get(mCount).set(bounds);
+    }
+
+    mCount++;
+  }
+
+  /**
+   * @return The area that changed, which is all that needs to be drawn again. Can be modified.
+   */
+  public Rect getDirty()
+  {
+    return mDirty;
+  }
+
+  public OverlayAtlas getAtlas()
+  {
+    return mAtlas;
+  }
+
+  /**
+   * Makes this frame a copy of another one.
+   */
+  public void set(OverlayFrame other)
+  {
+    reset(other.mAtlas);
+    for (int i = 0; i < other.mCount; i++)
+    {
+      add(other.mRegions.get(i), other.mBounds.get(i));
+    }
+    mDirty.set(other.mDirty);
+  }
+
+  /**
+   * Draws the recorded regions that lie within the canvas' clip.
+   */
+  public void draw(Canvas canvas)
+  {
+    if (mAtlas == null)
+    {
+      return;
+    }
+
+    canvas.getClipBounds(mClip);
+    for (int i = 0; i < mCount; i++)
+    {
+      Rect bounds = mBounds.get(i);
+      if (Rect.intersects(mClip, bounds))
+      {
+        mAtlas.draw(canvas, mRegions.get(i), bounds);
+      }
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package org.citra.citra_android.overlay;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.view.Choreographer;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+
+import org.citra.citra_android.utils.Log;
+
+/**
+ * Draws the input overlay into the surface of its {@link android.view.SurfaceView} on a thread of
+ * its own, so that drawing never holds up the UI thread handling touches. The UI thread hands over
+ * frames with {@link #submit(OverlayFrame)}; only the latest one is drawn, once per vsync at most,
+ * and only when something changed.
+ * <p>
+ * From Android 6.0 frames are drawn with a hardware canvas, which redraws the whole overlay from
+ * the atlas on the GPU. Before that, a software canvas locked on just the changed area is used.
+ */
+final class OverlayRenderer implements SurfaceHolder.Callback, Choreographer.FrameCallback
+{
+  private final Object mLock = new Object();
+
+  // Held while drawing, so that the surface isn't destroyed under the render thread.
+  private final Object mSurfaceLock = new Object();
+
+  // Guarded by mLock.
+  private final OverlayFrame mPending = new OverlayFrame();
+  private final Rect mPendingDirty = new Rect();
+  private boolean mHasPending;
+  private boolean mFrameRequested;
+  private int mSurfaceWidth;
+  private int mSurfaceHeight;
+  private boolean mSurfaceChanged;
+  private Handler mHandler;
+
+  // Guarded by mSurfaceLock.
+  private Surface mSurface;
+
+  // Only touched on the render thread, or before it starts.
+  private final OverlayFrame mFrame = new OverlayFrame();
+  private final Rect mDirty = new Rect();
+  private final Rect mSurfaceBounds = new Rect();
+  private OverlayAtlas mDrawnAtlas;
+  private Choreographer mChoreographer;
+
+  private HandlerThread mThread;
+
+  private final Runnable mScheduleFrame = this::scheduleFrame;
+
+  /**
+   * Starts the render thread. Frames submitted before are drawn once there is a surface.
+   */
+  public void start()
+  {
+    // Each thread paces its frames with the Choreographer of its own looper.
+    mChoreographer = null;
+
+    mThread = new HandlerThread("InputOverlayRenderer", Process.THREAD_PRIORITY_DISPLAY);
+    mThread.start();
+
+    synchronized (mLock)
+    {
+      mHandler = new Handler(mThread.getLooper());
+      mFrameRequested = false;
+      requestFrameLocked();
+    }
+  }
+
+  /**
+   * Stops the render thread once it is done with the frame it may be drawing.
+   */
+  public void quit()
+  {
+    synchronized (mLock)
+    {
+      mHandler = null;
+    }
+
+    mThread.quitSafely();
+    mThread = null;
+  }
+
+  /**
+   * Hands a frame over to be drawn. It is copied, so the caller can go on recording into it.
+   * A frame not drawn yet is replaced, but what changed in it is still drawn.
+   */
+  public void submit(OverlayFrame frame)
+  {
+    synchronized (mLock)
+    {
+      mPending.set(frame);
+      mPendingDirty.union(frame.getDirty());
+      mHasPending = true;
+      requestFrameLocked();
+    }
+  }
+
+  private void requestFrameLocked()
+  {
+    if (mHandler != null && !mFrameRequested)
+    {
+      mFrameRequested = true;
+      mHandler.post(mScheduleFrame);
+    }
+  }
+
+  private void scheduleFrame()
+  {
+    if (mChoreographer == null)
+    {
+      mChoreographer = Choreographer.getInstance();
+    }
+
+    mChoreographer.postFrameCallback(this);
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos)
+  {
+    synchronized (mLock)
+    {
+      mFrameRequested = false;
+
+      if (mHasPending)
+      {
+        mFrame.set(mPending);
+        mDirty.union(mPendingDirty);
+        mPendingDirty.setEmpty();
+        mHasPending = false;
+      }
+
+      // A new or resized surface has nothing on it yet.
+      if (mSurfaceChanged)
+      {
+        mSurfaceBounds.set(0, 0, mSurfaceWidth, mSurfaceHeight);
+        mDirty.set(mSurfaceBounds);
+        mSurfaceChanged = false;
+      }
+    }
+
+    if (mDirty.isEmpty())
+    {
+      return;
+    }
+
+    synchronized (mSurfaceLock)
+    {
+      // Without a surface, the changes are kept until there is one.
+      if (mSurface != null)
+      {
+        draw(mSurface);
+      }
+    }
+  }
+
+  private void draw(Surface surface)
+  {
+    // The area to draw could have changed size since the frames it comes from were recorded.
+    if (!mDirty.intersect(mSurfaceBounds))
+    {
+      mDirty.setEmpty();
+      return;
+    }
+
+    Canvas canvas;
+    try
+    {
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+      {
+        canvas = surface.lockHardwareCanvas();
+      }
+      else
+      {
+        // May grow the area if the buffer doesn't hold the previous frame.
+        canvas = surface.lockCanvas(mDirty);
+      }
+    }
+    catch (IllegalArgumentException | IllegalStateException | Surface.OutOfResourcesException e)
+    {
+      // The surface is going away; it is drawn in full once there is a new one.
+      Log.warning("[OverlayRenderer] Could not draw the overlay: " + e.getMessage());
+      return;
+    }
+
+    canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+    mFrame.draw(canvas);
+    surface.unlockCanvasAndPost(canvas);
+
+    mDirty.setEmpty();
+
+    // Frames recorded after the controls were rebuilt no longer refer to the old atlas.
+    OverlayAtlas atlas = mFrame.getAtlas();
+    if (mDrawnAtlas != null && mDrawnAtlas != atlas)
+    {
+      mDrawnAtlas.recycle();
+    }
+    mDrawnAtlas = atlas;
+  }
+
+  @Override
+  public void surfaceCreated(SurfaceHolder holder)
+  {
+  }
+
+  @Override
+  public void surfaceChanged(SurfaceHolder holder, int format, int width, int height)
+  {
+    synchronized (mSurfaceLock)
+    {
+      mSurface = holder.getSurface();
+    }
+
+    synchronized (mLock)
+    {
+      mSurfaceWidth = width;
+      mSurfaceHeight = height;
+      mSurfaceChanged = true;
+      requestFrameLocked();
+    }
+  }
+
+  @Override
+  public void surfaceDestroyed(SurfaceHolder holder)
+  {
+    // The surface must not be drawn on once this returns, so this waits for a frame in progress.
+    synchronized (mSurfaceLock)
+    {
+      mSurface = null;
+    }
+  }
+}
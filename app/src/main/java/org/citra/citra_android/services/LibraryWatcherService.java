@@ -0,0 +1,393 @@
+package org.citra.citra_android.services;
+
+import android.app.Service;
+import android.content.ContentProviderOperation;
+import android.content.Context;
+import android.content.Intent;
+import android.content.OperationApplicationException;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.os.FileObserver;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.RemoteException;
+import android.os.SystemClock;
+
+import org.citra.citra_android.model.Game;
+import org.citra.citra_android.model.GameDatabase;
+import org.citra.citra_android.model.GameMetadata;
+import org.citra.citra_android.model.GameMetadataReader;
+import org.citra.citra_android.model.GameProvider;
+import org.citra.citra_android.model.LibraryEventCoalescer;
+import org.citra.citra_android.model.LibraryScanner;
+import org.citra.citra_android.utils.FileFingerprint;
+import org.citra.citra_android.utils.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A service that watches every library folder, and its subdirectories, for ROMs being added,
+ * changed or removed. Events are coalesced into batches and applied to the games table through
+ * {@link GameProvider}, so observers are notified once per batch and a full library refresh isn't
+ * needed to pick up changes. It only runs while the game list is started; changes made while it
+ * isn't are picked up by the next library scan.
+ */
+public final class LibraryWatcherService extends Service
+{
+  private static final long QUIET_PERIOD = 1000;
+  private static final long MAX_DELAY = 10000;
+
+  private static final int MAX_DEPTH = 16;
+
+  // CREATE is only acted on for directories. A file is picked up once it has been written, with
+  // CLOSE_WRITE, or moved in whole, with MOVED_TO, so a ROM still being copied isn't read early.
+  private static final int EVENT_MASK = FileObserver.CREATE | FileObserver.DELETE |
+          FileObserver.MOVED_FROM | FileObserver.MOVED_TO | FileObserver.CLOSE_WRITE;
+
+  // Set by inotify alongside the event type when the subject is a directory.
+  private static final int IN_ISDIR = 0x40000000;
+
+  private static final int REMOVAL_EVENTS = FileObserver.DELETE | FileObserver.MOVED_FROM;
+
+  // Events after which a path exists that didn't just before.
+  private static final int CREATION_EVENTS = FileObserver.CREATE | FileObserver.MOVED_TO;
+
+  private final LibraryEventCoalescer mCoalescer =
+          new LibraryEventCoalescer(QUIET_PERIOD, MAX_DELAY);
+
+  // Only touched on the watcher thread.
+  private final Map<String, DirectoryObserver> mObservers = new HashMap<>();
+
+  private HandlerThread mThread;
+  private Handler mHandler;
+  private ContentObserver mFolderObserver;
+
+  private final Runnable mFlush = this::flush;
+
+  public static void startService(Context context)
+  {
+    Intent intent = new Intent(context, LibraryWatcherService.class);
+    context.startService(intent);
+  }
+
+  public static void stopService(Context context)
+  {
+    Intent intent = new Intent(context, LibraryWatcherService.class);
+    context.stopService(intent);
+  }
+
+  @Override
+  public void onCreate()
+  {
+    super.onCreate();
+
+    mThread = new HandlerThread("LibraryWatcher");
+    mThread.start();
+    mHandler = new Handler(mThread.getLooper());
+
+    // Start watching any folder the user adds to the library.
+    mFolderObserver = new ContentObserver(mHandler)
+    {
+      @Override
+      public void onChange(boolean selfChange)
+      {
+        watchLibraryFolders();
+      }
+    };
+    getContentResolver().registerContentObserver(GameProvider.URI_FOLDER, true, mFolderObserver);
+
+    mHandler.post(this::watchLibraryFolders);
+  }
+
+  @Override
+  public int onStartCommand(Intent intent, int flags, int startId)
+  {
+    // Not worth restarting once killed; the game list starts it again when it comes back.
+    return START_NOT_STICKY;
+  }
+
+  @Override
+  public IBinder onBind(Intent intent)
+  {
+    return null;
+  }
+
+  @Override
+  public void onDestroy()
+  {
+    getContentResolver().unregisterContentObserver(mFolderObserver);
+
+    mHandler.post(() ->
+    {
+      for (DirectoryObserver observer : mObservers.values())
+      {
+        observer.stopWatching();
+      }
+      mObservers.clear();
+    });
+    mThread.quitSafely();
+
+    super.onDestroy();
+  }
+
+  private void watchLibraryFolders()
+  {
+    Set<String> directories = new HashSet<>();
+
+    Cursor cursor = getContentResolver().query(GameProvider.URI_FOLDER,
+            new String[]{GameDatabase.KEY_FOLDER_PATH},
+            null,
+            null,
+            null);
+
+    if (cursor != null)
+    {
+      while (cursor.moveToNext())
+      {
+        collectDirectories(new File(cursor.getString(0)), directories, 0);
+      }
+      cursor.close();
+    }
+
+    // Stop watching directories that are no longer part of the library.
+    Iterator<Map.Entry<String, DirectoryObserver>> iterator = mObservers.entrySet().iterator();
+    while (iterator.hasNext())
+    {
+      Map.Entry<String, DirectoryObserver> entry = iterator.next();
+      if (!directories.contains(entry.getKey()))
+      {
+        entry.getValue().stopWatching();
+        iterator.remove();
+      }
+    }
+
+    for (String directory : directories)
+    {
+      watchDirectory(directory);
+    }
+
+    Log.info("[LibraryWatcherService] Watching " + mObservers.size() + " directories.");
+  }
+
+  private void watchDirectory(String path)
+  {
+    if (!mObservers.containsKey(path))
+    {
+      DirectoryObserver observer = new DirectoryObserver(path);
+      observer.startWatching();
+      mObservers.put(path, observer);
+    }
+  }
+
+  private void onFileEvent(int event, String path)
+  {
+    long now = SystemClock.uptimeMillis();
+
+    if ((event & REMOVAL_EVENTS) != 0)
+    {
+      mCoalescer.onPathRemoved(path, now);
+    }
+    else if ((event & CREATION_EVENTS) != 0)
+    {
+      mCoalescer.onPathCreated(path, now);
+    }
+    else
+    {
+      mCoalescer.onPathChanged(path, now);
+    }
+
+    scheduleFlush();
+  }
+
+  private void scheduleFlush()
+  {
+    mHandler.removeCallbacks(mFlush);
+
+    long dueTime = mCoalescer.getDueTime();
+    if (dueTime >= 0)
+    {
+      mHandler.postAtTime(mFlush, dueTime);
+    }
+  }
+
+  private void flush()
+  {
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(SystemClock.uptimeMillis());
+
+    if (batch != null)
+    {
+      applyBatch(batch);
+    }
+
+    scheduleFlush();
+  }
+
+  private void applyBatch(LibraryEventCoalescer.Batch batch)
+  {
+    ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+    for (String path : batch.getRemovedPaths())
+    {
+      stopWatchingUnder(path);
+
+      // Removes the game at this path, or every game below it if it was a directory.
+      String prefix = path + "/";
+      operations.add(ContentProviderOperation.newDelete(GameProvider.URI_GAME)
+              .withSelection(GameDatabase.KEY_GAME_PATH + " = ? OR substr(" +
+                              GameDatabase.KEY_GAME_PATH + ", 1, " + prefix.length() + ") = ?",
+                      new String[]{path, prefix})
+              .build());
+    }
+
+    List<File> files = new ArrayList<>();
+    for (String path : batch.getChangedPaths())
+    {
+      collectGameFiles(new File(path), files, 0);
+    }
+
+    if (!files.isEmpty())
+    {
+      String[] paths = new String[files.size()];
+      for (int i = 0; i < paths.length; i++)
+      {
+        paths[i] = files.get(i).getPath();
+      }
+
+      GameMetadata[] metadata = GameMetadataReader.NATIVE.read(paths);
+
+      for (int i = 0; i < paths.length; i++)
+      {
+        if (metadata[i] != null)
+        {
+          File file = files.get(i);
+          operations.add(ContentProviderOperation.newInsert(GameProvider.URI_GAME)
+                  .withValues(Game.asContentValues(file, metadata[i],
+                          FileFingerprint.compute(file)))
+                  .build());
+        }
+      }
+    }
+
+    if (operations.isEmpty())
+    {
+      return;
+    }
+
+    Log.info("[LibraryWatcherService] Applying " + operations.size() + " library changes.");
+
+    try
+    {
+      getContentResolver().applyBatch(GameProvider.URI_GAME.getAuthority(), operations);
+    }
+    catch (RemoteException | OperationApplicationException e)
+    {
+      Log.error("[LibraryWatcherService] Failed to apply library changes: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Adds the game files at or below the given path, and starts watching any new directories.
+   */
+  private void collectGameFiles(File file, List<File> files, int depth)
+  {
+    if (file.getName().startsWith(".") || depth > MAX_DEPTH)
+    {
+      return;
+    }
+
+    if (file.isDirectory())
+    {
+      watchDirectory(file.getPath());
+
+      String[] names = file.list();
+      if (names != null)
+      {
+        for (String name : names)
+        {
+          collectGameFiles(new File(file, name), files, depth + 1);
+        }
+      }
+    }
+    else if (LibraryScanner.isGameFile(file.getName()) && file.exists())
+    {
+      files.add(file);
+    }
+  }
+
+  private static void collectDirectories(File directory, Set<String> directories, int depth)
+  {
+    if (depth > MAX_DEPTH || !directories.add(directory.getPath()))
+    {
+      return;
+    }
+
+    File[] children = directory.listFiles(child ->
+            child.isDirectory() && !child.getName().startsWith("."));
+
+    if (children != null)
+    {
+      for (File child : children)
+      {
+        collectDirectories(child, directories, depth + 1);
+      }
+    }
+  }
+
+  private void stopWatchingUnder(String path)
+  {
+    Iterator<Map.Entry<String, DirectoryObserver>> iterator = mObservers.entrySet().iterator();
+    while (iterator.hasNext())
+    {
+      Map.Entry<String, DirectoryObserver> entry = iterator.next();
+      String directory = entry.getKey();
+
+      if (directory.equals(path) || directory.startsWith(path + "/"))
+      {
+        entry.getValue().stopWatching();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * FileObserver isn't recursive, so one of these watches each directory in the library. Events
+   * arrive on the observer's own thread and are handed over to the watcher thread.
+   */
+  private final class DirectoryObserver extends FileObserver
+  {
+    private final String mDirectory;
+
+    DirectoryObserver(String directory)
+    {
+      super(directory, EVENT_MASK);
+      mDirectory = directory;
+    }
+
+    @Override
+    public void onEvent(int event, String name)
+    {
+      if (name == null || name.startsWith("."))
+      {
+        return;
+      }
+
+      String path = mDirectory + "/" + name;
+      int type = event & FileObserver.ALL_EVENTS;
+
+      if (type == FileObserver.CREATE && (event & IN_ISDIR) == 0)
+      {
+        return;
+      }
+
+      mHandler.post(() -> onFileEvent(type, path));
+    }
+  }
+}
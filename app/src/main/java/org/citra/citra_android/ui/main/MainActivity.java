@@ -2,7 +2,6 @@ package org.citra.citra_android.ui.main;
 
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.design.widget.FloatingActionButton;
@@ -16,14 +15,16 @@ import android.view.MenuItem;
 import android.widget.Toast;
 
 import org.citra.citra_android.R;
-import org.citra.citra_android.model.GameProvider;
+import org.citra.citra_android.adapters.GameListDiff;
 import org.citra.citra_android.services.DirectoryInitializationService;
+import org.citra.citra_android.services.LibraryWatcherService;
 import org.citra.citra_android.ui.platform.Platform;
 import org.citra.citra_android.ui.platform.PlatformGamesFragment;
 import org.citra.citra_android.ui.platform.PlatformGamesView;
 import org.citra.citra_android.ui.settings.SettingsActivity;
 import org.citra.citra_android.utils.AddDirectoryHelper;
 import org.citra.citra_android.utils.FileBrowserHelper;
+import org.citra.citra_android.utils.LibraryRefreshHelper;
 import org.citra.citra_android.utils.PermissionsHandler;
 import org.citra.citra_android.utils.StartupHandler;
 
@@ -39,6 +40,7 @@ public final class MainActivity extends AppCompatActivity implements MainView
   private int mFrameLayoutId;
   private PlatformGamesFragment mPlatformGamesFragment;
   private FloatingActionButton mFab;
+  private String mVersion;
 
   private MainPresenter mPresenter = new MainPresenter(this);
 
@@ -71,6 +73,19 @@ public final class MainActivity extends AppCompatActivity implements MainView
     }
   }
 
+  @Override
+  protected void onStart()
+  {
+    super.onStart();
+    mPresenter.onStart(new LibraryRefreshHelper(this));
+
+    // Only watch the library while it is on screen.
+    if (PermissionsHandler.hasWriteAccess(this))
+    {
+      LibraryWatcherService.startService(this);
+    }
+  }
+
   @Override
   protected void onResume()
   {
@@ -78,6 +93,18 @@ public final class MainActivity extends AppCompatActivity implements MainView
     mPresenter.addDirIfNeeded(new AddDirectoryHelper(this));
   }
 
+  @Override
+  protected void onStop()
+  {
+    super.onStop();
+    mPresenter.onStop();
+
+    if (!isChangingConfigurations())
+    {
+      LibraryWatcherService.stopService(this);
+    }
+  }
+
   // TODO: Replace with a ButterKnife injection.
   private void findViews()
   {
@@ -100,16 +127,28 @@ public final class MainActivity extends AppCompatActivity implements MainView
   @Override
   public void setVersionString(String version)
   {
+    mVersion = version;
     mToolbar.setSubtitle(version);
   }
 
   @Override
   public void refresh()
   {
-    getContentResolver().insert(GameProvider.URI_REFRESH, null);
     refreshFragment();
   }
 
+  @Override
+  public void showScanProgress(int completed, int total)
+  {
+    mToolbar.setSubtitle(getString(R.string.scanning_library, completed, total));
+  }
+
+  @Override
+  public void hideScanProgress()
+  {
+    mToolbar.setSubtitle(mVersion);
+  }
+
   @Override
   public void refreshFragmentScreenshot(int fragmentPosition)
   {
@@ -135,7 +174,7 @@ public final class MainActivity extends AppCompatActivity implements MainView
   }
 
   @Override
-  public void showGames(Platform platform, Cursor games)
+  public void showGames(Platform platform, GameListDiff.Result games)
   {
     // no-op. Handled by PlatformGamesFragment.
   }
@@ -173,6 +212,7 @@ public final class MainActivity extends AppCompatActivity implements MainView
         if (grantResults[0] == PackageManager.PERMISSION_GRANTED)
         {
           DirectoryInitializationService.startService(this);
+          LibraryWatcherService.startService(this);
 
           mPlatformGamesFragment = PlatformGamesFragment.newInstance(Platform.fromInt(0));
           getSupportFragmentManager().beginTransaction().add(mFrameLayoutId, mPlatformGamesFragment)
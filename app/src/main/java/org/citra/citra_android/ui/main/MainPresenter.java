@@ -4,13 +4,15 @@ package org.citra.citra_android.ui.main;
 import org.citra.citra_android.BuildConfig;
 import org.citra.citra_android.DolphinApplication;
 import org.citra.citra_android.R;
-import org.citra.citra_android.model.GameDatabase;
+import org.citra.citra_android.adapters.GameListDiff;
+import org.citra.citra_android.model.LibraryRepository;
 import org.citra.citra_android.ui.platform.Platform;
 import org.citra.citra_android.utils.AddDirectoryHelper;
+import org.citra.citra_android.utils.LibraryRefreshHelper;
 import org.citra.citra_android.utils.SettingsFile;
 
 import rx.android.schedulers.AndroidSchedulers;
-import rx.schedulers.Schedulers;
+import rx.subscriptions.CompositeSubscription;
 
 public final class MainPresenter
 {
@@ -20,6 +22,9 @@ public final class MainPresenter
   private final MainView mView;
   private String mDirToAdd;
 
+  private CompositeSubscription mGamesSubscription;
+  private LibraryRefreshHelper mRefreshHelper;
+
   public MainPresenter(MainView view)
   {
     mView = view;
@@ -31,6 +36,34 @@ public final class MainPresenter
     mView.setVersionString(versionName);
   }
 
+  /**
+   * Starts showing the progress of library scans, while the view is visible.
+   */
+  public void onStart(LibraryRefreshHelper helper)
+  {
+    mRefreshHelper = helper;
+    mRefreshHelper.startObservingProgress(mView::showScanProgress);
+  }
+
+  public void onStop()
+  {
+    mRefreshHelper.stopObservingProgress();
+  }
+
+  public void onDestroy()
+  {
+    unsubscribeGames();
+  }
+
+  private void unsubscribeGames()
+  {
+    if (mGamesSubscription != null)
+    {
+      mGamesSubscription.unsubscribe();
+      mGamesSubscription = null;
+    }
+  }
+
   public void onFabClick()
   {
     mView.launchFileListActivity();
@@ -45,9 +78,7 @@ public final class MainPresenter
         return true;
 
       case R.id.menu_refresh:
-        GameDatabase databaseHelper = DolphinApplication.databaseHelper;
-        databaseHelper.scanLibrary(databaseHelper.getWritableDatabase());
-        mView.refresh();
+        refreshLibrary();
         return true;
 
       case R.id.button_add_directory:
@@ -58,11 +89,26 @@ public final class MainPresenter
     return false;
   }
 
+  /**
+   * Scans the library folders through the provider, which reports its progress to the view, then
+   * tells the view to refresh.
+   */
+  private void refreshLibrary()
+  {
+    mRefreshHelper.refresh(this::onLibraryRefreshed);
+  }
+
+  private void onLibraryRefreshed()
+  {
+    mView.hideScanProgress();
+    mView.refresh();
+  }
+
   public void addDirIfNeeded(AddDirectoryHelper helper)
   {
     if (mDirToAdd != null)
     {
-      helper.addDirectory(mDirToAdd, mView::refresh);
+      helper.addDirectory(mDirToAdd, this::onLibraryRefreshed);
 
       mDirToAdd = null;
     }
@@ -79,13 +125,22 @@ public final class MainPresenter
   }
 
 
-  public void loadGames(final Platform platform)
+  /**
+   * Passes every platform's games to the view, then passes them again whenever a new library
+   * snapshot changes them.
+   */
+  public void loadGames()
   {
-    GameDatabase databaseHelper = DolphinApplication.databaseHelper;
+    unsubscribeGames();
 
-    databaseHelper.getGamesForPlatform(platform)
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(games -> mView.showGames(platform, games));
+    LibraryRepository repository = DolphinApplication.libraryRepository;
+    mGamesSubscription = new CompositeSubscription();
+
+    for (Platform platform : Platform.values())
+    {
+      mGamesSubscription.add(GameListDiff.diffPlatformGames(repository.getSnapshots(), platform)
+              .observeOn(AndroidSchedulers.mainThread())
+              .subscribe(games -> mView.showGames(platform, games)));
+    }
   }
 }
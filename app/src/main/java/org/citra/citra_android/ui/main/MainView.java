@@ -1,7 +1,6 @@
 package org.citra.citra_android.ui.main;
 
-import android.database.Cursor;
-
+import org.citra.citra_android.adapters.GameListDiff;
 import org.citra.citra_android.ui.platform.Platform;
 
 /**
@@ -24,6 +23,19 @@ public interface MainView
    */
   void refresh();
 
+  /**
+   * Show how far a scan of the library folders has got.
+   *
+   * @param completed The number of changed files read so far.
+   * @param total     The number of changed files the scan reads.
+   */
+  void showScanProgress(int completed, int total);
+
+  /**
+   * Stop showing the progress of a library scan, once it is done.
+   */
+  void hideScanProgress();
+
   /**
    * Tell the view to tell the currently displayed {@link android.support.v4.app.Fragment}
    * to refresh the screenshot at the given position in its list of games.
@@ -38,11 +50,11 @@ public interface MainView
   void launchFileListActivity();
 
   /**
-   * To be called when an asynchronous database read completes. Passes the
-   * result, in this case a {@link Cursor} to the view.
+   * To be called when a new library snapshot changes a platform's games. Passes the
+   * result, in this case the games and how they differ from those shown, to the view.
    *
    * @param platform Which platform to show games for.
-   * @param games    A Cursor containing the games read from the database.
+   * @param games    The platform's games from the snapshot.
    */
-  void showGames(Platform platform, Cursor games);
+  void showGames(Platform platform, GameListDiff.Result games);
 }
@@ -2,13 +2,10 @@ package org.citra.citra_android.ui.main;
 
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.support.v17.leanback.app.BrowseFragment;
 import android.support.v17.leanback.app.BrowseSupportFragment;
-import android.support.v17.leanback.database.CursorMapper;
 import android.support.v17.leanback.widget.ArrayObjectAdapter;
-import android.support.v17.leanback.widget.CursorObjectAdapter;
 import android.support.v17.leanback.widget.HeaderItem;
 import android.support.v17.leanback.widget.ListRow;
 import android.support.v17.leanback.widget.ListRowPresenter;
@@ -19,27 +16,36 @@ import android.widget.Toast;
 
 import org.citra.citra_android.R;
 import org.citra.citra_android.activities.EmulationActivity;
+import org.citra.citra_android.adapters.GameListDiff;
+import org.citra.citra_android.adapters.GameObjectAdapter;
 import org.citra.citra_android.adapters.GameRowPresenter;
 import org.citra.citra_android.adapters.SettingsRowPresenter;
-import org.citra.citra_android.model.Game;
 import org.citra.citra_android.model.TvSettingsItem;
 import org.citra.citra_android.services.DirectoryInitializationService;
+import org.citra.citra_android.services.LibraryWatcherService;
 import org.citra.citra_android.ui.platform.Platform;
 import org.citra.citra_android.ui.settings.SettingsActivity;
 import org.citra.citra_android.utils.AddDirectoryHelper;
 import org.citra.citra_android.utils.FileBrowserHelper;
+import org.citra.citra_android.utils.LibraryRefreshHelper;
 import org.citra.citra_android.utils.PermissionsHandler;
 import org.citra.citra_android.utils.StartupHandler;
 import org.citra.citra_android.viewholders.TvGameViewHolder;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 public final class TvMainActivity extends FragmentActivity implements MainView
 {
   private MainPresenter mPresenter = new MainPresenter(this);
 
   private BrowseSupportFragment mBrowseFragment;
+  private String mVersion;
 
   private ArrayObjectAdapter mRowsAdapter;
 
+  private final Map<Platform, GameObjectAdapter> mGameRows = new EnumMap<>(Platform.class);
+
   @Override
   protected void onCreate(Bundle savedInstanceState)
   {
@@ -55,6 +61,19 @@ public final class TvMainActivity extends FragmentActivity implements MainView
       StartupHandler.HandleInit(this);
   }
 
+  @Override
+  protected void onStart()
+  {
+    super.onStart();
+    mPresenter.onStart(new LibraryRefreshHelper(this));
+
+    // Only watch the library while it is on screen.
+    if (PermissionsHandler.hasWriteAccess(this))
+    {
+      LibraryWatcherService.startService(this);
+    }
+  }
+
   @Override
   protected void onResume()
   {
@@ -62,6 +81,26 @@ public final class TvMainActivity extends FragmentActivity implements MainView
     mPresenter.addDirIfNeeded(new AddDirectoryHelper(this));
   }
 
+  @Override
+  protected void onStop()
+  {
+    super.onStop();
+    mPresenter.onStop();
+
+    if (!isChangingConfigurations())
+    {
+      LibraryWatcherService.stopService(this);
+    }
+  }
+
+  @Override
+  protected void onDestroy()
+  {
+    super.onDestroy();
+
+    mPresenter.onDestroy();
+  }
+
   void setupUI()
   {
     final FragmentManager fragmentManager = getSupportFragmentManager();
@@ -107,9 +146,22 @@ public final class TvMainActivity extends FragmentActivity implements MainView
   @Override
   public void setVersionString(String version)
   {
+    mVersion = version;
     mBrowseFragment.setTitle(version);
   }
 
+  @Override
+  public void showScanProgress(int completed, int total)
+  {
+    mBrowseFragment.setTitle(getString(R.string.scanning_library, completed, total));
+  }
+
+  @Override
+  public void hideScanProgress()
+  {
+    mBrowseFragment.setTitle(mVersion);
+  }
+
   @Override
   public void refresh()
   {
@@ -135,8 +187,16 @@ public final class TvMainActivity extends FragmentActivity implements MainView
   }
 
   @Override
-  public void showGames(Platform platform, Cursor games)
+  public void showGames(Platform platform, GameListDiff.Result games)
   {
+    // Update an existing row in place, so only the games that changed are rebound.
+    GameObjectAdapter existingRow = mGameRows.get(platform);
+    if (existingRow != null)
+    {
+      existingRow.setGames(games);
+      return;
+    }
+
     ListRow row = buildGamesRow(platform, games);
 
     // Add row to the adapter only if it is not empty.
@@ -181,6 +241,7 @@ public final class TvMainActivity extends FragmentActivity implements MainView
         if (grantResults[0] == PackageManager.PERMISSION_GRANTED)
         {
           DirectoryInitializationService.startService(this);
+          LibraryWatcherService.startService(this);
           loadGames();
         }
         else
@@ -211,40 +272,21 @@ public final class TvMainActivity extends FragmentActivity implements MainView
 
   private void loadGames()
   {
-    for (Platform platform : Platform.values())
-    {
-      mPresenter.loadGames(platform);
-    }
+    mPresenter.loadGames();
   }
 
-  private ListRow buildGamesRow(Platform platform, Cursor games)
+  private ListRow buildGamesRow(Platform platform, GameListDiff.Result games)
   {
-    // Create an adapter for this row.
-    CursorObjectAdapter row = new CursorObjectAdapter(new GameRowPresenter());
-
-    // If cursor is empty, don't return a Row.
-    if (!games.moveToFirst())
+    // If the platform has no games, don't return a Row.
+    if (games.getGames().isEmpty())
     {
       return null;
     }
 
-    row.changeCursor(games);
-    row.setMapper(new CursorMapper()
-    {
-      @Override
-      protected void bindColumns(Cursor cursor)
-      {
-        // No-op? Not sure what this does.
-      }
-
-      @Override
-      protected Object bind(Cursor cursor)
-      {
-        return Game.fromCursor(cursor);
-      }
-    });
-
-    String headerName = platform.getHeaderName();
+    // Create an adapter for this row.
+    GameObjectAdapter row = new GameObjectAdapter(new GameRowPresenter());
+    row.setGames(games);
+    mGameRows.put(platform, row);
 
     // Create a header for this row.
     HeaderItem header = new HeaderItem(platform.toInt(), platform.getHeaderName());
@@ -1,6 +1,5 @@
 package org.citra.citra_android.ui.platform;
 
-import android.database.Cursor;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
@@ -12,6 +11,7 @@ import android.view.ViewGroup;
 
 import org.citra.citra_android.R;
 import org.citra.citra_android.adapters.GameAdapter;
+import org.citra.citra_android.adapters.GameListDiff;
 
 public final class PlatformGamesFragment extends Fragment implements PlatformGamesView
 {
@@ -67,6 +67,14 @@ public final class PlatformGamesFragment extends Fragment implements PlatformGam
     mRecyclerView.addItemDecoration(new GameAdapter.SpacesItemDecoration(8));
   }
 
+  @Override
+  public void onDestroyView()
+  {
+    super.onDestroyView();
+
+    mPresenter.onDestroyView();
+  }
+
   @Override
   public void refreshScreenshotAtPosition(int position)
   {
@@ -86,11 +94,11 @@ public final class PlatformGamesFragment extends Fragment implements PlatformGam
   }
 
   @Override
-  public void showGames(Cursor games)
+  public void showGames(GameListDiff.Result games)
   {
     if (mAdapter != null)
     {
-      mAdapter.swapCursor(games);
+      mAdapter.setGames(games);
     }
   }
 
@@ -2,11 +2,12 @@ package org.citra.citra_android.ui.platform;
 
 
 import org.citra.citra_android.DolphinApplication;
-import org.citra.citra_android.model.GameDatabase;
+import org.citra.citra_android.adapters.GameListDiff;
+import org.citra.citra_android.model.LibraryRepository;
 import org.citra.citra_android.utils.Log;
 
+import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
-import rx.schedulers.Schedulers;
 
 public final class PlatformGamesPresenter
 {
@@ -14,6 +15,8 @@ public final class PlatformGamesPresenter
 
   private Platform mPlatform;
 
+  private Subscription mGamesSubscription;
+
   public PlatformGamesPresenter(PlatformGamesView view)
   {
     mView = view;
@@ -29,25 +32,38 @@ public final class PlatformGamesPresenter
     loadGames();
   }
 
+  public void onDestroyView()
+  {
+    if (mGamesSubscription != null)
+    {
+      mGamesSubscription.unsubscribe();
+      mGamesSubscription = null;
+    }
+  }
+
+  /**
+   * Reads the library again. Any games that changed are passed on to the view once read.
+   */
   public void refresh()
   {
     Log.debug("[PlatformGamesPresenter] " + mPlatform + ": Refreshing...");
-    loadGames();
+    DolphinApplication.libraryRepository.reload();
   }
 
   private void loadGames()
   {
     Log.debug("[PlatformGamesPresenter] " + mPlatform + ": Loading games...");
 
-    GameDatabase databaseHelper = DolphinApplication.databaseHelper;
+    onDestroyView();
+
+    LibraryRepository repository = DolphinApplication.libraryRepository;
 
-    databaseHelper.getGamesForPlatform(mPlatform)
-            .subscribeOn(Schedulers.io())
+    mGamesSubscription = GameListDiff.diffPlatformGames(repository.getSnapshots(), mPlatform)
             .observeOn(AndroidSchedulers.mainThread())
             .subscribe(games ->
             {
               Log.debug("[PlatformGamesPresenter] " + mPlatform +
-                      ": Load finished, swapping cursor...");
+                      ": Load finished, showing games...");
 
               mView.showGames(games);
             });
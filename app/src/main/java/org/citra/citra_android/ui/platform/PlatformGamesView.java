@@ -1,6 +1,6 @@
 package org.citra.citra_android.ui.platform;
 
-import android.database.Cursor;
+import org.citra.citra_android.adapters.GameListDiff;
 
 /**
  * Abstraction for a screen representing a single platform's games.
@@ -29,10 +29,10 @@ public interface PlatformGamesView
   void onItemClick(String gameId);
 
   /**
-   * To be called when an asynchronous database read completes. Passes the
-   * result, in this case a {@link Cursor}, to the view.
+   * To be called when a new library snapshot changes the platform's games. Passes the
+   * result, in this case the games and how they differ from those shown, to the view.
    *
-   * @param games A Cursor containing the games read from the database.
+   * @param games The platform's games from the snapshot.
    */
-  void showGames(Cursor games);
+  void showGames(GameListDiff.Result games);
 }
@@ -212,17 +212,6 @@ public final class SettingsActivity extends AppCompatActivity implements Setting
 		}
 	}
 
-	@Override
-	public void onSettingsFileNotFound()
-	{
-		SettingsFragmentView fragment = getFragment();
-
-		if (fragment != null)
-		{
-			fragment.loadDefaultSettings();
-		}
-	}
-
 	@Override
 	public void showToastMessage(String message)
 	{
@@ -6,14 +6,15 @@ import android.text.TextUtils;
 
 import org.citra.citra_android.NativeLibrary;
 import org.citra.citra_android.R;
+import org.citra.citra_android.model.settings.LayeredSettings;
 import org.citra.citra_android.model.settings.SettingSection;
 import org.citra.citra_android.services.DirectoryInitializationService;
 import org.citra.citra_android.services.DirectoryInitializationService.DirectoryInitializationState;
 import org.citra.citra_android.utils.DirectoryStateReceiver;
 import org.citra.citra_android.utils.Log;
+import org.citra.citra_android.utils.SettingsCache;
 import org.citra.citra_android.utils.SettingsFile;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -41,12 +42,11 @@ public final class SettingsActivityPresenter
 
 	public void onCreate(Bundle savedInstanceState, String menuTag, String gameId)
 	{
-		if (savedInstanceState == null)
-		{
-			this.menuTag = menuTag;
-			this.gameId = gameId;
-		}
-		else
+		// These come from the launching Intent, so they are just as valid after a recreation.
+		this.menuTag = menuTag;
+		this.gameId = gameId;
+
+		if (savedInstanceState != null)
 		{
 			mShouldSave = savedInstanceState.getBoolean(KEY_SHOULD_SAVE);
 		}
@@ -61,14 +61,10 @@ public final class SettingsActivityPresenter
 	{
 		if (mSettings.isEmpty())
 		{
-			if (!TextUtils.isEmpty(gameId))
-			{
-				mSettings.add(SettingsFile.SETTINGS_DOLPHIN, SettingsFile.readFile("../GameSettings/" + gameId, mView));
-			}
-			else
-			{
-				mSettings.add(SettingsFile.SETTINGS_DOLPHIN, SettingsFile.readFile(SettingsFile.FILE_NAME_CONFIG, mView));
-			}
+			// Resolved from the cached global and per-game layers, so files are only parsed the first time.
+			// A missing file reads as all defaults, so there is nothing else to do for it.
+			LayeredSettings settings = SettingsCache.getInstance().getSettings(gameId);
+			mSettings.add(SettingsFile.SETTINGS_DOLPHIN, SettingsFile.sectionsFromSettings(settings));
 		}
 
 		mView.showSettingsFragment(menuTag, false, gameId);
@@ -77,10 +73,6 @@ public final class SettingsActivityPresenter
 
 	private void prepareDolphinDirectoriesIfNeeded()
 	{
-		File configFile = new File(DirectoryInitializationService.getUserDirectory() + "/config/"+SettingsFile.FILE_NAME_CONFIG + ".ini");
-    if(!configFile.exists()) {
-
-		}
 		if (DirectoryInitializationService.areDolphinDirectoriesReady()) {
 			loadSettingsUI();
 		} else {
@@ -132,19 +124,40 @@ public final class SettingsActivityPresenter
 
 		if (mSettings != null && finishing && mShouldSave)
 		{
-				if (!TextUtils.isEmpty(gameId)) {
-					Log.debug("[SettingsActivity] Settings activity stopping. Saving settings to INI...");
-					// Needed workaround for now due to an odd bug in how it handles saving two different settings sections to the same file. It won't save GFX settings if it follows the normal saving pattern
-					if (menuTag.equals("Dolphin"))
-					{
-						SettingsFile.saveFile("../GameSettings/" + gameId, mSettings.get(SettingsFile.SETTINGS_DOLPHIN), mView);
-					}
-					mView.showToastMessage("Saved settings for " + gameId);
-				} else {
-					Log.debug("[SettingsActivity] Settings activity stopping. Saving settings to INI...");
-					SettingsFile.saveFile(SettingsFile.FILE_NAME_CONFIG, mSettings.get(SettingsFile.SETTINGS_DOLPHIN), mView);
-					mView.showToastMessage("Saved settings to INI files");
-				}
+			Log.debug("[SettingsActivity] Settings activity stopping. Saving settings to INI...");
+			saveSettings(true);
+
+			if (!TextUtils.isEmpty(gameId))
+			{
+				mView.showToastMessage("Saved settings for " + gameId);
+			}
+			else
+			{
+				mView.showToastMessage("Saved settings to INI files");
+			}
+		}
+	}
+
+	/**
+	 * Hands the settings that changed since the last save to the background writer.
+	 *
+	 * @param immediately Whether to write right away, rather than waiting for further changes.
+	 */
+	private void saveSettings(boolean immediately)
+	{
+		if (mSettings == null || mSettings.isEmpty())
+		{
+			return;
+		}
+
+		// Only changed keys are saved, so a game's file only gets the values overridden for it.
+		if (!TextUtils.isEmpty(gameId))
+		{
+			SettingsFile.saveFile(SettingsFile.getGameSettingsFileName(gameId), mSettings.get(SettingsFile.SETTINGS_DOLPHIN), immediately);
+		}
+		else
+		{
+			SettingsFile.saveFile(SettingsFile.FILE_NAME_CONFIG, mSettings.get(SettingsFile.SETTINGS_DOLPHIN), immediately);
 		}
 	}
 
@@ -181,6 +194,9 @@ public final class SettingsActivityPresenter
 	public void onSettingChanged()
 	{
 		mShouldSave = true;
+
+		// Rapid changes are merged by the writer, so only the last of them touches the disk.
+		saveSettings(false);
 	}
 
 	public void saveState(Bundle outState)
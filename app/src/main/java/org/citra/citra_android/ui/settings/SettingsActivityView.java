@@ -47,11 +47,6 @@ public interface SettingsActivityView
 	 */
 	void onSettingsFileLoaded(ArrayList<HashMap<String, SettingSection>> settings);
 
-	/**
-	 * Called when an asynchronous load operation fails.
-	 */
-	void onSettingsFileNotFound();
-
 	/**
 	 * Display a popup text message on screen.
 	 *
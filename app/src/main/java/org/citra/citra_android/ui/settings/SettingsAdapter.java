@@ -314,39 +314,43 @@ public final class SettingsAdapter extends RecyclerView.Adapter<SettingViewHolde
 		}
 		else if (mClickedItem instanceof SliderSetting)
 		{
-			SliderSetting sliderSetting = (SliderSetting) mClickedItem;
-			if (sliderSetting.getSetting() instanceof FloatSetting)
-			{
-				float value;
+			setSliderValue((SliderSetting) mClickedItem, mSeekbarProgress);
+		}
 
-				if (sliderSetting.getKey().equals(SettingsFile.KEY_FRAME_LIMIT))
-				{
-					value = mSeekbarProgress / 100.0f;
-				}
-				else
-				{
-					value = (float) mSeekbarProgress;
-				}
+		mView.onSettingChanged();
+		mClickedItem = null;
+		mSeekbarProgress = -1;
+	}
 
-				FloatSetting setting = sliderSetting.setSelectedValue(value);
-				if (setting != null)
-				{
-					mView.putSetting(setting);
-				}
+	private void setSliderValue(SliderSetting sliderSetting, int progress)
+	{
+		if (sliderSetting.getSetting() instanceof FloatSetting)
+		{
+			float value;
+
+			if (sliderSetting.getKey().equals(SettingsFile.KEY_FRAME_LIMIT))
+			{
+				value = progress / 100.0f;
 			}
 			else
 			{
-				IntSetting setting = sliderSetting.setSelectedValue(mSeekbarProgress);
-				if (setting != null)
-				{
-					mView.putSetting(setting);
-				}
+				value = (float) progress;
 			}
-		}
 
-		mView.onSettingChanged();
-		mClickedItem = null;
-		mSeekbarProgress = -1;
+			FloatSetting setting = sliderSetting.setSelectedValue(value);
+			if (setting != null)
+			{
+				mView.putSetting(setting);
+			}
+		}
+		else
+		{
+			IntSetting setting = sliderSetting.setSelectedValue(progress);
+			if (setting != null)
+			{
+				mView.putSetting(setting);
+			}
+		}
 	}
 
 	public void closeDialog()
@@ -363,6 +367,13 @@ public final class SettingsAdapter extends RecyclerView.Adapter<SettingViewHolde
 	{
 		mSeekbarProgress = progress;
 		mTextSliderValue.setText(String.valueOf(mSeekbarProgress));
+
+		// Apply while dragging, so a running game shows the effect; saves and live updates are batched, so the whole drag costs one of each.
+		if (fromUser && mClickedItem instanceof SliderSetting)
+		{
+			setSliderValue((SliderSetting) mClickedItem, progress);
+			mView.onSettingChanged();
+		}
 	}
 
 	@Override
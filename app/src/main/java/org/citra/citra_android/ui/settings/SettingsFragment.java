@@ -138,12 +138,6 @@ public final class SettingsFragment extends Fragment implements SettingsFragment
 		mAdapter.setSettings(settingsList);
 	}
 
-	@Override
-	public void loadDefaultSettings()
-	{
-		mPresenter.loadDefaultSettings();
-	}
-
 	@Override
 	public void loadSubMenu(String menuKey)
 	{
@@ -5,7 +5,9 @@ import android.text.TextUtils;
 import org.citra.citra_android.R;
 import org.citra.citra_android.model.settings.IntSetting;
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
 import org.citra.citra_android.model.settings.SettingSection;
+import org.citra.citra_android.model.settings.SettingsSchema;
 import org.citra.citra_android.model.settings.view.CheckBoxSetting;
 import org.citra.citra_android.model.settings.view.DateTimeSetting;
 import org.citra.citra_android.model.settings.view.HeaderSetting;
@@ -66,11 +68,6 @@ public final class SettingsFragmentPresenter
 		mSettings.get(setting.getFile()).get(setting.getSection()).putSetting(setting);
 	}
 
-	public void loadDefaultSettings()
-	{
-		loadSettingsList();
-	}
-
 	public void setSettings(ArrayList<HashMap<String, SettingSection>> settings)
 	{
 		if (mSettingsList == null && settings != null)
@@ -119,11 +116,11 @@ public final class SettingsFragmentPresenter
 
 		if (!mSettings.get(SettingsFile.SETTINGS_DOLPHIN).isEmpty())
 		{
-			useCpuJit = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_CORE).getSetting(SettingsFile.KEY_CPU_JIT);
-			audioStretch = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_AUDIO).getSetting(SettingsFile.KEY_ENABLE_AUDIO_STRETCHING);
-			region = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_SYSTEM).getSetting(SettingsFile.KEY_REGION_VALUE);
-			systemClock = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_SYSTEM).getSetting(SettingsFile.KEY_INIT_CLOCK);
-			dateTime = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_SYSTEM).getSetting(SettingsFile.KEY_INIT_TIME);
+			useCpuJit = getSetting(SettingsSchema.CPU_JIT);
+			audioStretch = getSetting(SettingsSchema.ENABLE_AUDIO_STRETCHING);
+			region = getSetting(SettingsSchema.REGION_VALUE);
+			systemClock = getSetting(SettingsSchema.INIT_CLOCK);
+			dateTime = getSetting(SettingsSchema.INIT_TIME);
 		}
 		else
 		{
@@ -134,17 +131,16 @@ public final class SettingsFragmentPresenter
 		switch (defaultCpuCore)
 		{
 			case "x86_64":
-				sl.add(new CheckBoxSetting(SettingsFile.KEY_CPU_JIT, SettingsFile.SECTION_CORE,
-								SettingsFile.SETTINGS_DOLPHIN, R.string.cpu_jit, 0, true, useCpuJit));
+				sl.add(new CheckBoxSetting(SettingsSchema.CPU_JIT, SettingsFile.SETTINGS_DOLPHIN, R.string.cpu_jit, 0, useCpuJit));
 				break;
 			case "aarch64":
 			default:
 				break;
 		}
-		sl.add(new SingleChoiceSetting(SettingsFile.KEY_REGION_VALUE, SettingsFile.SECTION_SYSTEM,SettingsFile.SETTINGS_DOLPHIN, R.string.region, 0, R.array.regionNames, R.array.regionValues, -1, region));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_ENABLE_AUDIO_STRETCHING, SettingsFile.SECTION_AUDIO, SettingsFile.SETTINGS_DOLPHIN, R.string.audio_stretch, R.string.audio_stretch_description, false, audioStretch));
-		sl.add(new SingleChoiceSetting(SettingsFile.KEY_INIT_CLOCK, SettingsFile.SECTION_SYSTEM, SettingsFile.SETTINGS_DOLPHIN, R.string.init_clock, R.string.init_clock_descrip, R.array.systemClockNames, R.array.systemClockValues, 0, systemClock));
-		sl.add(new DateTimeSetting(SettingsFile.KEY_INIT_TIME, SettingsFile.SECTION_SYSTEM, SettingsFile.SETTINGS_DOLPHIN, R.string.init_time, R.string.init_time_descrip, "2000-01-01 00:00:01", dateTime));
+		sl.add(new SingleChoiceSetting(SettingsSchema.REGION_VALUE, SettingsFile.SETTINGS_DOLPHIN, R.string.region, 0, R.array.regionNames, R.array.regionValues, region));
+		sl.add(new CheckBoxSetting(SettingsSchema.ENABLE_AUDIO_STRETCHING, SettingsFile.SETTINGS_DOLPHIN, R.string.audio_stretch, R.string.audio_stretch_description, audioStretch));
+		sl.add(new SingleChoiceSetting(SettingsSchema.INIT_CLOCK, SettingsFile.SETTINGS_DOLPHIN, R.string.init_clock, R.string.init_clock_descrip, R.array.systemClockNames, R.array.systemClockValues, systemClock));
+		sl.add(new DateTimeSetting(SettingsSchema.INIT_TIME, SettingsFile.SETTINGS_DOLPHIN, R.string.init_time, R.string.init_time_descrip, dateTime));
 	}
 
 	private void addGraphicsSettings(ArrayList<SettingsItem> sl)
@@ -163,17 +159,17 @@ public final class SettingsFragmentPresenter
 
 		if (!mSettings.get(SettingsFile.SETTINGS_DOLPHIN).isEmpty())
 		{
-			hardwareRenderer = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_HW_RENDERER);
-			hardwareShader = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_HW_SHADER);
-			shadersAccurateMul = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_SHADERS_ACCURATE_MUL);
-			shadersAccurateGs = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_SHADERS_ACCURATE_GS);
-			shaderJitEnable = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_USE_SHADER_JIT);
-			resolutionFactor = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_RESOLUTION_FACTOR);
-			vsyncEnable = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_USE_VSYNC);
-			frameLimitEnable = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_FRAME_LIMIT_ENABLED);
-			frameLimitValue = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_FRAME_LIMIT);
-			stereoscopyEnable = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_STEREOSCOPY);
-			stereoscopyDepth = mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(SettingsFile.SECTION_RENDERER).getSetting(SettingsFile.KEY_FACTOR_3D);
+			hardwareRenderer = getSetting(SettingsSchema.HW_RENDERER);
+			hardwareShader = getSetting(SettingsSchema.HW_SHADER);
+			shadersAccurateMul = getSetting(SettingsSchema.SHADERS_ACCURATE_MUL);
+			shadersAccurateGs = getSetting(SettingsSchema.SHADERS_ACCURATE_GS);
+			shaderJitEnable = getSetting(SettingsSchema.USE_SHADER_JIT);
+			resolutionFactor = getSetting(SettingsSchema.RESOLUTION_FACTOR);
+			vsyncEnable = getSetting(SettingsSchema.USE_VSYNC);
+			frameLimitEnable = getSetting(SettingsSchema.FRAME_LIMIT_ENABLED);
+			frameLimitValue = getSetting(SettingsSchema.FRAME_LIMIT);
+			stereoscopyEnable = getSetting(SettingsSchema.STEREOSCOPY);
+			stereoscopyDepth = getSetting(SettingsSchema.FACTOR_3D);
 		}
 		else
 		{
@@ -185,15 +181,15 @@ public final class SettingsFragmentPresenter
 			mView.passSettingsToActivity(mSettings);
 		}
 
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_HW_RENDERER, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.hw_renderer, 0, true, hardwareRenderer));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_HW_SHADER, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.hw_shaders, R.string.hw_shaders_descrip, true, hardwareShader));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_SHADERS_ACCURATE_MUL, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.shaders_accurate_mul, 0, false, shadersAccurateMul));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_SHADERS_ACCURATE_GS, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.shaders_accurate_gs , 0, false, shadersAccurateGs));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_USE_SHADER_JIT, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.use_shader_jit, 0, true, shaderJitEnable));
-		sl.add(new SliderSetting(SettingsFile.KEY_RESOLUTION_FACTOR, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.internal_resolution, R.string.internal_resolution_descrip, 10, "x", 0, resolutionFactor));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_USE_VSYNC, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.vsync	, 0, false, vsyncEnable));
-		sl.add(new CheckBoxSetting(SettingsFile.KEY_FRAME_LIMIT_ENABLED, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.overclock_enable, 0, false, frameLimitEnable));
-		sl.add(new SliderSetting(SettingsFile.KEY_FRAME_LIMIT, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.overclock_title, R.string.overclock_enable_description, 500, "%", 100, frameLimitValue));
+		sl.add(new CheckBoxSetting(SettingsSchema.HW_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.hw_renderer, 0, hardwareRenderer));
+		sl.add(new CheckBoxSetting(SettingsSchema.HW_SHADER, SettingsFile.SETTINGS_DOLPHIN, R.string.hw_shaders, R.string.hw_shaders_descrip, hardwareShader));
+		sl.add(new CheckBoxSetting(SettingsSchema.SHADERS_ACCURATE_MUL, SettingsFile.SETTINGS_DOLPHIN, R.string.shaders_accurate_mul, 0, shadersAccurateMul));
+		sl.add(new CheckBoxSetting(SettingsSchema.SHADERS_ACCURATE_GS, SettingsFile.SETTINGS_DOLPHIN, R.string.shaders_accurate_gs, 0, shadersAccurateGs));
+		sl.add(new CheckBoxSetting(SettingsSchema.USE_SHADER_JIT, SettingsFile.SETTINGS_DOLPHIN, R.string.use_shader_jit, 0, shaderJitEnable));
+		sl.add(new SliderSetting(SettingsSchema.RESOLUTION_FACTOR, SettingsFile.SETTINGS_DOLPHIN, R.string.internal_resolution, R.string.internal_resolution_descrip, "x", resolutionFactor));
+		sl.add(new CheckBoxSetting(SettingsSchema.USE_VSYNC, SettingsFile.SETTINGS_DOLPHIN, R.string.vsync, 0, vsyncEnable));
+		sl.add(new CheckBoxSetting(SettingsSchema.FRAME_LIMIT_ENABLED, SettingsFile.SETTINGS_DOLPHIN, R.string.overclock_enable, 0, frameLimitEnable));
+		sl.add(new SliderSetting(SettingsSchema.FRAME_LIMIT, SettingsFile.SETTINGS_DOLPHIN, R.string.overclock_title, R.string.overclock_enable_description, "%", frameLimitValue));
 
 		// Todo: Implement ColorPickerSetting
 		// sl.add(new ColorPickerSetting(SettingsFile.KEY_BACKGROUND_RED,SettingsFile.KEY_BACKGROUND_GREEN,SettingsFile.KEY_BACKGROUND_BLUE, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string., R.string., Color.BLACK, backgroundColor));
@@ -208,8 +204,8 @@ public final class SettingsFragmentPresenter
 		if ((helper.supportsOpenGL() && helper.GetVersion() >= 320) ||
 						(helper.supportsGLES3() && helper.GetVersion() >= 310 && helper.SupportsExtension("GL_ANDROID_extension_pack_es31a")))
 		{
-			sl.add(new CheckBoxSetting(SettingsFile.KEY_STEREOSCOPY, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.stereoscopy, R.string.stereoscopy_descrip, false, stereoscopyEnable));
-			sl.add(new SliderSetting(SettingsFile.KEY_FACTOR_3D, SettingsFile.SECTION_RENDERER, SettingsFile.SETTINGS_DOLPHIN, R.string.sterescopy_depth,R.string.sterescopy_depth_descrip,100,"%",0, stereoscopyDepth));
+			sl.add(new CheckBoxSetting(SettingsSchema.STEREOSCOPY, SettingsFile.SETTINGS_DOLPHIN, R.string.stereoscopy, R.string.stereoscopy_descrip, stereoscopyEnable));
+			sl.add(new SliderSetting(SettingsSchema.FACTOR_3D, SettingsFile.SETTINGS_DOLPHIN, R.string.sterescopy_depth, R.string.sterescopy_depth_descrip, "%", stereoscopyDepth));
 		}
 
 	}
@@ -282,6 +278,14 @@ public final class SettingsFragmentPresenter
 		*/
 	}
 
+	/**
+	 * @return The Setting holding the value in effect for a declared key, or null if there is none.
+	 */
+	private Setting getSetting(SettingKey key)
+	{
+		return mSettings.get(SettingsFile.SETTINGS_DOLPHIN).get(key.getSection()).getSetting(key.getKey());
+	}
+
 	private boolean getInvertedBooleanValue(int file, String section, String key, boolean defaultValue)
 	{
 		try
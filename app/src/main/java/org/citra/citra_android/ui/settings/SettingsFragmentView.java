@@ -39,12 +39,6 @@ public interface SettingsFragmentView
 	 */
 	void showSettingsList(ArrayList<SettingsItem> settingsList);
 
-	/**
-	 * Called by the containing Activity when an asynchronous load operation fails.
-	 * Instructs the Fragment to load the settings screen with defaults selected.
-	 */
-	void loadDefaultSettings();
-
 	/**
 	 * @return The Fragment's containing activity.
 	 */
@@ -0,0 +1,424 @@
+package org.citra.citra_android.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import org.citra.citra_android.NativeLibrary;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A process-wide cache of game banners, so that a banner is only extracted from its ROM once.
+ * Banners are kept as their raw 48x48 RGB565 pixels: in memory in a size-bounded LRU of direct
+ * buffers, and on disk as one file of exactly those bytes per banner, keyed by the ROM's content
+ * fingerprint and last-modified time. Copies of a ROM share a banner, and a ROM that changes gets
+ * a new one.
+ * <p>
+ * Native code writes extracted banners straight into the direct buffer that is then cached, and
+ * cached buffers are copied straight into reusable Bitmaps, so showing a cached banner allocates
+ * no pixel memory at all. The buffers in memory are shared: their position may only be changed on
+ * the main thread, and other threads read them through a duplicate.
+ * <p>
+ * Games found to have no banner are remembered as well, as {@link #NO_BANNER} in memory and as an
+ * empty file on disk, so their ROMs aren't opened again each time they are shown or scanned.
+ */
+public final class BannerCache
+{
+  /**
+   * Identifies one version of a game file, whose banner can be looked up. Its cache key is built
+   * once, so holding on to one (as {@link org.citra.citra_android.model.Game} does) keeps binding
+   * a game's card from allocating a new key string each time.
+   */
+  public static final class GameFile
+  {
+    private final String mPath;
+    private final String mFingerprint;
+    private final String mKey;
+
+    /**
+     * @param fingerprint  The game's content fingerprint. If null, the banner is only cached in
+     *                     memory, as it can't be told apart from other versions of the file.
+     * @param lastModified The last-modified time of the game file.
+     */
+    public GameFile(String path, String fingerprint, long lastModified)
+    {
+      mPath = path;
+      mFingerprint = fingerprint;
+      mKey = buildKey(path, fingerprint, lastModified);
+    }
+
+    public String getPath()
+    {
+      return mPath;
+    }
+  }
+
+  /**
+   * Receives a banner loaded in the background, on the main thread.
+   */
+  public interface BannerCallback
+  {
+    /**
+     * @param pixels The banner's pixels, or null if the game doesn't have one.
+     */
+    void onBannerLoaded(ByteBuffer pixels);
+  }
+
+  public static final int WIDTH = 48;
+  public static final int HEIGHT = 48;
+
+  // RGB565 uses two bytes per pixel.
+  public static final int BYTE_COUNT = WIDTH * HEIGHT * 2;
+
+  /**
+   * Returned by {@link #peekBanner(GameFile)} for a game known to have no banner.
+   */
+  public static final ByteBuffer NO_BANNER = ByteBuffer.allocateDirect(0);
+
+  // Room for a little under a thousand banners.
+  private static final int MEMORY_CACHE_SIZE = 4 * 1024 * 1024;
+
+  private static final String DIRECTORY_NAME = "banners";
+
+  // Prefetching opens ROMs, so it is kept to a couple of threads that yield to the UI.
+  private static final int PREFETCH_THREADS = 2;
+
+  // How many banners each prefetch task extracts, to keep scheduling overhead down during scans.
+  private static final int PREFETCH_BATCH_SIZE = 16;
+
+  private static BannerCache sInstance;
+
+  // Set once GetBannerInto turned out to be missing from the core, so it isn't looked up again.
+  private static volatile boolean sBannerIntoMissing;
+
+  private final LruCache<String, ByteBuffer> mMemoryCache =
+          new LruCache<String, ByteBuffer>(MEMORY_CACHE_SIZE)
+          {
+            @Override
+            protected int sizeOf(String key, ByteBuffer pixels)
+            {
+              // Entries for games without a banner still count, so there can't be endless ones.
+              return Math.max(pixels.capacity(), 1);
+            }
+          };
+
+  private final File mDirectory;
+
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+  private final ExecutorService mPrefetchExecutor =
+          Executors.newFixedThreadPool(PREFETCH_THREADS, runnable -> new Thread(() ->
+          {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+          }, "BannerPrefetch"));
+
+  // Keys of banners that are queued or being prefetched, so each is only extracted once.
+  private final Set<String> mPendingKeys =
+          Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  private BannerCache(File directory)
+  {
+    mDirectory = directory;
+  }
+
+  public static synchronized BannerCache getInstance(Context context)
+  {
+    if (sInstance == null)
+    {
+      File directory = new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME);
+      if (!directory.isDirectory() && !directory.mkdirs())
+      {
+        Log.error("[BannerCache] Couldn't create cache directory: " + directory);
+      }
+
+      sInstance = new BannerCache(directory);
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * Gets a game's banner only if it is already in memory, so it can be shown right away.
+   *
+   * @return The banner as 48x48 RGB565 pixels, {@link #NO_BANNER} if the game is known not to
+   * have one, or null if it isn't in memory.
+   */
+  public ByteBuffer peekBanner(GameFile game)
+  {
+    return mMemoryCache.get(game.mKey);
+  }
+
+  /**
+   * Loads a game's banner from disk, or extracts it from the ROM if it isn't there either, on a
+   * background thread.
+   *
+   * @param callback Called on the main thread once the banner is in memory, or found missing.
+   */
+  public void loadBanner(GameFile game, BannerCallback callback)
+  {
+    mPrefetchExecutor.execute(() ->
+    {
+      ByteBuffer pixels = getBanner(game, true);
+      mMainHandler.post(() -> callback.onBannerLoaded(pixels));
+    });
+  }
+
+  /**
+   * Starts loading a banner that is about to be shown into memory, without blocking the caller.
+   */
+  public void prefetch(GameFile game)
+  {
+    if (mMemoryCache.get(game.mKey) == null && mPendingKeys.add(game.mKey))
+    {
+      mPrefetchExecutor.execute(() ->
+      {
+        try
+        {
+          getBanner(game, true);
+        }
+        finally
+        {
+          mPendingKeys.remove(game.mKey);
+        }
+      });
+    }
+  }
+
+  /**
+   * Extracts the banners of freshly scanned games to disk in the background, in batches, so they
+   * are ready the first time they are shown. They aren't loaded into memory, as most of a large
+   * library won't be scrolled to right away. Files without a fingerprint are skipped.
+   */
+  public void prefetchToDisk(List<GameFile> files)
+  {
+    for (int start = 0; start < files.size(); start += PREFETCH_BATCH_SIZE)
+    {
+      List<GameFile> batch = files.subList(start,
+              Math.min(start + PREFETCH_BATCH_SIZE, files.size()));
+
+      mPrefetchExecutor.execute(() ->
+      {
+        for (GameFile file : batch)
+        {
+          if (file.mFingerprint == null)
+          {
+            continue;
+          }
+
+          if (mPendingKeys.add(file.mKey))
+          {
+            try
+            {
+              getBanner(file, false);
+            }
+            finally
+            {
+              mPendingKeys.remove(file.mKey);
+            }
+          }
+        }
+      });
+    }
+  }
+
+  private ByteBuffer getBanner(GameFile game, boolean keepInMemory)
+  {
+    String key = game.mKey;
+
+    ByteBuffer pixels = mMemoryCache.get(key);
+    if (pixels != null)
+    {
+      return pixels != NO_BANNER ? pixels : null;
+    }
+
+    File file = game.mFingerprint != null ? new File(mDirectory, key) : null;
+
+    if (file != null)
+    {
+      boolean cached = file.exists();
+      long length = cached ? file.length() : -1;
+
+      // A banner only headed for disk needn't be read back if it is already there.
+      if (!keepInMemory && (length == BYTE_COUNT || length == 0))
+      {
+        return null;
+      }
+
+      if (length == 0)
+      {
+        mMemoryCache.put(key, NO_BANNER);
+        return null;
+      }
+
+      pixels = readPixels(file);
+    }
+
+    if (pixels == null)
+    {
+      pixels = extractBanner(game.mPath);
+
+      if (file != null)
+      {
+        writePixels(file, pixels != null ? pixels : NO_BANNER);
+      }
+
+      if (pixels == null)
+      {
+        if (keepInMemory)
+        {
+          mMemoryCache.put(key, NO_BANNER);
+        }
+        return null;
+      }
+    }
+
+    if (keepInMemory)
+    {
+      mMemoryCache.put(key, pixels);
+    }
+    return pixels;
+  }
+
+  private static String buildKey(String gamePath, String fingerprint, long lastModified)
+  {
+    return fingerprint != null ?
+            fingerprint + "_" + lastModified : gamePath.hashCode() + "_" + lastModified;
+  }
+
+  private static ByteBuffer extractBanner(String gamePath)
+  {
+    ByteBuffer pixels = ByteBuffer.allocateDirect(BYTE_COUNT);
+
+    boolean found = !sBannerIntoMissing ?
+            extractBannerInto(gamePath, pixels) : extractLegacyBanner(gamePath, pixels);
+
+    if (!found)
+    {
+      Log.warning("[BannerCache] No banner found for game: " + gamePath);
+      return null;
+    }
+
+    return pixels;
+  }
+
+  private static boolean extractBannerInto(String gamePath, ByteBuffer pixels)
+  {
+    try
+    {
+      return NativeLibrary.GetBannerInto(gamePath, pixels);
+    }
+    catch (UnsatisfiedLinkError e)
+    {
+      Log.warning("[BannerCache] GetBannerInto is not available, using GetBanner instead.");
+      sBannerIntoMissing = true;
+      return extractLegacyBanner(gamePath, pixels);
+    }
+  }
+
+  /**
+   * Reads a banner through the older GetBanner call, which cores built before GetBannerInto
+   * export. It hands back the same RGB565 bytes, packed into ints, and all zeros if there is no
+   * banner.
+   */
+  private static boolean extractLegacyBanner(String gamePath, ByteBuffer pixels)
+  {
+    int[] banner = NativeLibrary.GetBanner(gamePath);
+    if (banner == null || banner.length < BYTE_COUNT / 4)
+    {
+      return false;
+    }
+
+    boolean empty = true;
+    for (int i = 0; i < BYTE_COUNT / 4 && empty; i++)
+    {
+      empty = banner[i] == 0;
+    }
+
+    if (empty)
+    {
+      return false;
+    }
+
+    pixels.order(ByteOrder.nativeOrder()).asIntBuffer().put(banner, 0, BYTE_COUNT / 4);
+    return true;
+  }
+
+  private static ByteBuffer readPixels(File file)
+  {
+    if (file.length() != BYTE_COUNT)
+    {
+      return null;
+    }
+
+    ByteBuffer pixels = ByteBuffer.allocateDirect(BYTE_COUNT);
+
+    try (FileInputStream stream = new FileInputStream(file))
+    {
+      FileChannel channel = stream.getChannel();
+      while (pixels.hasRemaining())
+      {
+        if (channel.read(pixels) < 0)
+        {
+          return null;
+        }
+      }
+
+      pixels.rewind();
+      return pixels;
+    }
+    catch (IOException e)
+    {
+      Log.error("[BannerCache] Couldn't read cached banner " + file + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes to a temporary file first, so that a banner being read by another thread or after a
+   * crash is never half-written. {@link #NO_BANNER} is written as an empty file.
+   */
+  private static void writePixels(File file, ByteBuffer pixels)
+  {
+    File temp = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+
+    try (FileOutputStream stream = new FileOutputStream(temp))
+    {
+      ByteBuffer source = pixels.duplicate();
+      source.clear();
+
+      FileChannel channel = stream.getChannel();
+      while (source.hasRemaining())
+      {
+        channel.write(source);
+      }
+    }
+    catch (IOException e)
+    {
+      Log.error("[BannerCache] Couldn't cache banner " + file + ": " + e.getMessage());
+      temp.delete();
+      return;
+    }
+
+    if (!temp.renameTo(file))
+    {
+      Log.error("[BannerCache] Couldn't cache banner: " + file);
+      temp.delete();
+    }
+  }
+}
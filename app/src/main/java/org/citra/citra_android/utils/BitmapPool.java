@@ -0,0 +1,51 @@
+package org.citra.citra_android.utils;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of mutable Bitmaps that all have the same size and config, so that Bitmaps whose pixels
+ * are rewritten over and over (such as game banners) don't have to be allocated each time. Only
+ * use a pool from the main thread.
+ */
+public final class BitmapPool
+{
+  private final int mWidth;
+  private final int mHeight;
+  private final Bitmap.Config mConfig;
+  private final int mMaxSize;
+
+  private final ArrayDeque<Bitmap> mFreeBitmaps = new ArrayDeque<>();
+
+  /**
+   * @param maxSize How many released Bitmaps are kept for reuse at most; the rest are dropped.
+   */
+  public BitmapPool(int width, int height, Bitmap.Config config, int maxSize)
+  {
+    mWidth = width;
+    mHeight = height;
+    mConfig = config;
+    mMaxSize = maxSize;
+  }
+
+  /**
+   * @return A released Bitmap, or a new one if none are free. Its pixels are undefined.
+   */
+  public Bitmap acquire()
+  {
+    Bitmap bitmap = mFreeBitmaps.poll();
+    return bitmap != null ? bitmap : Bitmap.createBitmap(mWidth, mHeight, mConfig);
+  }
+
+  /**
+   * Returns a Bitmap to the pool. It must no longer be drawn anywhere.
+   */
+  public void release(Bitmap bitmap)
+  {
+    if (mFreeBitmaps.size() < mMaxSize && !bitmap.isRecycled())
+    {
+      mFreeBitmaps.push(bitmap);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package org.citra.citra_android.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies a file by its contents cheaply enough to do for a whole library: the file's size
+ * plus a hash of its first and last few MiB, read through memory-mapped buffers. Copies and
+ * renamed files produce the same fingerprint.
+ */
+public final class FileFingerprint
+{
+  private static final long SAMPLE_SIZE = 4 * 1024 * 1024;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private FileFingerprint()
+  {
+  }
+
+  /**
+   * @return The fingerprint as a hex string, or null if the file couldn't be read.
+   */
+  public static String compute(File file)
+  {
+    try (FileInputStream stream = new FileInputStream(file))
+    {
+      FileChannel channel = stream.getChannel();
+      long size = channel.size();
+
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      digest.update(Long.toString(size).getBytes());
+
+      if (size <= 2 * SAMPLE_SIZE)
+      {
+        digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+      else
+      {
+        digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, SAMPLE_SIZE));
+        digest.update(channel.map(FileChannel.MapMode.READ_ONLY, size - SAMPLE_SIZE,
+                SAMPLE_SIZE));
+      }
+
+      return toHex(digest.digest());
+    }
+    catch (IOException | NoSuchAlgorithmException e)
+    {
+      Log.error("[FileFingerprint] Couldn't fingerprint " + file + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static String toHex(byte[] bytes)
+  {
+    char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++)
+    {
+      hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+    }
+    return new String(hex);
+  }
+}
@@ -0,0 +1,442 @@
+package org.citra.citra_android.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * An .ini file held in memory line by line, so that it can be written back with only the values
+ * that were set changed: comments, blank lines, unrecognized lines and the order of sections and
+ * keys are all kept as they were read.
+ * <p>
+ * A section whose header appears more than once is kept in each of its places. As when the core
+ * reads the file, its keys are looked up across all of them, and the last value of a key wins.
+ */
+public final class IniFile
+{
+  /**
+   * Receives the key/value entries of a file, in the order they appear in it.
+   */
+  public interface EntryVisitor
+  {
+    void visit(String section, String key, String value);
+  }
+
+  private static final class Line
+  {
+    // The text as read, or null once the value was set and the line has to be written anew.
+    private String mText;
+
+    // Null if this line isn't a key/value entry.
+    private final String mKey;
+    private String mValue;
+
+    private Line(String text, String key, String value)
+    {
+      mText = text;
+      mKey = key;
+      mValue = value;
+    }
+  }
+
+  private static final class Section
+  {
+    // Null for the lines before the first section header.
+    private final String mName;
+    private final String mHeader;
+
+    private final ArrayList<Line> mLines = new ArrayList<>();
+    private final HashMap<String, Line> mEntries = new HashMap<>();
+
+    // The closest earlier section with the same header, if any.
+    private final Section mPrevious;
+
+    private Section(String name, String header, Section previous)
+    {
+      mName = name;
+      mHeader = header;
+      mPrevious = previous;
+    }
+  }
+
+  private static final int READ_BUFFER_SIZE = 8192;
+
+  private final ArrayList<Section> mSections = new ArrayList<>();
+
+  // The last section with each name.
+  private final HashMap<String, Section> mSectionsByName = new HashMap<>();
+
+  private String mLineSeparator = "\n";
+
+  public IniFile()
+  {
+    mSections.add(new Section(null, null, null));
+  }
+
+  /**
+   * Reads and parses a whole file.
+   *
+   * @throws java.io.FileNotFoundException If the file doesn't exist.
+   */
+  public static IniFile read(File file) throws IOException
+  {
+    StringBuilder text = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE));
+
+    try (Reader reader = new FileReader(file))
+    {
+      char[] buffer = new char[READ_BUFFER_SIZE];
+      for (int count; (count = reader.read(buffer)) != -1; )
+      {
+        text.append(buffer, 0, count);
+      }
+    }
+
+    IniFile ini = new IniFile();
+    ini.parse(text);
+    return ini;
+  }
+
+  /**
+   * Splits the text into lines and tokenizes each of them in a single pass, without any regular
+   * expressions or intermediate arrays.
+   */
+  private void parse(CharSequence text)
+  {
+    Section section = mSections.get(0);
+
+    int length = text.length();
+    int lineStart = 0;
+
+    while (lineStart < length)
+    {
+      int lineEnd = lineStart;
+      while (lineEnd < length && text.charAt(lineEnd) != '\n')
+      {
+        lineEnd++;
+      }
+
+      int nextLineStart = lineEnd + 1;
+
+      if (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r')
+      {
+        lineEnd--;
+        if (lineStart == 0)
+        {
+          mLineSeparator = "\r\n";
+        }
+      }
+
+      int start = skipWhitespace(text, lineStart, lineEnd);
+      String line = text.subSequence(lineStart, lineEnd).toString();
+
+      if (start < lineEnd && text.charAt(start) == '[')
+      {
+        int nameEnd = indexOf(text, ']', start + 1, lineEnd);
+        if (nameEnd != -1)
+        {
+          String name = text.subSequence(start + 1, nameEnd).toString();
+          section = addSection(name, line);
+          lineStart = nextLineStart;
+          continue;
+        }
+      }
+
+      int separator = start < lineEnd && !isComment(text.charAt(start)) ?
+              indexOf(text, '=', start, lineEnd) : -1;
+
+      // Lines before the first section can't be looked up, so keep them as they are.
+      if (separator == -1 || section.mName == null)
+      {
+        section.mLines.add(new Line(line, null, null));
+      }
+      else
+      {
+        String key = trimmed(text, start, separator);
+        String value = trimmed(text, separator + 1, lineEnd);
+
+        Line entry = new Line(line, key, value);
+        section.mLines.add(entry);
+        section.mEntries.put(key, entry);
+      }
+
+      lineStart = nextLineStart;
+    }
+  }
+
+  /**
+   * Passes every key/value entry to the visitor, in file order.
+   */
+  public void visitEntries(EntryVisitor visitor)
+  {
+    for (Section section : mSections)
+    {
+      if (section.mName == null)
+      {
+        continue;
+      }
+
+      for (Line line : section.mLines)
+      {
+        if (line.mKey != null)
+        {
+          visitor.visit(section.mName, line.mKey, line.mValue);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The value of the key, or null if the section or key doesn't exist.
+   */
+  public String get(String section, String key)
+  {
+    Line entry = findEntry(section, key);
+    return entry != null ? entry.mValue : null;
+  }
+
+  /**
+   * Changes the value of a key, keeping its place in the file. Keys that don't exist yet are
+   * added after the last entry of the last section with that name, and sections that don't exist
+   * at the end.
+   */
+  public void set(String section, String key, String value)
+  {
+    Line entry = findEntry(section, key);
+
+    if (entry == null)
+    {
+      Section found = mSectionsByName.get(section);
+      if (found == null)
+      {
+        found = addSection(section, null);
+      }
+
+      entry = new Line(null, key, value);
+      found.mLines.add(lastEntryIndex(found) + 1, entry);
+      found.mEntries.put(key, entry);
+    }
+    else if (!value.equals(entry.mValue))
+    {
+      entry.mValue = value;
+      entry.mText = null;
+    }
+  }
+
+  /**
+   * Writes the file out in full. The text goes to a temporary file first, which then replaces
+   * the target, so a crash or a full disk never leaves a half-written file behind.
+   */
+  public void write(File file) throws IOException
+  {
+    File temp = new File(file.getPath() + ".tmp");
+
+    try (Writer writer = new BufferedWriter(new FileWriter(temp)))
+    {
+      for (Section section : mSections)
+      {
+        if (section.mName != null)
+        {
+          writer.write(section.mHeader != null ? section.mHeader : "[" + section.mName + "]");
+          writer.write(mLineSeparator);
+        }
+
+        for (Line line : section.mLines)
+        {
+          if (line.mText != null)
+          {
+            writer.write(line.mText);
+          }
+          else
+          {
+            writer.write(line.mKey);
+            writer.write(" = ");
+            writer.write(line.mValue);
+          }
+          writer.write(mLineSeparator);
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      temp.delete();
+      throw e;
+    }
+
+    if (!temp.renameTo(file))
+    {
+      temp.delete();
+      throw new IOException("Couldn't replace " + file);
+    }
+  }
+
+  /**
+   * @return Whether the value is a decimal integer that fits in an int, so that
+   * {@link Integer#parseInt(String)} will accept it.
+   */
+  public static boolean isInt(String value)
+  {
+    int length = value.length();
+    int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+
+    if (start == length)
+    {
+      return false;
+    }
+
+    long limit = value.charAt(0) == '-' ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+    long magnitude = 0;
+
+    for (int i = start; i < length; i++)
+    {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9')
+      {
+        return false;
+      }
+
+      magnitude = magnitude * 10 + (c - '0');
+      if (magnitude > limit)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * @return Whether the value is a decimal number, optionally with an exponent, so that
+   * {@link Float#parseFloat(String)} will accept it.
+   */
+  public static boolean isFloat(String value)
+  {
+    int length = value.length();
+    int i = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+
+    int digits = 0;
+    for (; i < length && isDigit(value.charAt(i)); i++)
+    {
+      digits++;
+    }
+
+    if (i < length && value.charAt(i) == '.')
+    {
+      for (i++; i < length && isDigit(value.charAt(i)); i++)
+      {
+        digits++;
+      }
+    }
+
+    if (digits == 0)
+    {
+      return false;
+    }
+
+    if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E'))
+    {
+      i++;
+      if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+'))
+      {
+        i++;
+      }
+
+      int exponentStart = i;
+      while (i < length && isDigit(value.charAt(i)))
+      {
+        i++;
+      }
+
+      if (i == exponentStart)
+      {
+        return false;
+      }
+    }
+
+    return i == length;
+  }
+
+  private Section addSection(String name, String header)
+  {
+    Section section = new Section(name, header, mSectionsByName.get(name));
+    mSections.add(section);
+    mSectionsByName.put(name, section);
+    return section;
+  }
+
+  /**
+   * @return The line holding the value of the key that is in effect, or null if there is none.
+   */
+  private Line findEntry(String section, String key)
+  {
+    for (Section found = mSectionsByName.get(section); found != null; found = found.mPrevious)
+    {
+      Line entry = found.mEntries.get(key);
+      if (entry != null)
+      {
+        return entry;
+      }
+    }
+
+    return null;
+  }
+
+  private static int lastEntryIndex(Section section)
+  {
+    for (int i = section.mLines.size() - 1; i >= 0; i--)
+    {
+      if (section.mLines.get(i).mKey != null)
+      {
+        return i;
+      }
+    }
+
+    return section.mLines.size() - 1;
+  }
+
+  private static boolean isComment(char c)
+  {
+    return c == '#' || c == ';';
+  }
+
+  private static boolean isDigit(char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int indexOf(CharSequence text, char c, int start, int end)
+  {
+    for (int i = start; i < end; i++)
+    {
+      if (text.charAt(i) == c)
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipWhitespace(CharSequence text, int start, int end)
+  {
+    while (start < end && Character.isWhitespace(text.charAt(start)))
+    {
+      start++;
+    }
+    return start;
+  }
+
+  private static String trimmed(CharSequence text, int start, int end)
+  {
+    start = skipWhitespace(text, start, end);
+    while (end > start && Character.isWhitespace(text.charAt(end - 1)))
+    {
+      end--;
+    }
+    return text.subSequence(start, end).toString();
+  }
+}
@@ -0,0 +1,106 @@
+package org.citra.citra_android.utils;
+
+import android.content.AsyncQueryHandler;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import org.citra.citra_android.model.GameProvider;
+import org.citra.citra_android.model.LibraryScanner;
+
+import java.util.List;
+
+/**
+ * Scans the library through {@link GameProvider#URI_REFRESH} on a worker thread, and passes on
+ * the progress the provider reports while any scan it runs is going on.
+ */
+public class LibraryRefreshHelper
+{
+  public interface RefreshListener
+  {
+    void onLibraryRefreshed();
+  }
+
+  private final Context mContext;
+
+  private boolean mRefreshing;
+  private ContentObserver mProgressObserver;
+
+  public LibraryRefreshHelper(Context context)
+  {
+    mContext = context;
+  }
+
+  /**
+   * Scans the library folders. Does nothing while a scan started here is still running.
+   *
+   * @param listener Notified on the main thread once the scan is done.
+   */
+  public void refresh(RefreshListener listener)
+  {
+    if (mRefreshing)
+    {
+      return;
+    }
+
+    mRefreshing = true;
+
+    AsyncQueryHandler handler = new AsyncQueryHandler(mContext.getContentResolver())
+    {
+      @Override
+      protected void onInsertComplete(int token, Object cookie, Uri uri)
+      {
+        mRefreshing = false;
+        listener.onLibraryRefreshed();
+      }
+    };
+
+    handler.startInsert(0, null, GameProvider.URI_REFRESH, null);
+  }
+
+  /**
+   * Starts passing the progress of provider scans to the listener, on the main thread.
+   */
+  public void startObservingProgress(LibraryScanner.ProgressListener listener)
+  {
+    stopObservingProgress();
+
+    mProgressObserver = new ContentObserver(new Handler(Looper.getMainLooper()))
+    {
+      @Override
+      public void onChange(boolean selfChange, Uri uri)
+      {
+        // Progress URIs end in the completed and total counts.
+        List<String> segments = uri != null ? uri.getPathSegments() : null;
+        if (segments == null || segments.size() < 3)
+        {
+          return;
+        }
+
+        try
+        {
+          listener.onScanProgress(Integer.parseInt(segments.get(segments.size() - 2)),
+                  Integer.parseInt(segments.get(segments.size() - 1)));
+        }
+        catch (NumberFormatException e)
+        {
+          Log.warning("[LibraryRefreshHelper] Unexpected progress URI: " + uri);
+        }
+      }
+    };
+
+    mContext.getContentResolver()
+            .registerContentObserver(GameProvider.URI_REFRESH, true, mProgressObserver);
+  }
+
+  public void stopObservingProgress()
+  {
+    if (mProgressObserver != null)
+    {
+      mContext.getContentResolver().unregisterContentObserver(mProgressObserver);
+      mProgressObserver = null;
+    }
+  }
+}
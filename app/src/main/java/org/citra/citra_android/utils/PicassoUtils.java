@@ -1,7 +1,10 @@
 package org.citra.citra_android.utils;
 
+import android.content.Context;
 import android.graphics.Bitmap;
-import android.net.Uri;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.squareup.picasso.Picasso;
@@ -10,19 +13,60 @@ import org.citra.citra_android.R;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 public class PicassoUtils
 {
-  public static void loadGameBanner(ImageView imageView, String screenshotPath, String gamePath)
+  // Roughly enough banners for the cards of a grid and its recycled views.
+  private static final int BANNER_POOL_SIZE = 32;
+
+  private static final BitmapPool sBannerPool = new BitmapPool(BannerCache.WIDTH,
+          BannerCache.HEIGHT, Bitmap.Config.RGB_565, BANNER_POOL_SIZE);
+
+  // Used for views whose size isn't fixed by their layout.
+  private static final int DEFAULT_THUMBNAIL_SIZE = 256;
+
+  private static Picasso sPicasso;
+
+  /**
+   * @return The Picasso instance shared by every game list, which can also load thumbnails.
+   */
+  public static synchronized Picasso getPicasso(Context context)
+  {
+    if (sPicasso == null)
+    {
+      sPicasso = new Picasso.Builder(context.getApplicationContext())
+              .addRequestHandler(new ThumbnailRequestHandler())
+              .build();
+    }
+
+    return sPicasso;
+  }
+
+  /**
+   * Shows a thumbnail of a game's screenshot if there is one, or its banner otherwise. Thumbnails
+   * are cropped to the size of the view, and only generated again once the screenshot changes,
+   * so full-size screenshots aren't decoded and scaled on every bind. Banners skip Picasso:
+   * each view keeps one pooled Bitmap that cached banner pixels are copied into, and the view
+   * scales it, and the game's cache key comes with its GameFile, so showing a cached banner
+   * doesn't allocate a Bitmap, a pixel array or a key. Must be called on the main thread.
+   */
+  public static void loadGameBanner(ImageView imageView, String screenshotPath,
+          BannerCache.GameFile game)
   {
+    Picasso picasso = getPicasso(imageView.getContext());
+
     File file = new File(URI.create(screenshotPath.replaceAll(" ", "%20")));
     if (file.exists())
     {
+      releaseBanner(imageView);
+
+      ViewGroup.LayoutParams params = imageView.getLayoutParams();
+      int width = params != null && params.width > 0 ? params.width : DEFAULT_THUMBNAIL_SIZE;
+      int height = params != null && params.height > 0 ? params.height : DEFAULT_THUMBNAIL_SIZE;
+
       // Fill in the view contents.
-      Picasso.with(imageView.getContext())
-              .load(screenshotPath)
-              .fit()
-              .centerCrop()
+      picasso.load(ThumbnailRequestHandler.buildThumbnailUri(file, width, height))
               .noFade()
               .noPlaceholder()
               .config(Bitmap.Config.RGB_565)
@@ -31,20 +75,86 @@ public class PicassoUtils
     }
     else
     {
-      Picasso picassoInstance = new Picasso.Builder(imageView.getContext())
-              .addRequestHandler(new GameBannerRequestHandler())
-              .build();
+      // Don't let a screenshot requested for the previous game bound to this view land later.
+      picasso.cancelRequest(imageView);
+      imageView.setTag(R.id.tag_banner_game, game);
 
-      picassoInstance
-              .load(Uri.parse("iso:/" + gamePath))
-              .fit()
-              .noFade()
-              .noPlaceholder()
-              .config(Bitmap.Config.RGB_565)
-              .error(R.drawable.no_banner)
-              .into(imageView);
+      BannerCache cache = BannerCache.getInstance(imageView.getContext());
+      ByteBuffer pixels = cache.peekBanner(game);
+
+      if (pixels == BannerCache.NO_BANNER)
+      {
+        showBanner(imageView, null);
+      }
+      else if (pixels != null)
+      {
+        showBanner(imageView, pixels);
+      }
+      else
+      {
+        cache.loadBanner(game, loaded ->
+        {
+          // The view may have been bound to another game in the meantime.
+          if (imageView.getTag(R.id.tag_banner_game) == game)
+          {
+            showBanner(imageView, loaded);
+          }
+        });
+      }
+    }
+  }
+
+  private static void showBanner(ImageView imageView, ByteBuffer pixels)
+  {
+    if (pixels == null)
+    {
+      releaseBanner(imageView);
+      imageView.setImageResource(R.drawable.no_banner);
+      return;
+    }
+
+    Bitmap bitmap = (Bitmap) imageView.getTag(R.id.tag_banner_bitmap);
+    if (bitmap == null)
+    {
+      bitmap = sBannerPool.acquire();
+      imageView.setTag(R.id.tag_banner_bitmap, bitmap);
+    }
+
+    pixels.rewind();
+    bitmap.copyPixelsFromBuffer(pixels);
+
+    // Reuse the view's drawable if it already shows this Bitmap; it only needs redrawing.
+    Drawable drawable = imageView.getDrawable();
+    if (drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() == bitmap)
+    {
+      imageView.invalidate();
     }
+    else
+    {
+      imageView.setImageBitmap(bitmap);
+    }
+  }
+
+  /**
+   * Returns the view's banner Bitmap to the pool, once the view is going to show something else.
+   */
+  private static void releaseBanner(ImageView imageView)
+  {
+    imageView.setTag(R.id.tag_banner_game, null);
 
+    Bitmap bitmap = (Bitmap) imageView.getTag(R.id.tag_banner_bitmap);
+    if (bitmap == null)
+    {
+      return;
+    }
+
+    Drawable drawable = imageView.getDrawable();
+    if (drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() == bitmap)
+    {
+      imageView.setImageDrawable(null);
+    }
 
+    imageView.setTag(R.id.tag_banner_bitmap, null);
+    sBannerPool.release(bitmap);
   }
 }
@@ -0,0 +1,137 @@
+package org.citra.citra_android.utils;
+
+import android.text.TextUtils;
+
+import org.citra.citra_android.model.settings.LayeredSettings;
+import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingChange;
+import org.citra.citra_android.model.settings.SettingKey;
+import org.citra.citra_android.model.settings.SettingSection;
+import org.citra.citra_android.model.settings.SettingValues;
+import org.citra.citra_android.model.settings.SettingsSchema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Keeps the values of each settings file in memory for the life of the process, so that each file
+ * is only parsed the first time it is needed, no matter how often the settings screens are opened
+ * or recreated.
+ * <p>
+ * Cached values are never modified: saving a change replaces a file's values with an updated
+ * copy, so settings that were handed out earlier keep seeing a consistent snapshot.
+ */
+public final class SettingsCache
+{
+  private static SettingsCache sInstance;
+
+  // By file name.
+  private final HashMap<String, SettingValues> mValues = new HashMap<>();
+
+  // By game ID, or the empty string for the global settings.
+  private final HashMap<String, LayeredSettings> mSettings = new HashMap<>();
+
+  private SettingsCache()
+  {
+  }
+
+  public static synchronized SettingsCache getInstance()
+  {
+    if (sInstance == null)
+    {
+      sInstance = new SettingsCache();
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * @param gameId The game to resolve the settings for, or null for just the global settings.
+   * @return The settings in effect. Reads any file not read before, so don't call this on the
+   * main thread unless it already was.
+   */
+  public synchronized LayeredSettings getSettings(String gameId)
+  {
+    SettingValues global = getValues(SettingsFile.FILE_NAME_CONFIG);
+    SettingValues game = null;
+    String cacheKey = "";
+
+    if (!TextUtils.isEmpty(gameId))
+    {
+      game = getValues(SettingsFile.getGameSettingsFileName(gameId));
+      cacheKey = gameId;
+    }
+
+    LayeredSettings settings = mSettings.get(cacheKey);
+    settings = settings != null ?
+            settings.withLayers(global, game) : new LayeredSettings(global, game);
+
+    mSettings.put(cacheKey, settings);
+    return settings;
+  }
+
+  private SettingValues getValues(String fileName)
+  {
+    SettingValues values = mValues.get(fileName);
+    if (values == null)
+    {
+      values = SettingsFile.readValues(fileName);
+      mValues.put(fileName, values);
+    }
+    return values;
+  }
+
+  /**
+   * Brings the cached values of a file up to date with the changed Settings about to be saved to
+   * it, and publishes those changes on {@link SettingsChangeBus}. Must be called before their
+   * dirty state is cleared.
+   */
+  synchronized void onSaving(String fileName, HashMap<String, SettingSection> sections)
+  {
+    SettingValues cached = mValues.get(fileName);
+    ArrayList<SettingKey> changed = new ArrayList<>();
+    SettingValues updated = null;
+
+    for (SettingSection section : sections.values())
+    {
+      if (!section.isDirty())
+      {
+        continue;
+      }
+
+      for (Setting setting : section.getSettings().values())
+      {
+        SettingKey key = SettingsSchema.find(section.getName(), setting.getKey());
+        if (key == null || !setting.isDirty())
+        {
+          continue;
+        }
+
+        if (updated == null)
+        {
+          updated = cached != null ? new SettingValues(cached) : new SettingValues();
+        }
+
+        updated.setFromString(key, setting.getValueAsString());
+        changed.add(key);
+      }
+    }
+
+    if (updated == null)
+    {
+      return;
+    }
+
+    // A file not read yet is left alone; once it is, the queued values will be applied to it.
+    if (cached != null)
+    {
+      mValues.put(fileName, updated);
+    }
+
+    SettingsChangeBus bus = SettingsChangeBus.getInstance();
+    for (SettingKey key : changed)
+    {
+      bus.post(new SettingChange(fileName, key, updated));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package org.citra.citra_android.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.citra.citra_android.model.settings.SettingChange;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+/**
+ * Publishes the settings that were changed, so that whatever uses them can apply them right away
+ * instead of waiting for the config file to be read again. Changes arriving in quick succession,
+ * such as while a slider is dragged, are collected and published together on the main thread,
+ * with only the latest value of each key, so a listener applies a burst of them once.
+ */
+public final class SettingsChangeBus
+{
+  // How long to wait for further changes before publishing.
+  private static final long BATCH_DELAY_MS = 100;
+
+  private static SettingsChangeBus sInstance;
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Runnable mPublish = this::publishPending;
+
+  private final PublishSubject<List<SettingChange>> mChanges = PublishSubject.create();
+
+  // Changes not yet published, by file and key. Guarded by itself.
+  private final LinkedHashMap<String, SettingChange> mPending = new LinkedHashMap<>();
+
+  private SettingsChangeBus()
+  {
+  }
+
+  public static synchronized SettingsChangeBus getInstance()
+  {
+    if (sInstance == null)
+    {
+      sInstance = new SettingsChangeBus();
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * @return Batches of changes, emitted on the main thread. Every key appears at most once per
+   * batch.
+   */
+  public Observable<List<SettingChange>> getChanges()
+  {
+    return mChanges.asObservable();
+  }
+
+  /**
+   * Queues a change to be published with any others that follow shortly. It replaces a change
+   * to the same key of the same file that wasn't published yet.
+   */
+  public void post(SettingChange change)
+  {
+    synchronized (mPending)
+    {
+      mPending.put(change.getFileName() + '\n' + change.getKey().getId(), change);
+    }
+
+    mHandler.removeCallbacks(mPublish);
+    mHandler.postDelayed(mPublish, BATCH_DELAY_MS);
+  }
+
+  private void publishPending()
+  {
+    List<SettingChange> changes;
+    synchronized (mPending)
+    {
+      changes = new ArrayList<>(mPending.values());
+      mPending.clear();
+    }
+
+    if (!changes.isEmpty())
+    {
+      Log.debug("[SettingsChangeBus] Publishing " + changes.size() + " changed settings.");
+      mChanges.onNext(changes);
+    }
+  }
+}
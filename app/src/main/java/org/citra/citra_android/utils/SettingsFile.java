@@ -4,20 +4,19 @@ import android.support.annotation.NonNull;
 
 import org.citra.citra_android.model.settings.FloatSetting;
 import org.citra.citra_android.model.settings.IntSetting;
+import org.citra.citra_android.model.settings.LayeredSettings;
 import org.citra.citra_android.model.settings.Setting;
+import org.citra.citra_android.model.settings.SettingKey;
 import org.citra.citra_android.model.settings.SettingSection;
+import org.citra.citra_android.model.settings.SettingValues;
+import org.citra.citra_android.model.settings.SettingsSchema;
 import org.citra.citra_android.model.settings.StringSetting;
 import org.citra.citra_android.services.DirectoryInitializationService;
-import org.citra.citra_android.ui.settings.SettingsActivityView;
-import org.ini4j.Wini;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Set;
 
 /**
  * A HashMap<String, SettingSection> that constructs a new SettingSection instead of returning null
@@ -268,191 +267,142 @@ public final class SettingsFile
   }
 
   /**
-   * Reads a given .ini file from disk and returns it as a HashMap of SettingSections, themselves
-   * effectively a HashMap of key/value settings. If unsuccessful, outputs an error telling why it
-   * failed.
+   * Reads the values of the keys declared in {@link SettingsSchema} from a given .ini file, for
+   * code that needs settings by key rather than the whole file. Keys that are missing, or the
+   * whole file if it is, read as their defaults. Does file IO, so don't call this on the main
+   * thread.
    *
    * @param fileName The name of the settings file without a path or extension.
-   * @param view     The current view.
-   * @return An Observable that emits a HashMap of the file's contents, then completes.
    */
-  public static HashMap<String, SettingSection> readFile(final String fileName,
-          SettingsActivityView view)
+  public static SettingValues readValues(String fileName)
   {
-    HashMap<String, SettingSection> sections = new SettingsSectionMap();
-
     File ini = getSettingsFile(fileName);
 
-    BufferedReader reader = null;
-
     try
     {
-      reader = new BufferedReader(new FileReader(ini));
-
-      SettingSection current = null;
-      for (String line; (line = reader.readLine()) != null; )
-      {
-        if (line.startsWith("[") && line.endsWith("]"))
-        {
-          current = sectionFromLine(line);
-          sections.put(current.getName(), current);
-        }
-        else if ((current != null))
-        {
-          Setting setting = settingFromLine(current, line, fileName);
-          if (setting != null)
-          {
-            current.putSetting(setting);
-          }
-        }
-      }
+      IniFile contents = IniFile.read(ini);
+      SettingsWriter.getInstance().applyPending(ini, contents);
+      return SettingValues.fromIni(contents);
     }
     catch (FileNotFoundException e)
     {
-      Log.error("[SettingsFile] File not found: " + fileName + ".ini: " + e.getMessage());
-      view.onSettingsFileNotFound();
+      return new SettingValues();
     }
     catch (IOException e)
     {
       Log.error("[SettingsFile] Error reading from: " + fileName + ".ini: " + e.getMessage());
-      view.onSettingsFileNotFound();
+      return new SettingValues();
     }
-    finally
-    {
-      if (reader != null)
-      {
-        try
-        {
-          reader.close();
-        }
-        catch (IOException e)
-        {
-          Log.error("[SettingsFile] Error closing: " + fileName + ".ini: " + e.getMessage());
-        }
-      }
-    }
-
-    return sections;
   }
 
   /**
-   * Saves a Settings HashMap to a given .ini file on disk. If unsuccessful, outputs an error
-   * telling why it failed.
+   * Builds the settings screen's model of a file from already resolved settings rather than by
+   * reading the file. Every declared key gets a Setting holding the value in effect, marked as
+   * unchanged, so that only the keys the user changes are saved; for a game, that makes them
+   * overrides in its settings file while everything else keeps following the global settings.
    *
-   * @param fileName The target filename without a path or extension.
-   * @param sections The HashMap containing the Settings we want to serialize.
-   * @param view     The current view.
-   * @return An Observable representing the operation.
+   * @param settings The settings to show.
+   * @return A HashMap of SettingSections, keyed by section name.
    */
-  public static void saveFile(final String fileName, final HashMap<String, SettingSection> sections,
-          SettingsActivityView view)
+  public static HashMap<String, SettingSection> sectionsFromSettings(LayeredSettings settings)
   {
-    File ini = getSettingsFile(fileName);
+    HashMap<String, SettingSection> sections = new SettingsSectionMap();
 
-    Wini writer = null;
-    try
+    for (int id = 0; id < SettingsSchema.getKeyCount(); id++)
     {
-      writer = new Wini(ini);
+      SettingKey key = SettingsSchema.get(id);
+      Setting setting;
 
-      Set<String> keySet = sections.keySet();
-      for (String key : keySet)
+      switch (key.getType())
       {
-        SettingSection section = sections.get(key);
-        writeSection(writer, section);
+        case SettingKey.TYPE_INT:
+          setting = new IntSetting(key.getKey(), key.getSection(), SETTINGS_DOLPHIN,
+                  settings.getInt(key));
+          break;
+
+        case SettingKey.TYPE_FLOAT:
+          setting = new FloatSetting(key.getKey(), key.getSection(), SETTINGS_DOLPHIN,
+                  settings.getFloat(key));
+          break;
+
+        default:
+          setting = new StringSetting(key.getKey(), key.getSection(), SETTINGS_DOLPHIN,
+                  settings.getString(key));
+          break;
       }
-      writer.store();
-    }
-    catch (IOException e)
-    {
-      Log.error("[SettingsFile] File not found: " + fileName + ".ini: " + e.getMessage());
-      view.showToastMessage("Error saving " + fileName + ".ini: " + e.getMessage());
-    }
-  }
 
-  @NonNull
-  private static File getSettingsFile(String fileName)
-  {
-    return new File(
-            DirectoryInitializationService.getUserDirectory() + "/config/" + fileName + ".ini");
-  }
+      setting.clearDirty();
+      sections.get(key.getSection()).putSetting(setting);
+    }
 
-  private static SettingSection sectionFromLine(String line)
-  {
-    String sectionName = line.substring(1, line.length() - 1);
-    return new SettingSection(sectionName);
+    return sections;
   }
 
   /**
-   * For a line of text, determines what type of data is being represented, and returns
-   * a Setting object containing this data.
+   * Saves the Settings in a HashMap that changed since it was read or last saved to a given .ini
+   * file on disk. The changes are handed to {@link SettingsWriter}, which patches just their keys
+   * into the file on a background thread; failures are logged there.
    *
-   * @param current  The section currently being parsed by the consuming method.
-   * @param line     The line of text being parsed.
-   * @param fileName The name of the ini file the setting is in.
-   * @return A typed Setting containing the key/value contained in the line.
+   * @param fileName    The target filename without a path or extension.
+   * @param sections    The HashMap containing the Settings we want to serialize.
+   * @param immediately Whether to write right away rather than waiting for further changes, such
+   *                    as when the settings screen is closing.
    */
-  private static Setting settingFromLine(SettingSection current, String line, String fileName)
+  public static void saveFile(final String fileName, final HashMap<String, SettingSection> sections,
+          boolean immediately)
   {
-    String[] splitLine = line.split("=");
-
-    if (splitLine.length != 2)
-    {
-      Log.warning("Skipping invalid config line \"" + line + "\"");
-      return null;
-    }
-
-    String key = splitLine[0].trim();
-    String value = splitLine[1].trim();
-
-    if(value.isEmpty()){
-      Log.warning("Skipping null value in config line \"" + line + "\"");
-      return null;
-    }
-
-    int file = SETTINGS_DOLPHIN;
+    File ini = getSettingsFile(fileName);
+    SettingsWriter writer = SettingsWriter.getInstance();
 
-    try
-    {
-      int valueAsInt = Integer.valueOf(value);
+    SettingsCache.getInstance().onSaving(fileName, sections);
 
-      return new IntSetting(key, current.getName(), file, valueAsInt);
-    }
-    catch (NumberFormatException ex)
+    for (SettingSection section : sections.values())
     {
+      if (section.isDirty())
+      {
+        writeSection(writer, ini, section);
+      }
     }
 
-    try
-    {
-      float valueAsFloat = Float.valueOf(value);
+    writer.requestWrite(immediately);
+  }
 
-      return new FloatSetting(key, current.getName(), file, valueAsFloat);
-    }
-    catch (NumberFormatException ex)
-    {
-    }
+  /**
+   * @return The name of the file holding a game's own settings, for use with the methods of this
+   * class.
+   */
+  public static String getGameSettingsFileName(String gameId)
+  {
+    return "../GameSettings/" + gameId;
+  }
 
-    return new StringSetting(key, current.getName(), file, value);
+  @NonNull
+  private static File getSettingsFile(String fileName)
+  {
+    return new File(
+            DirectoryInitializationService.getUserDirectory() + "/config/" + fileName + ".ini");
   }
 
   /**
-   * Writes the contents of a Section HashMap to disk.
+   * Queues the changed contents of a Section HashMap to be written to disk.
    *
-   * @param parser  A Wini pointed at a file on disk.
+   * @param writer  The writer to queue the values with.
+   * @param ini     The file to write the values to.
    * @param section A section containing settings to be written to the file.
    */
-  private static void writeSection(Wini parser, SettingSection section)
+  private static void writeSection(SettingsWriter writer, File ini, SettingSection section)
   {
-    // Write the section header.
     String header = section.getName();
 
-    // Write this section's values.
-    HashMap<String, Setting> settings = section.getSettings();
-    Set<String> keySet = settings.keySet();
-
-    for (String key : keySet)
+    // Queue this section's changed values.
+    for (Setting setting : section.getSettings().values())
     {
-      Setting setting = settings.get(key);
-      parser.put(header, setting.getKey(), setting.getValueAsString());
+      if (setting.isDirty())
+      {
+        writer.set(ini, header, setting.getKey(), setting.getValueAsString());
+      }
     }
+
+    section.clearDirty();
   }
 }
@@ -0,0 +1,193 @@
+package org.citra.citra_android.utils;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Saves changed settings to their .ini files on a single background thread. Changes made in
+ * quick succession are merged and written together, with only their keys patched into each file,
+ * so neither a single toggle nor a burst of them costs the UI thread any file IO.
+ */
+public final class SettingsWriter
+{
+  // How long to wait for further changes before writing.
+  private static final long WRITE_DELAY_MS = 500;
+
+  private static SettingsWriter sInstance;
+
+  private final Handler mHandler;
+  private final Runnable mWrite = this::write;
+
+  // Values not yet written, by file, then section, then key. Guarded by itself.
+  private final Map<File, Map<String, Map<String, String>>> mPending = new LinkedHashMap<>();
+
+  private SettingsWriter()
+  {
+    HandlerThread thread =
+            new HandlerThread("SettingsWriter", Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    mHandler = new Handler(thread.getLooper());
+  }
+
+  public static synchronized SettingsWriter getInstance()
+  {
+    if (sInstance == null)
+    {
+      sInstance = new SettingsWriter();
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * Queues a value to be written. It replaces any value queued earlier for the same key.
+   */
+  public void set(File file, String section, String key, String value)
+  {
+    synchronized (mPending)
+    {
+      Map<String, Map<String, String>> sections = mPending.get(file);
+      if (sections == null)
+      {
+        sections = new LinkedHashMap<>();
+        mPending.put(file, sections);
+      }
+
+      Map<String, String> keys = sections.get(section);
+      if (keys == null)
+      {
+        keys = new LinkedHashMap<>();
+        sections.put(section, keys);
+      }
+
+      keys.put(key, value);
+    }
+  }
+
+  /**
+   * Schedules the queued values to be written.
+   *
+   * @param immediately Whether to write as soon as possible, rather than waiting to see whether
+   *                    more changes follow.
+   */
+  public void requestWrite(boolean immediately)
+  {
+    mHandler.removeCallbacks(mWrite);
+    mHandler.postDelayed(mWrite, immediately ? 0 : WRITE_DELAY_MS);
+  }
+
+  /**
+   * Applies the values still waiting to be written to a file onto its contents as just read, so
+   * that reading a file right after changing it doesn't return the old values.
+   */
+  public void applyPending(File file, IniFile ini)
+  {
+    synchronized (mPending)
+    {
+      Map<String, Map<String, String>> sections = mPending.get(file);
+      if (sections != null)
+      {
+        apply(sections, ini);
+      }
+    }
+  }
+
+  private void write()
+  {
+    Map<File, Map<String, Map<String, String>>> pending = new HashMap<>();
+    synchronized (mPending)
+    {
+      for (Map.Entry<File, Map<String, Map<String, String>>> file : mPending.entrySet())
+      {
+        pending.put(file.getKey(), copy(file.getValue()));
+      }
+    }
+
+    for (Map.Entry<File, Map<String, Map<String, String>>> file : pending.entrySet())
+    {
+      File ini = file.getKey();
+
+      try
+      {
+        IniFile contents = ini.exists() ? IniFile.read(ini) : new IniFile();
+        apply(file.getValue(), contents);
+        contents.write(ini);
+      }
+      catch (IOException e)
+      {
+        Log.error("[SettingsWriter] Error saving " + ini + ": " + e.getMessage());
+        continue;
+      }
+
+      // Values are only dropped once written, and only if they weren't changed in the meantime.
+      synchronized (mPending)
+      {
+        removeWritten(ini, file.getValue());
+      }
+    }
+  }
+
+  private void removeWritten(File file, Map<String, Map<String, String>> written)
+  {
+    Map<String, Map<String, String>> sections = mPending.get(file);
+    if (sections == null)
+    {
+      return;
+    }
+
+    for (Map.Entry<String, Map<String, String>> section : written.entrySet())
+    {
+      Map<String, String> keys = sections.get(section.getKey());
+      if (keys == null)
+      {
+        continue;
+      }
+
+      for (Map.Entry<String, String> key : section.getValue().entrySet())
+      {
+        if (key.getValue().equals(keys.get(key.getKey())))
+        {
+          keys.remove(key.getKey());
+        }
+      }
+
+      if (keys.isEmpty())
+      {
+        sections.remove(section.getKey());
+      }
+    }
+
+    if (sections.isEmpty())
+    {
+      mPending.remove(file);
+    }
+  }
+
+  private static void apply(Map<String, Map<String, String>> sections, IniFile ini)
+  {
+    for (Map.Entry<String, Map<String, String>> section : sections.entrySet())
+    {
+      for (Map.Entry<String, String> key : section.getValue().entrySet())
+      {
+        ini.set(section.getKey(), key.getKey(), key.getValue());
+      }
+    }
+  }
+
+  private static Map<String, Map<String, String>> copy(Map<String, Map<String, String>> sections)
+  {
+    Map<String, Map<String, String>> copy = new LinkedHashMap<>();
+    for (Map.Entry<String, Map<String, String>> section : sections.entrySet())
+    {
+      copy.put(section.getKey(), new LinkedHashMap<>(section.getValue()));
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,181 @@
+package org.citra.citra_android.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes downsampled copies of game screenshots, center-cropped to the size of the views that
+ * show them, into a hidden directory next to each screenshot. A thumbnail's name includes the
+ * last-modified time of its screenshot, so a new screenshot gets a new thumbnail and the old one
+ * is deleted.
+ */
+public final class ThumbnailGenerator
+{
+  private static final String DIRECTORY_NAME = ".thumbnails";
+
+  private static final int JPEG_QUALITY = 90;
+
+  private ThumbnailGenerator()
+  {
+  }
+
+  /**
+   * Gets the thumbnail of a screenshot at the given size, generating it first if it doesn't exist
+   * yet or the screenshot changed since. Does file IO, so don't call this on the main thread.
+   *
+   * @return The thumbnail file, or null if the screenshot couldn't be read or the thumbnail
+   * couldn't be written.
+   */
+  public static File getThumbnail(File screenshot, int width, int height)
+  {
+    long lastModified = screenshot.lastModified();
+    if (lastModified == 0)
+    {
+      return null;
+    }
+
+    File directory = new File(screenshot.getParentFile(), DIRECTORY_NAME);
+    String prefix = stripExtension(screenshot.getName()) + "_" + width + "x" + height + "_";
+    File thumbnail = new File(directory, prefix + lastModified + ".jpg");
+
+    if (thumbnail.exists())
+    {
+      return thumbnail;
+    }
+
+    if (!directory.isDirectory() && !directory.mkdirs())
+    {
+      Log.error("[ThumbnailGenerator] Couldn't create directory: " + directory);
+      return null;
+    }
+
+    Bitmap bitmap = decodeCropped(screenshot, width, height);
+    if (bitmap == null)
+    {
+      Log.error("[ThumbnailGenerator] Couldn't decode screenshot: " + screenshot);
+      return null;
+    }
+
+    boolean written = write(bitmap, thumbnail);
+    bitmap.recycle();
+
+    if (!written)
+    {
+      return null;
+    }
+
+    deleteStaleThumbnails(directory, prefix, thumbnail);
+    return thumbnail;
+  }
+
+  /**
+   * Decodes only as many pixels of the screenshot as are needed, then scales and crops the rest
+   * to fill exactly the requested size.
+   */
+  private static Bitmap decodeCropped(File screenshot, int width, int height)
+  {
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeFile(screenshot.getPath(), options);
+
+    if (options.outWidth <= 0 || options.outHeight <= 0)
+    {
+      return null;
+    }
+
+    int sampleSize = 1;
+    while (options.outWidth / (sampleSize * 2) >= width &&
+            options.outHeight / (sampleSize * 2) >= height)
+    {
+      sampleSize *= 2;
+    }
+
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = sampleSize;
+    options.inPreferredConfig = Bitmap.Config.RGB_565;
+
+    Bitmap source = BitmapFactory.decodeFile(screenshot.getPath(), options);
+    if (source == null)
+    {
+      return null;
+    }
+
+    float scale = Math.max((float) width / source.getWidth(),
+            (float) height / source.getHeight());
+    int cropWidth = Math.min(source.getWidth(), Math.round(width / scale));
+    int cropHeight = Math.min(source.getHeight(), Math.round(height / scale));
+
+    Matrix matrix = new Matrix();
+    matrix.setScale(scale, scale);
+
+    Bitmap cropped = Bitmap.createBitmap(source,
+            (source.getWidth() - cropWidth) / 2,
+            (source.getHeight() - cropHeight) / 2,
+            cropWidth,
+            cropHeight,
+            matrix,
+            true);
+
+    if (cropped != source)
+    {
+      source.recycle();
+    }
+
+    return cropped;
+  }
+
+  /**
+   * Writes to a temporary file first, so that a thumbnail being read by another thread is never
+   * half-written.
+   */
+  private static boolean write(Bitmap bitmap, File thumbnail)
+  {
+    File temp = new File(thumbnail.getPath() + ".tmp" + Thread.currentThread().getId());
+
+    try (FileOutputStream stream = new FileOutputStream(temp))
+    {
+      bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, stream);
+    }
+    catch (IOException e)
+    {
+      Log.error("[ThumbnailGenerator] Couldn't write thumbnail " + thumbnail + ": " +
+              e.getMessage());
+      temp.delete();
+      return false;
+    }
+
+    if (!temp.renameTo(thumbnail))
+    {
+      Log.error("[ThumbnailGenerator] Couldn't write thumbnail: " + thumbnail);
+      temp.delete();
+      return false;
+    }
+
+    return true;
+  }
+
+  private static void deleteStaleThumbnails(File directory, String prefix, File current)
+  {
+    File[] stale = directory.listFiles((dir, name) ->
+            name.startsWith(prefix) && !name.equals(current.getName()));
+
+    if (stale != null)
+    {
+      for (File file : stale)
+      {
+        file.delete();
+      }
+    }
+  }
+
+  private static String stripExtension(String fileName)
+  {
+    int extensionStart = fileName.lastIndexOf('.');
+    return extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+  }
+}
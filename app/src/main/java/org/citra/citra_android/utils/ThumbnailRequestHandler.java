@@ -0,0 +1,71 @@
+package org.citra.citra_android.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.Request;
+import com.squareup.picasso.RequestHandler;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Loads screenshot thumbnails through {@link ThumbnailGenerator}, generating them on Picasso's
+ * worker threads the first time they are needed.
+ */
+public class ThumbnailRequestHandler extends RequestHandler
+{
+  private static final String SCHEME = "thumbnail";
+
+  private static final String PARAMETER_WIDTH = "width";
+  private static final String PARAMETER_HEIGHT = "height";
+  private static final String PARAMETER_LAST_MODIFIED = "last_modified";
+
+  /**
+   * Builds the URI Picasso loads a screenshot's thumbnail from. The screenshot's last-modified
+   * time is part of it, so that Picasso's own cache doesn't keep serving an older thumbnail.
+   */
+  public static Uri buildThumbnailUri(File screenshot, int width, int height)
+  {
+    return new Uri.Builder()
+            .scheme(SCHEME)
+            .path(screenshot.getPath())
+            .appendQueryParameter(PARAMETER_WIDTH, Integer.toString(width))
+            .appendQueryParameter(PARAMETER_HEIGHT, Integer.toString(height))
+            .appendQueryParameter(PARAMETER_LAST_MODIFIED, Long.toString(screenshot.lastModified()))
+            .build();
+  }
+
+  @Override
+  public boolean canHandleRequest(Request data)
+  {
+    return SCHEME.equals(data.uri.getScheme());
+  }
+
+  @Override
+  public Result load(Request request, int networkPolicy) throws IOException
+  {
+    File screenshot = new File(request.uri.getPath());
+    int width = Integer.parseInt(request.uri.getQueryParameter(PARAMETER_WIDTH));
+    int height = Integer.parseInt(request.uri.getQueryParameter(PARAMETER_HEIGHT));
+
+    File thumbnail = ThumbnailGenerator.getThumbnail(screenshot, width, height);
+    if (thumbnail == null)
+    {
+      throw new IOException("No thumbnail for " + screenshot);
+    }
+
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inPreferredConfig = Bitmap.Config.RGB_565;
+
+    Bitmap bitmap = BitmapFactory.decodeFile(thumbnail.getPath(), options);
+    if (bitmap == null)
+    {
+      throw new IOException("Couldn't decode thumbnail " + thumbnail);
+    }
+
+    return new Result(bitmap, Picasso.LoadedFrom.DISK);
+  }
+}
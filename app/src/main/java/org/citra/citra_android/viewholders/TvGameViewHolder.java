@@ -20,8 +20,6 @@ public final class TvGameViewHolder extends Presenter.ViewHolder
   // TODO Not need any of this stuff. Currently only the properties dialog needs it.
   public String path;
   public String title;
-  public String description;
-  public int country;
   public String company;
   public String screenshotPath;
 
@@ -0,0 +1,91 @@
+package org.citra.citra_android.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FallbackGameMetadataReaderTest
+{
+  /**
+   * Stands in for the natives: the batched call may be missing, and files named "bad" can't be
+   * read one at a time.
+   */
+  private static final class FakeReader extends FallbackGameMetadataReader
+  {
+    final boolean batchMissing;
+    int batchCalls;
+    final List<String> fileCalls = new ArrayList<>();
+
+    FakeReader(boolean batchMissing)
+    {
+      this.batchMissing = batchMissing;
+    }
+
+    @Override
+    protected GameMetadata[] readBatch(String[] paths)
+    {
+      batchCalls++;
+      if (batchMissing)
+      {
+        throw new UnsatisfiedLinkError("GetGameMetadata");
+      }
+
+      GameMetadata[] metadata = new GameMetadata[paths.length];
+      for (int i = 0; i < paths.length; i++)
+      {
+        metadata[i] = new GameMetadata("batch " + paths[i], "", "", "", 0, 0, 0);
+      }
+      return metadata;
+    }
+
+    @Override
+    protected GameMetadata readFile(String path)
+    {
+      fileCalls.add(path);
+      return path.equals("bad") ? null :
+              new GameMetadata("file " + path, "", "", "", 0, 0, 0);
+    }
+  }
+
+  @Test
+  public void usesTheBatchedCallWhenItExists()
+  {
+    FakeReader reader = new FakeReader(false);
+
+    GameMetadata[] metadata = reader.read(new String[]{"a", "b"});
+
+    assertEquals("batch a", metadata[0].getTitle());
+    assertEquals("batch b", metadata[1].getTitle());
+    assertEquals(1, reader.batchCalls);
+    assertEquals(0, reader.fileCalls.size());
+  }
+
+  @Test
+  public void fallsBackToPerFileReadsWhenTheBatchedCallIsMissing()
+  {
+    FakeReader reader = new FakeReader(true);
+
+    GameMetadata[] metadata = reader.read(new String[]{"a", "bad", "c"});
+
+    assertEquals(3, metadata.length);
+    assertEquals("file a", metadata[0].getTitle());
+    assertNull(metadata[1]);
+    assertEquals("file c", metadata[2].getTitle());
+  }
+
+  @Test
+  public void onlyTriesTheMissingBatchedCallOnce()
+  {
+    FakeReader reader = new FakeReader(true);
+
+    reader.read(new String[]{"a"});
+    reader.read(new String[]{"b", "c"});
+
+    assertEquals(1, reader.batchCalls);
+    assertEquals(3, reader.fileCalls.size());
+  }
+}
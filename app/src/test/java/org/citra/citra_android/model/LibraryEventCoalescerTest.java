@@ -0,0 +1,168 @@
+package org.citra.citra_android.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LibraryEventCoalescerTest
+{
+  private static final long QUIET_PERIOD = 1000;
+  private static final long MAX_DELAY = 10000;
+
+  private final LibraryEventCoalescer mCoalescer =
+          new LibraryEventCoalescer(QUIET_PERIOD, MAX_DELAY);
+
+  @Test
+  public void nothingIsDueWithoutEvents()
+  {
+    assertEquals(-1, mCoalescer.getDueTime());
+    assertNull(mCoalescer.drain(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void debouncesEventsWithinTheQuietPeriod()
+  {
+    mCoalescer.onPathChanged("/roms/a.3ds", 0);
+    mCoalescer.onPathChanged("/roms/b.3ds", 600);
+    mCoalescer.onPathChanged("/roms/c.3ds", 1200);
+
+    // Each event pushes the batch back.
+    assertEquals(1200 + QUIET_PERIOD, mCoalescer.getDueTime());
+    assertNull(mCoalescer.drain(1000));
+    assertNull(mCoalescer.drain(1200 + QUIET_PERIOD - 1));
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(1200 + QUIET_PERIOD);
+    assertEquals(set("/roms/a.3ds", "/roms/b.3ds", "/roms/c.3ds"), batch.getChangedPaths());
+    assertEquals(set(), batch.getRemovedPaths());
+
+    assertEquals(-1, mCoalescer.getDueTime());
+  }
+
+  @Test
+  public void repeatedEventsForAPathAreAppliedOnce()
+  {
+    mCoalescer.onPathChanged("/roms/a.3ds", 0);
+    mCoalescer.onPathChanged("/roms/a.3ds", 100);
+    mCoalescer.onPathChanged("/roms/a.3ds", 200);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(200 + QUIET_PERIOD);
+    assertEquals(set("/roms/a.3ds"), batch.getChangedPaths());
+  }
+
+  @Test
+  public void flushesAfterTheMaxDelayDuringAConstantStream()
+  {
+    long now = 0;
+    for (; now < MAX_DELAY; now += QUIET_PERIOD / 2)
+    {
+      mCoalescer.onPathChanged("/roms/game" + now + ".3ds", now);
+      assertNull(mCoalescer.drain(now));
+    }
+
+    // The quiet period never passes, but the first event has waited long enough.
+    mCoalescer.onPathChanged("/roms/last.3ds", now);
+    assertEquals(MAX_DELAY, mCoalescer.getDueTime());
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(now);
+    assertEquals((int) (MAX_DELAY / (QUIET_PERIOD / 2)) + 1, batch.getChangedPaths().size());
+
+    // The next batch starts its own delay.
+    mCoalescer.onPathChanged("/roms/next.3ds", now + 1);
+    assertEquals(now + 1 + QUIET_PERIOD, mCoalescer.getDueTime());
+  }
+
+  @Test
+  public void createThenDeleteCancelsOut()
+  {
+    mCoalescer.onPathCreated("/roms/a.3ds", 0);
+    mCoalescer.onPathChanged("/roms/a.3ds", 100);
+    mCoalescer.onPathRemoved("/roms/a.3ds", 200);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(200 + QUIET_PERIOD);
+    assertEquals(set(), batch.getChangedPaths());
+    assertEquals(set(), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void modifyThenDeleteIsARemoval()
+  {
+    mCoalescer.onPathChanged("/roms/a.3ds", 0);
+    mCoalescer.onPathRemoved("/roms/a.3ds", 100);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(100 + QUIET_PERIOD);
+    assertEquals(set(), batch.getChangedPaths());
+    assertEquals(set("/roms/a.3ds"), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void deleteThenCreateIsAChange()
+  {
+    mCoalescer.onPathRemoved("/roms/a.3ds", 0);
+    mCoalescer.onPathCreated("/roms/a.3ds", 100);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(100 + QUIET_PERIOD);
+    assertEquals(set("/roms/a.3ds"), batch.getChangedPaths());
+    assertEquals(set(), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void deleteCreateDeleteIsARemoval()
+  {
+    mCoalescer.onPathRemoved("/roms/a.3ds", 0);
+    mCoalescer.onPathCreated("/roms/a.3ds", 100);
+    mCoalescer.onPathRemoved("/roms/a.3ds", 200);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(200 + QUIET_PERIOD);
+    assertEquals(set("/roms/a.3ds"), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void moveIsRecordedAsDeleteAndCreate()
+  {
+    mCoalescer.onPathRemoved("/roms/old/a.3ds", 0);
+    mCoalescer.onPathCreated("/roms/new/a.3ds", 0);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(QUIET_PERIOD);
+    assertEquals(set("/roms/new/a.3ds"), batch.getChangedPaths());
+    assertEquals(set("/roms/old/a.3ds"), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void movingBackAndForthEndsWhereItStarted()
+  {
+    mCoalescer.onPathRemoved("/roms/a.3ds", 0);
+    mCoalescer.onPathCreated("/roms/b.3ds", 0);
+    mCoalescer.onPathRemoved("/roms/b.3ds", 100);
+    mCoalescer.onPathCreated("/roms/a.3ds", 100);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(100 + QUIET_PERIOD);
+    assertEquals(set("/roms/a.3ds"), batch.getChangedPaths());
+    assertEquals(set(), batch.getRemovedPaths());
+  }
+
+  @Test
+  public void keepsPathsInTheOrderTheyWereFirstSeen()
+  {
+    mCoalescer.onPathChanged("/roms/c.3ds", 0);
+    mCoalescer.onPathChanged("/roms/a.3ds", 1);
+    mCoalescer.onPathChanged("/roms/b.3ds", 2);
+    mCoalescer.onPathChanged("/roms/c.3ds", 3);
+
+    LibraryEventCoalescer.Batch batch = mCoalescer.drain(3 + QUIET_PERIOD);
+    assertEquals(Arrays.asList("/roms/c.3ds", "/roms/a.3ds", "/roms/b.3ds"),
+            Arrays.asList(batch.getChangedPaths().toArray()));
+  }
+
+  private static Set<String> set(String... paths)
+  {
+    Set<String> set = new LinkedHashSet<>();
+    Collections.addAll(set, paths);
+    return set;
+  }
+}
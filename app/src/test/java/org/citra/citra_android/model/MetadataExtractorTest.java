@@ -0,0 +1,237 @@
+package org.citra.citra_android.model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataExtractorTest
+{
+  /**
+   * Reads every path it isn't told to fail, recording the batches it was handed.
+   */
+  private static final class FakeReader implements GameMetadataReader
+  {
+    final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    final Set<String> unreadablePaths = new HashSet<>();
+    final Set<String> throwingPaths = new HashSet<>();
+
+    @Override
+    public GameMetadata[] read(String[] paths)
+    {
+      batchSizes.add(paths.length);
+
+      GameMetadata[] metadata = new GameMetadata[paths.length];
+      for (int i = 0; i < paths.length; i++)
+      {
+        if (throwingPaths.contains(paths[i]))
+        {
+          throw new IllegalStateException("Crashed reading " + paths[i]);
+        }
+
+        if (!unreadablePaths.contains(paths[i]))
+        {
+          metadata[i] = new GameMetadata("Title of " + paths[i], "", "", "", 0, 0, 0);
+        }
+      }
+      return metadata;
+    }
+  }
+
+  private static final class RecordingSink implements MetadataExtractor.Sink
+  {
+    final Set<String> skippedPaths = new HashSet<>();
+    final List<String> readPaths = new ArrayList<>();
+    final List<String> titles = new ArrayList<>();
+    final List<String> failedPaths = new ArrayList<>();
+
+    @Override
+    public boolean needsMetadata(File file)
+    {
+      return !skippedPaths.contains(file.getPath());
+    }
+
+    @Override
+    public void onMetadataRead(File file, GameMetadata metadata)
+    {
+      readPaths.add(file.getPath());
+      titles.add(metadata.getTitle());
+    }
+
+    @Override
+    public void onMetadataFailed(File file)
+    {
+      failedPaths.add(file.getPath());
+    }
+  }
+
+  private final FakeReader mReader = new FakeReader();
+  private final RecordingSink mSink = new RecordingSink();
+  private final MetadataExtractor mExtractor = new MetadataExtractor(mReader);
+
+  @Test
+  public void readsFilesInBatches()
+  {
+    List<File> files = createFiles(MetadataExtractor.BATCH_SIZE * 2 + 8);
+
+    assertTrue(mExtractor.extract(files, mSink, null));
+
+    List<Integer> batchSizes = new ArrayList<>(mReader.batchSizes);
+    Collections.sort(batchSizes);
+    assertEquals(3, batchSizes.size());
+    assertEquals(8, (int) batchSizes.get(0));
+    assertEquals(MetadataExtractor.BATCH_SIZE, (int) batchSizes.get(1));
+    assertEquals(MetadataExtractor.BATCH_SIZE, (int) batchSizes.get(2));
+
+    assertEquals(files.size(), mSink.readPaths.size());
+    assertEquals(new HashSet<>(paths(files)), new HashSet<>(mSink.readPaths));
+    assertEquals(0, mSink.failedPaths.size());
+  }
+
+  @Test
+  public void passesEachFileItsOwnMetadata()
+  {
+    List<File> files = createFiles(MetadataExtractor.BATCH_SIZE + 3);
+
+    mExtractor.extract(files, mSink, null);
+
+    for (int i = 0; i < mSink.readPaths.size(); i++)
+    {
+      assertEquals("Title of " + mSink.readPaths.get(i), mSink.titles.get(i));
+    }
+  }
+
+  @Test
+  public void reportsUnreadableFilesAsFailed()
+  {
+    List<File> files = createFiles(20);
+    mReader.unreadablePaths.add(files.get(3).getPath());
+    mReader.unreadablePaths.add(files.get(17).getPath());
+
+    assertTrue(mExtractor.extract(files, mSink, null));
+
+    assertEquals(18, mSink.readPaths.size());
+    assertEquals(new HashSet<>(paths(files.get(3), files.get(17))),
+            new HashSet<>(mSink.failedPaths));
+    assertFalse(mSink.readPaths.contains(files.get(3).getPath()));
+  }
+
+  @Test
+  public void reportsEveryFileOfACrashedBatchAsFailed()
+  {
+    List<File> files = createFiles(MetadataExtractor.BATCH_SIZE * 2);
+    mReader.throwingPaths.add(files.get(MetadataExtractor.BATCH_SIZE + 1).getPath());
+
+    assertTrue(mExtractor.extract(files, mSink, null));
+
+    List<File> firstBatch = files.subList(0, MetadataExtractor.BATCH_SIZE);
+    List<File> secondBatch = files.subList(MetadataExtractor.BATCH_SIZE, files.size());
+    assertEquals(new HashSet<>(paths(firstBatch)), new HashSet<>(mSink.readPaths));
+    assertEquals(new HashSet<>(paths(secondBatch)), new HashSet<>(mSink.failedPaths));
+  }
+
+  @Test
+  public void skipsFilesTheSinkDoesNotNeed()
+  {
+    List<File> files = createFiles(MetadataExtractor.BATCH_SIZE);
+    for (File file : files.subList(0, 10))
+    {
+      mSink.skippedPaths.add(file.getPath());
+    }
+
+    assertTrue(mExtractor.extract(files, mSink, null));
+
+    assertEquals(1, mReader.batchSizes.size());
+    assertEquals(MetadataExtractor.BATCH_SIZE - 10, (int) mReader.batchSizes.get(0));
+    assertEquals(new HashSet<>(paths(files.subList(10, files.size()))),
+            new HashSet<>(mSink.readPaths));
+    assertEquals(0, mSink.failedPaths.size());
+  }
+
+  @Test
+  public void doesNotCallTheReaderWhenNoFileOfABatchIsNeeded()
+  {
+    List<File> files = createFiles(4);
+    for (File file : files)
+    {
+      mSink.skippedPaths.add(file.getPath());
+    }
+
+    assertTrue(mExtractor.extract(files, mSink, null));
+
+    assertEquals(0, mReader.batchSizes.size());
+    assertEquals(0, mSink.readPaths.size());
+  }
+
+  @Test
+  public void reportsProgressAfterEachBatch()
+  {
+    List<File> files = createFiles(MetadataExtractor.BATCH_SIZE * 2 + 1);
+    List<int[]> progress = new ArrayList<>();
+
+    mExtractor.extract(files, mSink,
+            (completed, total) -> progress.add(new int[]{completed, total}));
+
+    assertEquals(3, progress.size());
+    assertEquals(MetadataExtractor.BATCH_SIZE, progress.get(0)[0]);
+    assertEquals(MetadataExtractor.BATCH_SIZE * 2, progress.get(1)[0]);
+    assertEquals(files.size(), progress.get(2)[0]);
+    for (int[] update : progress)
+    {
+      assertEquals(files.size(), update[1]);
+    }
+  }
+
+  @Test
+  public void reportsProgressForAnEmptyScan()
+  {
+    List<int[]> progress = new ArrayList<>();
+
+    assertTrue(mExtractor.extract(new ArrayList<>(), mSink,
+            (completed, total) -> progress.add(new int[]{completed, total})));
+
+    assertEquals(1, progress.size());
+    assertEquals(0, progress.get(0)[0]);
+    assertEquals(0, progress.get(0)[1]);
+    assertEquals(0, mReader.batchSizes.size());
+  }
+
+  private static List<File> createFiles(int count)
+  {
+    // The extractor only looks at paths, so the files don't need to exist.
+    List<File> files = new ArrayList<>(count);
+    for (int i = 0; i < count; i++)
+    {
+      files.add(new File("/library/game" + i + ".3ds"));
+    }
+    return files;
+  }
+
+  private static List<String> paths(List<File> files)
+  {
+    List<String> paths = new ArrayList<>(files.size());
+    for (File file : files)
+    {
+      paths.add(file.getPath());
+    }
+    return paths;
+  }
+
+  private static List<String> paths(File... files)
+  {
+    List<String> paths = new ArrayList<>(files.length);
+    for (File file : files)
+    {
+      paths.add(file.getPath());
+    }
+    return paths;
+  }
+}
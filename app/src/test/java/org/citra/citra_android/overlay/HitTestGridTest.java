@@ -0,0 +1,291 @@
+package org.citra.citra_android.overlay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HitTestGridTest
+{
+  // A 1920x1080 screen in landscape, with the control scale left at its default.
+  private static final int SCREEN_WIDTH = 1920;
+  private static final int SCREEN_HEIGHT = 1080;
+
+  private static final class Control
+  {
+    final String name;
+    final int left;
+    final int top;
+    final int right;
+    final int bottom;
+
+    Control(String name, int positionX, int positionY, float scale)
+    {
+      // As laid out by N3DS_DefaultOverlay and sized by getControlSize, from res/values/integers.xml.
+      int size = (int) (Math.min(SCREEN_WIDTH, SCREEN_HEIGHT) * scale);
+      this.name = name;
+      this.left = (int) (positionX / 1000f * SCREEN_WIDTH);
+      this.top = (int) (positionY / 1000f * SCREEN_HEIGHT);
+      this.right = left + size;
+      this.bottom = top + size;
+    }
+
+    boolean contains(int x, int y)
+    {
+      return x >= left && x < right && y >= top && y < bottom;
+    }
+
+    @Override
+    public String toString()
+    {
+      return name;
+    }
+  }
+
+  private final List<Control> mControls = new ArrayList<>();
+  private final HitTestGrid<Control> mGrid = new HitTestGrid<>();
+
+  @Before
+  public void setUp()
+  {
+    mControls.add(new Control("A", 930, 540, 0.125f));
+    mControls.add(new Control("B", 870, 640, 0.125f));
+    mControls.add(new Control("X", 870, 440, 0.125f));
+    mControls.add(new Control("Y", 810, 540, 0.125f));
+    mControls.add(new Control("L", 13, 180, 0.25f));
+    mControls.add(new Control("ZL", 13, 0, 0.25f));
+    mControls.add(new Control("R", 845, 180, 0.25f));
+    mControls.add(new Control("ZR", 845, 0, 0.25f));
+    mControls.add(new Control("Start", 520, 850, 0.0625f));
+    mControls.add(new Control("Select", 480, 850, 0.0625f));
+    mControls.add(new Control("Home", 440, 850, 0.0625f));
+    mControls.add(new Control("Dpad", 18, 450, 0.275f));
+    mControls.add(new Control("Circle Pad", 170, 650, 0.275f));
+    mControls.add(new Control("C-Stick", 665, 650, 0.275f));
+
+    for (Control control : mControls)
+    {
+      mGrid.add(control, control.left, control.top, control.right, control.bottom);
+    }
+    mGrid.build();
+  }
+
+  @Test
+  public void candidatesIncludeEveryControlUnderThePoint()
+  {
+    for (int y = -8; y < SCREEN_HEIGHT + 8; y += 3)
+    {
+      for (int x = -8; x < SCREEN_WIDTH + 8; x += 3)
+      {
+        List<Control> candidates = mGrid.getCandidates(x, y);
+
+        for (Control control : mControls)
+        {
+          if (control.contains(x, y))
+          {
+            assertTrue(control + " missing at " + x + "," + y, candidates.contains(control));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void candidatesIncludeTheEdgesOfEachControl()
+  {
+    for (Control control : mControls)
+    {
+      int[][] corners = {
+              {control.left, control.top},
+              {control.right - 1, control.top},
+              {control.left, control.bottom - 1},
+              {control.right - 1, control.bottom - 1}};
+
+      for (int[] corner : corners)
+      {
+        assertTrue(control + " missing at its corner",
+                mGrid.getCandidates(corner[0], corner[1]).contains(control));
+      }
+    }
+  }
+
+  @Test
+  public void candidatesOnlyIncludeNearbyControls()
+  {
+    Control a = mControls.get(0);
+    List<Control> candidates = mGrid.getCandidates((a.left + a.right) / 2, (a.top + a.bottom) / 2);
+
+    assertTrue(candidates.contains(a));
+    assertTrue(candidates.size() < mControls.size());
+    for (Control candidate : candidates)
+    {
+      assertFalse(candidate.name, candidate.name.equals("Dpad") ||
+              candidate.name.equals("Circle Pad"));
+    }
+  }
+
+  @Test
+  public void overlappingControlsShareTheirCandidates()
+  {
+    // With the default layout, the top of L lies under ZL.
+    Control l = mControls.get(4);
+    Control zl = mControls.get(5);
+    assertTrue(l.top < zl.bottom);
+
+    List<Control> candidates = mGrid.getCandidates(l.left, l.top);
+    assertTrue(candidates.contains(l));
+    assertTrue(candidates.contains(zl));
+  }
+
+  @Test
+  public void pointsOutsideTheControlsHaveNoCandidates()
+  {
+    assertEquals(0, mGrid.getCandidates(-1, -1).size());
+    assertEquals(0, mGrid.getCandidates(SCREEN_WIDTH * 2, SCREEN_HEIGHT * 2).size());
+  }
+
+  @Test
+  public void rebuildingReflectsMovedControls()
+  {
+    Control a = mControls.get(0);
+
+    mGrid.clear();
+    mGrid.add(a, 0, 0, 10, 10);
+    mGrid.build();
+
+    assertTrue(mGrid.getCandidates(5, 5).contains(a));
+    assertEquals(0, mGrid.getCandidates(a.left + 1, a.top + 1).size());
+  }
+
+  @Test
+  public void gridLookupsTestFewerBoundsThanALinearScan()
+  {
+    // Every pixel of the screen, as touches could land anywhere.
+    int touches = SCREEN_WIDTH * SCREEN_HEIGHT;
+
+    long gridChecks = 0;
+    long linearChecks = 0;
+    for (int y = 0; y < SCREEN_HEIGHT; y++)
+    {
+      for (int x = 0; x < SCREEN_WIDTH; x++)
+      {
+        List<Control> candidates = mGrid.getCandidates(x, y);
+        Control gridHit = null;
+        for (int i = 0; i < candidates.size() && gridHit == null; i++)
+        {
+          gridChecks++;
+          gridHit = candidates.get(i).contains(x, y) ? candidates.get(i) : null;
+        }
+
+        Control linearHit = null;
+        for (int i = 0; i < mControls.size() && linearHit == null; i++)
+        {
+          linearChecks++;
+          linearHit = mControls.get(i).contains(x, y) ? mControls.get(i) : null;
+        }
+
+        // Overlapping controls may be found in another order, but a hit is a hit.
+        assertEquals(x + "," + y, linearHit != null, gridHit != null);
+        if (gridHit != null)
+        {
+          assertTrue(gridHit.contains(x, y));
+        }
+      }
+    }
+
+    long gridTime = Long.MAX_VALUE;
+    long linearTime = Long.MAX_VALUE;
+    int hits = 0;
+
+    // Alternate the two, keeping the best run of each once the JIT has warmed up.
+    for (int run = 0; run < 15; run++)
+    {
+      long start = System.nanoTime();
+      hits += findWithGrid();
+      long grid = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      hits -= findLinearly();
+      long linear = System.nanoTime() - start;
+
+      if (run >= 5)
+      {
+        gridTime = Math.min(gridTime, grid);
+        linearTime = Math.min(linearTime, linear);
+      }
+    }
+    assertEquals(0, hits);
+
+    System.out.println("[HitTestGridTest] " + touches + " touches: grid " + gridTime / 1000 +
+            "us and " + gridChecks + " bounds checks, linear scan " + linearTime / 1000 +
+            "us and " + linearChecks + " bounds checks");
+
+    // Bounds checks are what the grid saves, and unlike wall time they don't depend on the
+    // machine. The grid takes well under half the time as well, so that check leaves room for
+    // a noisy machine.
+    assertTrue(gridChecks * 4 < linearChecks);
+    assertTrue("Grid took " + gridTime + "ns, linear scan " + linearTime + "ns",
+            gridTime < linearTime);
+  }
+
+  @Test
+  public void emptyGridHasNoCandidates()
+  {
+    mGrid.clear();
+    mGrid.build();
+
+    assertEquals(0, mGrid.getCandidates(0, 0).size());
+  }
+
+  /**
+   * @return How many touches over the whole screen hit a control, found through the grid.
+   */
+  private int findWithGrid()
+  {
+    int hits = 0;
+    for (int y = 0; y < SCREEN_HEIGHT; y++)
+    {
+      for (int x = 0; x < SCREEN_WIDTH; x++)
+      {
+        List<Control> candidates = mGrid.getCandidates(x, y);
+        for (int i = 0; i < candidates.size(); i++)
+        {
+          if (candidates.get(i).contains(x, y))
+          {
+            hits++;
+            break;
+          }
+        }
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * @return The same, found by testing the bounds of every control, as before the grid.
+   */
+  private int findLinearly()
+  {
+    int hits = 0;
+    for (int y = 0; y < SCREEN_HEIGHT; y++)
+    {
+      for (int x = 0; x < SCREEN_WIDTH; x++)
+      {
+        for (int i = 0; i < mControls.size(); i++)
+        {
+          if (mControls.get(i).contains(x, y))
+          {
+            hits++;
+            break;
+          }
+        }
+      }
+    }
+    return hits;
+  }
+}
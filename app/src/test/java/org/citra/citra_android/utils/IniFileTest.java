@@ -0,0 +1,414 @@
+package org.citra.citra_android.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IniFileTest
+{
+  private File mDirectory;
+  private File mFile;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    mDirectory = Files.createTempDirectory("IniFileTest").toFile();
+    mFile = new File(mDirectory, "test.ini");
+  }
+
+  @After
+  public void tearDown()
+  {
+    File[] files = mDirectory.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    mDirectory.delete();
+  }
+
+  @Test
+  public void writesBackUnchangedFileAsRead() throws IOException
+  {
+    String text = "; Generated by the core\n" +
+            "\n" +
+            "[Core]\n" +
+            "use_cpu_jit=1\n" +
+            "  cpu_clock_percentage =  100  \n" +
+            "not an entry\n" +
+            "\n" +
+            "[Renderer]\n" +
+            "resolution_factor = 2\n";
+
+    assertEquals(text, roundTrip(text));
+  }
+
+  @Test
+  public void readsTrimmedKeysAndValues() throws IOException
+  {
+    IniFile ini = read("[Core]\n  cpu_clock_percentage =  100  \nempty=\n");
+
+    assertEquals("100", ini.get("Core", "cpu_clock_percentage"));
+    assertEquals("", ini.get("Core", "empty"));
+    assertNull(ini.get("Core", "missing"));
+    assertNull(ini.get("Missing", "cpu_clock_percentage"));
+  }
+
+  @Test
+  public void setKeepsThePlaceOfTheKey() throws IOException
+  {
+    IniFile ini = read("[Core]\na = 1\nb = 2\n; trailing comment\n");
+    ini.set("Core", "a", "3");
+    ini.set("Core", "c", "4");
+    ini.set("Renderer", "d", "5");
+    ini.write(mFile);
+
+    assertEquals("[Core]\na = 3\nb = 2\nc = 4\n; trailing comment\n[Renderer]\nd = 5\n",
+            readText());
+  }
+
+  @Test
+  public void setToTheSameValueKeepsTheLine() throws IOException
+  {
+    String text = "[Core]\na=1\n";
+    IniFile ini = read(text);
+    ini.set("Core", "a", "1");
+    ini.write(mFile);
+
+    assertEquals(text, readText());
+  }
+
+  @Test
+  public void keepsCrlfLineEndings() throws IOException
+  {
+    IniFile ini = read("[Core]\r\na = 1\r\n\r\nb = 2\r\n");
+
+    assertEquals("1", ini.get("Core", "a"));
+    assertEquals("2", ini.get("Core", "b"));
+
+    ini.set("Core", "c", "3");
+    ini.write(mFile);
+
+    assertEquals("[Core]\r\na = 1\r\n\r\nb = 2\r\nc = 3\r\n", readText());
+  }
+
+  @Test
+  public void ignoresComments() throws IOException
+  {
+    String text = "[Core]\n; a = 1\n  # b = 2\nc = 3\n";
+    IniFile ini = read(text);
+
+    assertNull(ini.get("Core", "a"));
+    assertNull(ini.get("Core", "b"));
+    assertEquals("3", ini.get("Core", "c"));
+    assertEquals(Arrays.asList("Core/c=3"), visit(ini));
+    assertEquals(text, roundTrip(text));
+  }
+
+  @Test
+  public void keepsKeysBeforeTheFirstSection() throws IOException
+  {
+    String text = "orphan = 1\n[Core]\na = 2\n";
+    IniFile ini = read(text);
+
+    assertNull(ini.get(null, "orphan"));
+    assertNull(ini.get("Core", "orphan"));
+    assertEquals(Arrays.asList("Core/a=2"), visit(ini));
+    assertEquals(text, roundTrip(text));
+  }
+
+  @Test
+  public void keepsRepeatedSectionsApart() throws IOException
+  {
+    String text = "[A]\na=1\n[B]\nb=2\n[A]\na=3\nc=4\n";
+    IniFile ini = read(text);
+
+    assertEquals("3", ini.get("A", "a"));
+    assertEquals("4", ini.get("A", "c"));
+    assertEquals(Arrays.asList("A/a=1", "B/b=2", "A/a=3", "A/c=4"), visit(ini));
+    assertEquals(text, roundTrip(text));
+
+    ini.set("A", "a", "5");
+    ini.set("A", "d", "6");
+    ini.write(mFile);
+
+    assertEquals("[A]\na=1\n[B]\nb=2\n[A]\na = 5\nc=4\nd = 6\n", readText());
+  }
+
+  @Test
+  public void setFindsKeysInEarlierRepeatsOfASection() throws IOException
+  {
+    IniFile ini = read("[A]\na=1\n[A]\nb=2\n");
+    ini.set("A", "a", "3");
+    ini.write(mFile);
+
+    assertEquals("[A]\na = 3\n[A]\nb=2\n", readText());
+  }
+
+  @Test
+  public void writeReplacesTheFileThroughATemporaryFile() throws IOException
+  {
+    writeText("[Core]\na = 1\n");
+
+    IniFile ini = IniFile.read(mFile);
+    ini.set("Core", "a", "2");
+    ini.write(mFile);
+
+    assertEquals("[Core]\na = 2\n", readText());
+    assertArrayEquals(new String[]{"test.ini"}, mDirectory.list());
+  }
+
+  @Test
+  public void writeDeletesTheTemporaryFileWhenItCannotReplace() throws IOException
+  {
+    // A directory that isn't empty can't be replaced by a file.
+    File target = new File(mDirectory, "target");
+    assertTrue(target.mkdir());
+    File child = new File(target, "child");
+    assertTrue(child.createNewFile());
+
+    IniFile ini = new IniFile();
+    ini.set("Core", "a", "1");
+
+    try
+    {
+      ini.write(target);
+      fail("Replaced a directory");
+    }
+    catch (IOException expected)
+    {
+    }
+    finally
+    {
+      child.delete();
+      target.delete();
+    }
+
+    assertFalse(new File(mDirectory, "target.tmp").exists());
+  }
+
+  @Test
+  public void isIntAcceptsWhatParseIntAccepts()
+  {
+    for (String value : new String[]{"0", "7", "-7", "+7", "007", "2147483647", "-2147483648"})
+    {
+      assertTrue(value, IniFile.isInt(value));
+      Integer.parseInt(value);
+    }
+
+    for (String value : new String[]{"", "-", "+", "2147483648", "-2147483649",
+            "99999999999999999999", "1.0", "1e3", " 1", "1 ", "0x10", "--1"})
+    {
+      assertFalse(value, IniFile.isInt(value));
+    }
+  }
+
+  @Test
+  public void isFloatAcceptsDecimalNumbers()
+  {
+    for (String value : new String[]{"0", "1.", ".5", "-.5", "+1.5", "1e3", "1.5E-3", "-2e+10"})
+    {
+      assertTrue(value, IniFile.isFloat(value));
+      Float.parseFloat(value);
+    }
+
+    for (String value : new String[]{"", "-", ".", "-.", "e5", ".e5", "1e", "1e+", "1.5.2",
+            "1,5", " 1", "1 ", "0x10"})
+    {
+      assertFalse(value, IniFile.isFloat(value));
+    }
+  }
+
+  @Test
+  public void parsesALargeFileFasterThanSplittingLines() throws IOException
+  {
+    // Far more than a real config.ini, so that the timings aren't noise.
+    StringBuilder text = new StringBuilder();
+    for (int section = 0; section < 200; section++)
+    {
+      text.append("[Section").append(section).append("]\n");
+      text.append("; Settings of section ").append(section).append('\n');
+      for (int key = 0; key < 50; key++)
+      {
+        text.append("key").append(key).append(" = ");
+        switch (key % 3)
+        {
+          case 0:
+            text.append(key * section);
+            break;
+          case 1:
+            text.append(key / 8f);
+            break;
+          default:
+            text.append("value ").append(key);
+            break;
+        }
+        text.append('\n');
+      }
+      text.append('\n');
+    }
+    writeText(text.toString());
+
+    Map<String, Object> expected = parseBySplitting(mFile);
+    assertEquals(200 * 50, expected.size());
+    assertEquals(expected, parseWithIniFile(mFile));
+
+    long splitTime = Long.MAX_VALUE;
+    long iniFileTime = Long.MAX_VALUE;
+
+    // Alternate the two, keeping the best run of each once the JIT has warmed up.
+    for (int run = 0; run < 20; run++)
+    {
+      long start = System.nanoTime();
+      parseBySplitting(mFile);
+      long split = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      parseWithIniFile(mFile);
+      long iniFile = System.nanoTime() - start;
+
+      if (run >= 5)
+      {
+        splitTime = Math.min(splitTime, split);
+        iniFileTime = Math.min(iniFileTime, iniFile);
+      }
+    }
+
+    System.out.println("[IniFileTest] Parsing " + expected.size() + " entries: line.split " +
+            splitTime / 1000 + "us, IniFile " + iniFileTime / 1000 + "us");
+
+    // Leaves room for a noisy machine; in practice IniFile takes well under half the time.
+    assertTrue("IniFile took " + iniFileTime + "ns, line.split " + splitTime + "ns",
+            iniFileTime < splitTime);
+  }
+
+  /**
+   * Parses and types every entry the way SettingsFile did before IniFile: a line at a time, with
+   * String.split and the boxed number parsers as validators.
+   */
+  private static Map<String, Object> parseBySplitting(File file) throws IOException
+  {
+    Map<String, Object> entries = new HashMap<>();
+
+    try (BufferedReader reader = new BufferedReader(new FileReader(file)))
+    {
+      String section = null;
+      for (String line; (line = reader.readLine()) != null; )
+      {
+        if (line.startsWith("[") && line.endsWith("]"))
+        {
+          section = line.substring(1, line.length() - 1);
+          continue;
+        }
+
+        String[] splitLine = line.split("=");
+        if (section == null || splitLine.length != 2)
+        {
+          continue;
+        }
+
+        String key = splitLine[0].trim();
+        String value = splitLine[1].trim();
+
+        Object typed;
+        try
+        {
+          typed = Integer.valueOf(value);
+        }
+        catch (NumberFormatException e)
+        {
+          try
+          {
+            typed = Float.valueOf(value);
+          }
+          catch (NumberFormatException e2)
+          {
+            typed = value;
+          }
+        }
+        entries.put(section + "/" + key, typed);
+      }
+    }
+
+    return entries;
+  }
+
+  /**
+   * The same, through IniFile and its allocation-free validators.
+   */
+  private static Map<String, Object> parseWithIniFile(File file) throws IOException
+  {
+    Map<String, Object> entries = new HashMap<>();
+
+    IniFile.read(file).visitEntries((section, key, value) ->
+    {
+      Object typed;
+      if (IniFile.isInt(value))
+      {
+        typed = Integer.parseInt(value);
+      }
+      else if (IniFile.isFloat(value))
+      {
+        typed = Float.parseFloat(value);
+      }
+      else
+      {
+        typed = value;
+      }
+      entries.put(section + "/" + key, typed);
+    });
+
+    return entries;
+  }
+
+  private IniFile read(String text) throws IOException
+  {
+    writeText(text);
+    return IniFile.read(mFile);
+  }
+
+  private String roundTrip(String text) throws IOException
+  {
+    read(text).write(mFile);
+    return readText();
+  }
+
+  private static List<String> visit(IniFile ini)
+  {
+    List<String> entries = new ArrayList<>();
+    ini.visitEntries((section, key, value) -> entries.add(section + "/" + key + "=" + value));
+    return entries;
+  }
+
+  private void writeText(String text) throws IOException
+  {
+    Files.write(mFile.toPath(), text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String readText() throws IOException
+  {
+    return new String(Files.readAllBytes(mFile.toPath()), StandardCharsets.UTF_8);
+  }
+}